@@ -0,0 +1,127 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import utilities.BSTreeADT;
+
+/**
+ * Compares the array-backed ArrayBSTree with the node-based BSTree: the heap taken by the tree
+ * structure and the latency of a lookup. Both trees hold the same Integer keys, so they have the
+ * same shape and only the storage differs; the keys themselves are allocated beforehand and not
+ * counted. Each tree is built twice: by adding the keys in random order, and balanced by loadSorted.
+ * Usage: java -Xmx3g benchmarks.ArrayTreeBenchmark [elements] [-wi warmups] [-i iterations]
+ * The default is 10 million elements.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class ArrayTreeBenchmark {
+
+	private static final long SEED = 42;
+	private static final int PROBES = 1 << 20; // Lookup keys cycled through by the latency benchmark.
+
+	/**
+	 * Builds each tree in turn, printing its heap footprint and timing lookups in it.
+	 * @param args The number of elements and the harness options.
+	 * @throws Exception if a benchmark fails.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		int elements = 10000000;
+		int warmups = 2;
+		int iterations = 5;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-wi") && i + 1 < args.length) {
+				warmups = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-i") && i + 1 < args.length) {
+				iterations = Integer.parseInt(args[++i]);
+			} else if (!args[i].startsWith("-")) {
+				elements = Integer.parseInt(args[i]);
+			} else {
+				System.err.println("Use => java benchmarks.ArrayTreeBenchmark [elements] [-wi warmups] [-i iterations]");
+				return;
+			}
+		}
+
+		// Distinct keys in random order, so the unbalanced trees stay about 2.5 log2(n) deep.
+		Random random = new Random(SEED);
+		Integer[] keys = new Integer[elements];
+		for (int i = 0; i < elements; i++) keys[i] = i;
+		for (int i = elements - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Integer swap = keys[i];
+			keys[i] = keys[j];
+			keys[j] = swap;
+		}
+		Integer[] probes = new Integer[PROBES]; // Random keys present in the tree.
+		for (int i = 0; i < PROBES; i++) probes[i] = keys[random.nextInt(elements)];
+
+		String parameters = "size=" + elements;
+		Harness harness = new Harness(null, warmups, iterations);
+
+		Integer[] sorted = new Integer[elements]; // The same key objects, in ascending order.
+		for (Integer key : keys) sorted[key] = key;
+		List<Integer> sortedList = Arrays.asList(sorted);
+
+		harness.printHeader();
+		long nodeBytes = measure(harness, parameters + " tree=bst order=random", () -> {
+			BSTree<Integer> tree = new BSTree<>();
+			for (Integer key : keys) tree.add(key);
+			return tree;
+		}, probes);
+		long arrayBytes = measure(harness, parameters + " tree=array order=random", () -> {
+			ArrayBSTree<Integer> tree = new ArrayBSTree<>(keys.length);
+			for (Integer key : keys) tree.add(key);
+			return tree;
+		}, probes);
+		measure(harness, parameters + " tree=bst order=balanced", () -> {
+			BSTree<Integer> tree = new BSTree<>();
+			tree.loadSorted(sortedList);
+			return tree;
+		}, probes);
+		measure(harness, parameters + " tree=array order=balanced", () -> {
+			ArrayBSTree<Integer> tree = new ArrayBSTree<>();
+			tree.loadSorted(sortedList);
+			return tree;
+		}, probes);
+
+		System.out.println();
+		report("BSTree", nodeBytes, elements);
+		report("ArrayBSTree", arrayBytes, elements);
+		System.out.printf("reduction: %.1fx%n", (double) nodeBytes / arrayBytes);
+
+	}
+
+	/**
+	 * Builds a tree, then times one lookup per operation, cycling through the probe keys so
+	 * every operation walks a different path from the root.
+	 * @return The heap taken by the tree.
+	 */
+	private static long measure(Harness harness, String parameters, Supplier<BSTreeADT<Integer>> builder,
+			Integer[] probes) throws Exception {
+
+		long before = WordMemoryBenchmark.usedHeap();
+		BSTreeADT<Integer> tree = builder.get();
+		long bytes = WordMemoryBenchmark.usedHeap() - before;
+
+		int[] next = new int[1];
+		harness.run("lookup", parameters + " height=" + tree.getHeight(),
+				() -> tree.contains(probes[next[0]++ & (PROBES - 1)]) ? 1 : 0);
+		return bytes;
+
+	}
+
+	/**
+	 * Prints the heap used by a tree.
+	 */
+	private static void report(String name, long bytes, int elements) {
+
+		System.out.printf("%-12s %8.1f MB  %6.1f bytes/element%n", name, bytes / 1e6, (double) bytes / elements);
+
+	}
+}
@@ -0,0 +1,412 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import app.IngestPipeline;
+import app.InputFile;
+import app.MappedRepository;
+import app.ParallelIngest;
+import app.RepositoryFormat;
+import app.TokenBatch;
+import app.Tokenizer;
+import app.WordCache;
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+/**
+ * Regression benchmarks for the trees, Word, the tokenizer, the repository format and the
+ * WordTracker pipeline, run by the Harness over every combination of corpus size, key
+ * distribution and report flag. All input comes from the CorpusGenerator, so runs are
+ * reproducible without any data files.
+ * Usage: java benchmarks.BenchmarkSuite [-size 10000,100000] [-dist random,sorted,zipf]
+ *        [-flag -pf,-pl,-po] [-wi warmups] [-i iterations] [name filter]
+ * For example "java benchmarks.BenchmarkSuite -size 1000000 tree.search" times only the
+ * tree searches on a corpus of a million words.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class BenchmarkSuite {
+
+	private static final long SEED = 42;
+	private static final int CORPUS_FILES = 8; // Files per corpus for the ingest benchmarks.
+	private static final int PIPELINE_DEPTH = 4; // Queue depth of the staged ingest benchmark.
+	private static final int[] BATCH_SIZES = { 4096, 65536 }; // Token batch chunk sizes for the ingest benchmarks.
+	private static final int MAX_DEGENERATE = 2000; // Largest sorted vocabulary timed on the plain BSTree.
+
+	/**
+	 * Parses the options and runs the selected benchmarks.
+	 * @param args The command line options.
+	 * @throws Exception if a benchmark fails.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		String sizes = "10000,100000";
+		String distributions = "random,sorted,zipf";
+		String flags = "-pf,-pl,-po";
+		int warmups = 2;
+		int iterations = 3;
+		String filter = null;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-size") && i + 1 < args.length) {
+				sizes = args[++i];
+			} else if (args[i].equals("-dist") && i + 1 < args.length) {
+				distributions = args[++i];
+			} else if (args[i].equals("-flag") && i + 1 < args.length) {
+				flags = args[++i];
+			} else if (args[i].equals("-wi") && i + 1 < args.length) {
+				warmups = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-i") && i + 1 < args.length) {
+				iterations = Integer.parseInt(args[++i]);
+			} else if (!args[i].startsWith("-") && filter == null) {
+				filter = args[i];
+			} else {
+				System.err.println("Use => java benchmarks.BenchmarkSuite [-size 10000,100000] [-dist random,sorted,zipf] [-flag -pf,-pl,-po] [-wi warmups] [-i iterations] [name filter]");
+				return;
+			}
+		}
+
+		Harness harness = new Harness(filter, warmups, iterations);
+		harness.printHeader();
+
+		for (String size : sizes.split(",")) {
+			for (String distribution : distributions.split(",")) {
+				new BenchmarkSuite(harness, Integer.parseInt(size.trim()),
+						CorpusGenerator.Distribution.valueOf(distribution.trim().toUpperCase())).run(flags.split(","));
+			}
+		}
+
+	}
+
+	private final Harness harness;
+	private final int size;
+	private final CorpusGenerator.Distribution distribution;
+	private final CorpusGenerator corpus;
+	private final String[] vocabulary;
+	private final int[] ids; // The corpus as a stream of word ids.
+	private final Word[] keys; // One Word per vocabulary entry, used as search keys.
+	private final FileTable fileTable = new FileTable(); // The table of the corpus files.
+
+	/**
+	 * Generates the corpus for one size and distribution.
+	 */
+	private BenchmarkSuite(Harness harness, int size, CorpusGenerator.Distribution distribution) {
+
+		this.harness = harness;
+		this.size = size;
+		this.distribution = distribution;
+		this.corpus = new CorpusGenerator(Math.max(16, size / 10), distribution, SEED);
+		this.vocabulary = corpus.vocabulary();
+		this.ids = corpus.wordIds(size);
+		this.keys = new Word[vocabulary.length];
+		for (int i = 0; i < keys.length; i++) keys[i] = new Word(vocabulary[i]);
+
+	}
+
+	/**
+	 * Runs every benchmark for this corpus.
+	 */
+	private void run(String[] flags) throws Exception {
+
+		String parameters = "size=" + size + " dist=" + distribution.name().toLowerCase();
+
+		treeBenchmarks(false, parameters + " tree=bst");
+		treeBenchmarks(true, parameters + " tree=avl");
+		wordBenchmarks(parameters);
+
+		BSTree<Word> tree = buildRepository();
+		File directory = Files.createTempDirectory("wordtracker-bench").toFile();
+
+		try {
+
+			File repository = new File(directory, "repository.wtr");
+			harness.run("repository.write", parameters, () -> {
+				RepositoryFormat.write(tree, repository);
+				return repository.length();
+			});
+			harness.run("repository.read", parameters, () -> RepositoryFormat.read(repository, false).size());
+
+			for (String flag : flags) {
+				String flagParameters = parameters + " flag=" + flag.trim();
+				harness.run("report.tree", flagParameters, () -> report(tree, flag.trim()));
+				harness.run("report.mapped", flagParameters, () -> {
+					try (MappedRepository mapped = new MappedRepository(repository)) {
+						CountingAppendable out = new CountingAppendable();
+						mapped.generateOutput(flag.trim(), out);
+						return out.count;
+					}
+				});
+			}
+
+			if (harness.selected("pipeline")) {
+				List<String> lines = corpus.lines(size);
+				harness.run("pipeline.tokenize", parameters, () -> tokenize(lines));
+
+				List<String> files = corpus.writeFiles(directory, CORPUS_FILES, size);
+				harness.run("pipeline.read", parameters + " reader=buffered", () -> readBuffered(files));
+				harness.run("pipeline.read", parameters + " reader=channel", () -> readChannel(files));
+				harness.run("pipeline.ingest", parameters + " threads=1 cache=0", () -> ingest(files, 1, 0, 0));
+				harness.run("pipeline.ingest", parameters + " threads=1 cache=" + WordCache.DEFAULT_CAPACITY,
+						() -> ingest(files, 1, WordCache.DEFAULT_CAPACITY, 0));
+				for (int batch : BATCH_SIZES) {
+					harness.run("pipeline.ingest", parameters + " threads=1 batch=" + batch, () -> ingest(files, 1, 0, batch));
+				}
+				harness.run("pipeline.ingest", parameters + " threads=1 staged", () -> ingest(files, 1, 0, 0, PIPELINE_DEPTH));
+				int threads = Runtime.getRuntime().availableProcessors();
+				if (threads > 1) harness.run("pipeline.ingest", parameters + " threads=" + threads + " cache=" + WordCache.DEFAULT_CAPACITY,
+						() -> ingest(files, threads, WordCache.DEFAULT_CAPACITY, 0));
+			}
+
+		}finally {
+			for (File file : directory.listFiles()) file.delete();
+			directory.delete();
+		}
+
+	}
+
+	/**
+	 * Times inserts, lookups and traversals on one kind of tree.
+	 */
+	private void treeBenchmarks(boolean balanced, String parameters) throws Exception {
+
+		int[] distinct = corpus.firstAppearances(ids);
+
+		if (!balanced && distribution == CorpusGenerator.Distribution.SORTED && distinct.length > MAX_DEGENERATE) {
+			harness.skip("tree.*", parameters, "sorted input degenerates the BSTree into a list");
+			return;
+		}
+
+		harness.run("tree.add", parameters, () -> {
+			BSTree<Word> tree = newTree(balanced);
+			for (int id : distinct) tree.add(keys[id]);
+			return tree.size();
+		});
+
+		harness.run("tree.computeIfAbsent", parameters, () -> {
+			BSTree<Word> tree = newTree(balanced);
+			for (int id : ids) tree.computeIfAbsent(keys[id], key -> new Word(key.getWord()));
+			return tree.size();
+		});
+
+		BSTree<Word> tree = newTree(balanced);
+		for (int id : distinct) tree.add(keys[id]);
+
+		harness.run("tree.search", parameters, () -> {
+			long found = 0;
+			for (int id : ids) if (tree.search(keys[id]) != null) found++;
+			return found;
+		});
+		harness.run("tree.inorderIterator", parameters, () -> traverse(tree.inorderIterator()));
+		harness.run("tree.preorderIterator", parameters, () -> traverse(tree.preorderIterator()));
+		harness.run("tree.postorderIterator", parameters, () -> traverse(tree.postorderIterator()));
+
+	}
+
+	/**
+	 * Times recording occurrences and reading the frequency.
+	 */
+	private void wordBenchmarks(String parameters) throws Exception {
+
+		int[] fileIds = fileIds();
+
+		harness.run("word.addOccurence", parameters, () -> {
+			Word[] words = new Word[vocabulary.length];
+			for (int i = 0; i < ids.length; i++) {
+				Word word = words[ids[i]];
+				if (word == null) word = words[ids[i]] = new Word(vocabulary[ids[i]], fileTable);
+				word.addOccurence(fileIds[i % fileIds.length], i / 10 + 1);
+			}
+			return words.length;
+		});
+
+		Word[] words = new Word[vocabulary.length];
+		for (int i = 0; i < words.length; i++) words[i] = new Word(vocabulary[i], fileTable);
+		for (int i = 0; i < ids.length; i++) words[ids[i]].addOccurence(fileIds[i % fileIds.length], i / 10 + 1);
+
+		harness.run("word.getTotalFrequency", parameters, () -> {
+			long total = 0;
+			for (Word word : words) total += word.getTotalFrequency();
+			return total;
+		});
+
+	}
+
+	/**
+	 * Builds a repository tree holding the whole corpus, spread over the corpus files.
+	 */
+	private BSTree<Word> buildRepository() {
+
+		int[] fileIds = fileIds();
+		BSTree<Word> tree = new AVLTree<>();
+		for (int i = 0; i < ids.length; i++) {
+			tree.computeIfAbsent(keys[ids[i]], key -> new Word(key.getWord(), fileTable)).addOccurence(fileIds[i % fileIds.length], i / 10 + 1);
+		}
+		return tree;
+
+	}
+
+	/**
+	 * Ids of the corpus files in the suite's table, as WordTracker looks them up once per file.
+	 */
+	private int[] fileIds() {
+
+		int[] fileIds = new int[CORPUS_FILES];
+		for (int f = 0; f < fileIds.length; f++) fileIds[f] = fileTable.id("corpus/corpus" + f + ".txt");
+		return fileIds;
+
+	}
+
+	/**
+	 * Creates an empty tree of the requested kind.
+	 */
+	private static BSTree<Word> newTree(boolean balanced) {
+
+		return balanced ? new AVLTree<>() : new BSTree<>();
+
+	}
+
+	/**
+	 * Walks an iterator to the end.
+	 */
+	private static long traverse(Iterator<Word> iterator) {
+
+		long count = 0;
+		while (iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		return count;
+
+	}
+
+	/**
+	 * Formats the report of a tree the way WordTracker does, discarding the text.
+	 */
+	private static long report(BSTree<Word> tree, String flag) throws IOException {
+
+		CountingAppendable out = new CountingAppendable();
+		Iterator<Word> iterator = tree.inorderIterator();
+		while (iterator.hasNext()) {
+			Word word = iterator.next();
+			if (flag.equals("-pf")) word.appendPFTo(out);
+			else if (flag.equals("-pl")) word.appendPLTo(out);
+			else word.appendPOTo(out);
+			out.append('\n');
+		}
+		return out.count;
+
+	}
+
+	/**
+	 * Splits lines into words with the Tokenizer.
+	 */
+	private static long tokenize(List<String> lines) {
+
+		long tokens = 0;
+		Tokenizer tokenizer = new Tokenizer();
+		for (String line : lines) {
+			tokenizer.reset(line);
+			while (tokenizer.next()) tokens++;
+		}
+		return tokens;
+
+	}
+
+	/**
+	 * Tokenizes the corpus files read line by line through a decoding BufferedReader.
+	 */
+	private static long readBuffered(List<String> files) throws IOException {
+
+		long tokens = 0;
+		Tokenizer tokenizer = new Tokenizer();
+		for (String file : files) {
+			try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+				String line;
+				while ((line = in.readLine()) != null) {
+					tokenizer.reset(line);
+					while (tokenizer.next()) tokens++;
+				}
+			}
+		}
+		return tokens;
+
+	}
+
+	/**
+	 * Tokenizes the corpus files scanned as bytes by InputFile.
+	 */
+	private static long readChannel(List<String> files) throws IOException {
+
+		long tokens = 0;
+		Tokenizer tokenizer = new Tokenizer();
+		for (String file : files) {
+			try (InputFile in = new InputFile(file, Charset.defaultCharset())) {
+				while (in.readLine(tokenizer)) {
+					while (tokenizer.next()) tokens++;
+				}
+			}
+		}
+		return tokens;
+
+	}
+
+	/**
+	 * Indexes the corpus files into a new repository tree.
+	 */
+	private static long ingest(List<String> files, int threads, int cacheCapacity, int batchCapacity) {
+
+		return ingest(files, threads, cacheCapacity, batchCapacity, 0);
+
+	}
+
+	/**
+	 * Indexes the corpus files into a new repository tree, through a staged pipeline unless the depth is 0.
+	 */
+	private static long ingest(List<String> files, int threads, int cacheCapacity, int batchCapacity, int depth) {
+
+		BSTree<Word> tree = new AVLTree<>();
+		if (!ParallelIngest.processInputFiles(new ArrayList<>(files), tree, new FileTable(), threads,
+				new WordCache(cacheCapacity), new TokenBatch(batchCapacity),
+				new IngestPipeline(depth, IngestPipeline.DEFAULT_BLOCK), null)) {
+			throw new IllegalStateException("Ingest failed.");
+		}
+		return tree.size();
+
+	}
+
+	/**
+	 * An Appendable that only counts the characters it is given.
+	 */
+	private static class CountingAppendable implements Appendable {
+
+		private long count;
+
+		@Override
+		public Appendable append(CharSequence csq) {
+			count += csq.length();
+			return this;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) {
+			count += end - start;
+			return this;
+		}
+
+		@Override
+		public Appendable append(char c) {
+			count++;
+			return this;
+		}
+	}
+}
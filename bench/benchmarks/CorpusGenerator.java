@@ -0,0 +1,219 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Generates reproducible synthetic corpora for the benchmarks, so results can be compared
+ * offline and between machines. The same seed always gives the same words in the same order.
+ * A corpus is a stream of word ids drawn from a sorted vocabulary of pseudo-words, in one of
+ * three key distributions:
+ * <ul>
+ * <li>RANDOM: every word equally likely, in random order;</li>
+ * <li>SORTED: words in ascending order, the worst case for an unbalanced tree;</li>
+ * <li>ZIPF: word frequencies following Zipf's law like natural-language text,
+ * with the frequent words spread over the alphabet.</li>
+ * </ul>
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class CorpusGenerator {
+
+	/**
+	 * The order and frequency in which words are drawn.
+	 */
+	public enum Distribution { RANDOM, SORTED, ZIPF }
+
+	private static final String[] SYLLABLES = { "ka", "to", "ri", "ne", "lo", "sa", "mi", "du", "pe", "ban", "cor",
+			"fel", "gim", "hut", "jas", "qu", "vex", "wy", "zo", "th", "str", "ing", "ed", "er" };
+	private static final String[] SEPARATORS = { " ", " ", " ", ", ", ". ", "; ", " - ", "! " };
+
+	private final String[] vocabulary; // Distinct lowercase words, in ascending order.
+	private final Distribution distribution;
+	private final long seed;
+
+	/**
+	 * Creates a generator.
+	 * @param vocabularySize The number of distinct words.
+	 * @param distribution The key distribution.
+	 * @param seed The random seed.
+	 */
+	public CorpusGenerator(int vocabularySize, Distribution distribution, long seed) {
+
+		this.vocabulary = vocabulary(vocabularySize, seed);
+		this.distribution = distribution;
+		this.seed = seed;
+
+	}
+
+	/**
+	 * Returns the distinct words, in ascending order.
+	 * @return The vocabulary; not to be modified.
+	 */
+	public String[] vocabulary() {
+
+		return vocabulary;
+
+	}
+
+	/**
+	 * Draws a stream of word ids (indexes into the vocabulary).
+	 * @param count The number of words in the stream.
+	 * @return The word ids.
+	 */
+	public int[] wordIds(int count) {
+
+		int[] ids = new int[count];
+		Random random = new Random(seed + 1);
+
+		switch (distribution) {
+			case RANDOM:
+				for (int i = 0; i < count; i++) ids[i] = random.nextInt(vocabulary.length);
+				break;
+			case SORTED:
+				// Every word appears, each about count / vocabulary times, in ascending order.
+				for (int i = 0; i < count; i++) ids[i] = (int) ((long) i * vocabulary.length / count);
+				break;
+			case ZIPF:
+				// Ranks are mapped through a permutation so the frequent words are not all near "a".
+				int[] permutation = permutation(vocabulary.length, random);
+				ZipfGenerator zipf = new ZipfGenerator(vocabulary.length, 1.0, seed + 2);
+				for (int i = 0; i < count; i++) ids[i] = permutation[zipf.next()];
+				break;
+		}
+
+		return ids;
+
+	}
+
+	/**
+	 * Returns the distinct word ids of a stream in the order they first appear.
+	 * @param ids A stream of word ids.
+	 * @return Each id once.
+	 */
+	public int[] firstAppearances(int[] ids) {
+
+		boolean[] seen = new boolean[vocabulary.length];
+		int[] distinct = new int[vocabulary.length];
+		int count = 0;
+		for (int id : ids) {
+			if (!seen[id]) {
+				seen[id] = true;
+				distinct[count++] = id;
+			}
+		}
+		return Arrays.copyOf(distinct, count);
+
+	}
+
+	/**
+	 * Generates lines of text containing the given number of words, with mixed case,
+	 * punctuation and line lengths like ordinary prose.
+	 * @param wordCount The number of words.
+	 * @return The lines, without line terminators.
+	 */
+	public List<String> lines(int wordCount) {
+
+		int[] ids = wordIds(wordCount);
+		Random random = new Random(seed + 3);
+		List<String> lines = new ArrayList<>();
+		StringBuilder sb = new StringBuilder();
+		int lineLength = 4 + random.nextInt(12);
+
+		for (int i = 0; i < ids.length; i++) {
+
+			String word = vocabulary[ids[i]];
+			if (sb.length() == 0 && !word.isEmpty()) {
+				sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+			} else {
+				sb.append(word);
+			}
+
+			if (--lineLength == 0 || i == ids.length - 1) {
+				sb.append('.');
+				lines.add(sb.toString());
+				sb.setLength(0);
+				lineLength = 4 + random.nextInt(12);
+			} else {
+				sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+			}
+
+		}
+
+		return lines;
+
+	}
+
+	/**
+	 * Writes a corpus split over several text files.
+	 * @param directory The directory to write to; it must exist.
+	 * @param files The number of files.
+	 * @param wordCount The total number of words.
+	 * @return The paths of the files written.
+	 * @throws IOException if a file cannot be written.
+	 */
+	public List<String> writeFiles(File directory, int files, int wordCount) throws IOException {
+
+		List<String> lines = lines(wordCount);
+		List<String> paths = new ArrayList<>(files);
+		int perFile = (lines.size() + files - 1) / files;
+
+		for (int f = 0; f < files; f++) {
+			File file = new File(directory, "corpus" + f + ".txt");
+			try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+				for (String line : lines.subList(Math.min(f * perFile, lines.size()), Math.min((f + 1) * perFile, lines.size()))) {
+					out.write(line);
+					out.newLine();
+				}
+			}
+			paths.add(file.getPath());
+		}
+
+		return paths;
+
+	}
+
+	/**
+	 * Builds a sorted vocabulary of distinct pseudo-words made of two to four syllables.
+	 */
+	private static String[] vocabulary(int size, long seed) {
+
+		Random random = new Random(seed);
+		TreeSet<String> words = new TreeSet<>();
+		StringBuilder sb = new StringBuilder();
+
+		while (words.size() < size) {
+			sb.setLength(0);
+			int syllables = 2 + random.nextInt(3);
+			for (int s = 0; s < syllables; s++) sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+			// A numeric suffix keeps large vocabularies from running out of combinations.
+			if (words.size() > size / 2) sb.append(random.nextInt(size));
+			words.add(sb.toString());
+		}
+
+		return words.toArray(new String[0]);
+
+	}
+
+	/**
+	 * Returns a random permutation of 0..n-1.
+	 */
+	private static int[] permutation(int n, Random random) {
+
+		List<Integer> list = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) list.add(i);
+		Collections.shuffle(list, random);
+		int[] permutation = new int[n];
+		for (int i = 0; i < n; i++) permutation[i] = list.get(i);
+		return permutation;
+
+	}
+}
@@ -0,0 +1,151 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A small benchmark runner in the style of JMH's average-time mode, so the suite runs with nothing
+ * but a JDK. Each benchmark is run for a number of warmup iterations whose results are discarded,
+ * then for the measured iterations. An iteration repeats the operation until at least
+ * MIN_ITERATION_NANOS have passed and records the average time per operation. The score is the
+ * mean over the measured iterations and the error is their standard deviation.
+ * Results go to standard output as a table, one row per benchmark and parameter combination.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class Harness {
+
+	private static final long MIN_ITERATION_NANOS = 200000000L; // 200 ms.
+
+	/**
+	 * One benchmarked operation.
+	 */
+	public interface Benchmark {
+
+		/**
+		 * Runs the operation once.
+		 * @return A value computed from the results, consumed so the work cannot be optimised away.
+		 * @throws Exception if the operation fails, which aborts the suite.
+		 */
+		long run() throws Exception;
+	}
+
+	private static volatile long sink; // Receives every result; see consume.
+
+	private final String filter;
+	private final int warmups;
+	private final int iterations;
+
+	/**
+	 * Creates a runner.
+	 * @param filter Only benchmarks whose name contains this text are run; null runs all of them.
+	 * @param warmups The number of warmup iterations.
+	 * @param iterations The number of measured iterations.
+	 */
+	public Harness(String filter, int warmups, int iterations) {
+
+		this.filter = filter;
+		this.warmups = warmups;
+		this.iterations = iterations;
+
+	}
+
+	/**
+	 * Prints the table header.
+	 */
+	public void printHeader() {
+
+		System.out.printf("%-28s %-32s %5s %12s %10s  %s%n", "Benchmark", "Parameters", "Cnt", "Score", "Error", "Units");
+
+	}
+
+	/**
+	 * Tells whether a benchmark is selected by the filter, so callers can skip an expensive setup.
+	 * @param name The benchmark name.
+	 * @return true if the benchmark will be run.
+	 */
+	public boolean selected(String name) {
+
+		return filter == null || name.contains(filter);
+
+	}
+
+	/**
+	 * Runs and reports one benchmark, if the filter selects it.
+	 * @param name The benchmark name, e.g. "tree.add".
+	 * @param parameters The parameter values, e.g. "size=10000 dist=zipf".
+	 * @param benchmark The operation to time.
+	 * @throws Exception if the operation fails.
+	 */
+	public void run(String name, String parameters, Benchmark benchmark) throws Exception {
+
+		if (!selected(name)) return;
+
+		for (int i = 0; i < warmups; i++) iteration(benchmark);
+
+		double[] scores = new double[iterations];
+		for (int i = 0; i < iterations; i++) scores[i] = iteration(benchmark);
+
+		double mean = Arrays.stream(scores).average().orElse(0);
+		double variance = 0;
+		for (double score : scores) variance += (score - mean) * (score - mean);
+		double error = (iterations > 1) ? Math.sqrt(variance / (iterations - 1)) : 0;
+
+		// Pick the unit that keeps the score readable.
+		String unit = "ns/op";
+		double scale = 1;
+		if (mean >= 1e6) {
+			unit = "ms/op";
+			scale = 1e6;
+		} else if (mean >= 1e3) {
+			unit = "us/op";
+			scale = 1e3;
+		}
+
+		System.out.printf(Locale.ROOT, "%-28s %-32s %5d %12.3f %10.3f  %s%n", name, parameters, iterations, mean / scale, error / scale, unit);
+
+	}
+
+	/**
+	 * Prints a row for a parameter combination that is not run, with the reason.
+	 * @param name The benchmark name.
+	 * @param parameters The parameter values.
+	 * @param reason Why it is skipped.
+	 */
+	public void skip(String name, String parameters, String reason) {
+
+		if (selected(name)) System.out.printf("%-28s %-32s  (skipped: %s)%n", name, parameters, reason);
+
+	}
+
+	/**
+	 * Runs the operation for one iteration.
+	 * @return The average nanoseconds per operation.
+	 */
+	private static double iteration(Benchmark benchmark) throws Exception {
+
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+
+		do {
+			consume(benchmark.run());
+			operations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MIN_ITERATION_NANOS);
+
+		return (double) elapsed / operations;
+
+	}
+
+	/**
+	 * Consumes a result like JMH's Blackhole: the volatile write keeps the JIT from
+	 * treating the computation as dead code.
+	 * @param value The value to consume.
+	 */
+	public static void consume(long value) {
+
+		sink ^= value;
+
+	}
+}
@@ -0,0 +1,147 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import app.Tokenizer;
+
+/**
+ * Compares the throughput of the Tokenizer against the original regex based
+ * clean-and-split path used by WordTracker.processInputFile.
+ * Usage: java benchmarks.TokenizerBenchmark [input.txt]
+ * Without an input file a synthetic text of about 27 MB is generated.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class TokenizerBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	/**
+	 * Runs both tokenizing paths over the same lines and prints MB/s for each.
+	 * @param args Optional path of a large text file.
+	 * @throws IOException if the input file cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		List<String> lines = (args.length > 0) ? readLines(args[0]) : generateLines(400000, 42);
+		long chars = 0;
+		for (String line : lines) chars += line.length() + 1;
+
+		System.out.printf("%d lines, %.1f MB of text%n", lines.size(), chars / 1e6);
+
+		// Both paths must agree before their speed is worth comparing.
+		long regexTokens = regexPath(lines);
+		long tokenizerTokens = tokenizerPath(lines);
+		if (regexTokens != tokenizerTokens) {
+			throw new IllegalStateException("Token checksums differ: " + regexTokens + " vs " + tokenizerTokens);
+		}
+
+		for (int round = 1; round <= ROUNDS; round++) {
+
+			long start = System.nanoTime();
+			regexPath(lines);
+			long regexNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			tokenizerPath(lines);
+			long tokenizerNanos = System.nanoTime() - start;
+
+			System.out.printf("round %d: regex %.1f MB/s, tokenizer %.1f MB/s (%.1fx)%n", round,
+					chars * 1e3 / regexNanos, chars * 1e3 / tokenizerNanos, (double) regexNanos / tokenizerNanos);
+
+		}
+
+	}
+
+	/**
+	 * The original WordTracker preprocessing: regex clean, lower-case, split.
+	 * @param lines The input lines.
+	 * @return A checksum over the tokens, so the work cannot be optimised away.
+	 */
+	static long regexPath(List<String> lines) {
+
+		long checksum = 0;
+		for (String line : lines) {
+			line = line.replaceAll("[^a-zA-Z0-9 ]", " ").toLowerCase();
+			for (String w : line.split("\\s+")) {
+				if (w.trim().isEmpty()) continue;
+				checksum = checksum * 31 + hash(w);
+			}
+		}
+		return checksum;
+
+	}
+
+	/**
+	 * The single-pass Tokenizer path.
+	 * @param lines The input lines.
+	 * @return A checksum over the tokens, matching regexPath for identical output.
+	 */
+	static long tokenizerPath(List<String> lines) {
+
+		long checksum = 0;
+		Tokenizer tokenizer = new Tokenizer();
+		for (String line : lines) {
+			tokenizer.reset(line);
+			while (tokenizer.next()) {
+				checksum = checksum * 31 + hash(tokenizer.token());
+			}
+		}
+		return checksum;
+
+	}
+
+	/**
+	 * Content hash of a token, identical for a String and a Tokenizer view.
+	 */
+	private static int hash(CharSequence token) {
+
+		int h = 0;
+		for (int i = 0; i < token.length(); i++) h = 31 * h + token.charAt(i);
+		return h;
+
+	}
+
+	/**
+	 * Reads every line of a text file into memory so that I/O is not measured.
+	 */
+	static List<String> readLines(String fileName) throws IOException {
+
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+			String line;
+			while ((line = br.readLine()) != null) lines.add(line);
+		}
+		return lines;
+
+	}
+
+	/**
+	 * Generates lines of mixed-case words with punctuation and digits.
+	 */
+	static List<String> generateLines(int count, long seed) {
+
+		String[] vocabulary = { "The", "quick", "brown", "fox", "jumps", "over", "the", "lazy", "dog", "Hello",
+				"kitty", "it's", "nice", "to", "meet", "you", "2024", "e-mail", "O'Neil", "caf\u00e9", "a", "and", "of" };
+		String[] separators = { " ", " ", " ", ", ", ". ", "; ", " - ", "!  ", "\t" };
+		Random random = new Random(seed);
+		List<String> lines = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			StringBuilder sb = new StringBuilder();
+			int words = 5 + random.nextInt(15);
+			for (int w = 0; w < words; w++) {
+				sb.append(vocabulary[random.nextInt(vocabulary.length)]);
+				sb.append(separators[random.nextInt(separators.length)]);
+			}
+			lines.add(sb.toString());
+		}
+		return lines;
+
+	}
+}
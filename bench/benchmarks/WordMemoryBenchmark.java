@@ -0,0 +1,121 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import implementations.FileTable;
+import implementations.Word;
+
+/**
+ * Measures the heap used per recorded occurrence by Word, compared with the original
+ * HashMap&lt;String, List&lt;Integer&gt;&gt; layout it replaced.
+ * Usage: java benchmarks.WordMemoryBenchmark [words] [occurrences]
+ * Word frequencies follow a Zipf distribution over 20 files, like natural-language text.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class WordMemoryBenchmark {
+
+	/**
+	 * Builds the same occurrences in both layouts and prints bytes per occurrence.
+	 * @param args Optional number of distinct words and of occurrences.
+	 */
+	public static void main(String[] args) {
+
+		int wordCount = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		int occurrences = (args.length > 1) ? Integer.parseInt(args[1]) : 5000000;
+
+		String[] fileNames = new String[20];
+		for (int i = 0; i < fileNames.length; i++) fileNames[i] = "corpus/file" + i + ".txt";
+
+		int[] wordIds = new int[occurrences];
+		int[] fileIds = new int[occurrences];
+		ZipfGenerator zipf = new ZipfGenerator(wordCount, 1.0, 7);
+		Random random = new Random(11);
+		for (int i = 0; i < occurrences; i++) {
+			wordIds[i] = zipf.next();
+			fileIds[i] = random.nextInt(fileNames.length);
+		}
+
+		System.out.printf("%d words, %d occurrences%n", wordCount, occurrences);
+
+		long before = usedHeap();
+		Object legacy = buildLegacy(wordCount, wordIds, fileIds, fileNames);
+		long legacyBytes = usedHeap() - before;
+		report("HashMap<String, List<Integer>>", legacyBytes, occurrences);
+		legacy = null;
+
+		before = usedHeap();
+		Object words = buildWords(wordCount, wordIds, fileIds, fileNames);
+		long wordBytes = usedHeap() - before;
+		report("Word (int[] per file)", wordBytes, occurrences);
+
+		System.out.printf("reduction: %.1fx%n", (double) legacyBytes / wordBytes);
+		if (legacy != null || words == null) throw new IllegalStateException(); // Keeps the structures reachable until measured.
+
+	}
+
+	/**
+	 * Builds the occurrences with the original boxed layout.
+	 */
+	static Object buildLegacy(int wordCount, int[] wordIds, int[] fileIds, String[] fileNames) {
+
+		// The word strings are kept too, so both layouts hold the same data.
+		String[] names = new String[wordCount];
+		List<Map<String, List<Integer>>> maps = new ArrayList<>(wordCount);
+		for (int i = 0; i < wordCount; i++) {
+			names[i] = "w" + i;
+			maps.add(new HashMap<>());
+		}
+		for (int i = 0; i < wordIds.length; i++) {
+			maps.get(wordIds[i]).computeIfAbsent(fileNames[fileIds[i]], k -> new ArrayList<>()).add(i / 8 + 1);
+		}
+		return new Object[] { names, maps };
+
+	}
+
+	/**
+	 * Builds the occurrences in Word objects.
+	 */
+	static Object buildWords(int wordCount, int[] wordIds, int[] fileIds, String[] fileNames) {
+
+		FileTable fileTable = new FileTable(); // Shared by every word, as in a repository.
+		Word[] words = new Word[wordCount];
+		for (int i = 0; i < wordCount; i++) words[i] = new Word("w" + i, fileTable);
+		for (int i = 0; i < wordIds.length; i++) {
+			words[wordIds[i]].addOccurence(fileNames[fileIds[i]], i / 8 + 1);
+		}
+		return words;
+
+	}
+
+	/**
+	 * Prints the heap used by a structure.
+	 */
+	private static void report(String name, long bytes, int occurrences) {
+
+		System.out.printf("%-32s %8.1f MB  %6.1f bytes/occurrence%n", name, bytes / 1e6, (double) bytes / occurrences);
+
+	}
+
+	/**
+	 * Returns the heap in use after a few garbage collections.
+	 */
+	static long usedHeap() {
+
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			}catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+
+	}
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks 0..n-1 following a Zipf distribution, where rank k has probability
+ * proportional to 1 / (k + 1)^s. Natural-language word frequencies roughly follow s = 1.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class ZipfGenerator {
+
+	private final double[] cumulative; // cumulative[k] is the probability of a rank <= k.
+	private final Random random;
+
+	/**
+	 * Precomputes the cumulative distribution.
+	 * @param n The number of ranks.
+	 * @param exponent The Zipf exponent s.
+	 * @param seed The random seed, so runs are reproducible.
+	 */
+	public ZipfGenerator(int n, double exponent, long seed) {
+
+		cumulative = new double[n];
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			sum += 1.0 / Math.pow(k + 1, exponent);
+			cumulative[k] = sum;
+		}
+		for (int k = 0; k < n; k++) cumulative[k] /= sum;
+		random = new Random(seed);
+
+	}
+
+	/**
+	 * Draws the next rank.
+	 * @return A rank from 0 (most frequent) to n-1.
+	 */
+	public int next() {
+
+		int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min((index >= 0) ? index : -index - 1, cumulative.length - 1);
+
+	}
+}
@@ -0,0 +1,210 @@
+package app;
+
+import java.io.*;
+import java.util.zip.CRC32;
+
+/**
+ * What the repository remembers about an indexed input file: its size, modification time and
+ * a CRC-32 of its content. A file whose size and modification time are unchanged is taken to be
+ * unchanged without reading it, and one whose size changed is indexed again without reading it
+ * first; the checksum is then computed while it is indexed. Only when the size is unchanged but the
+ * modification time is not does the checksum decide, so a file that was only touched is not
+ * indexed again.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public final class FileInfo {
+
+	private final long size;
+	private final long lastModified;
+	private final long checksum;
+
+	/**
+	 * Creates the record of an indexed file.
+	 * @param size The length of the file in bytes.
+	 * @param lastModified The modification time, in milliseconds since the epoch.
+	 * @param checksum The CRC-32 of the file content.
+	 */
+	public FileInfo(long size, long lastModified, long checksum) {
+
+		this.size = size;
+		this.lastModified = lastModified;
+		this.checksum = checksum;
+
+	}
+
+	/**
+	 * Records the current state of a file, reading it once to compute the checksum.
+	 * @param file The file.
+	 * @return Its size, modification time and checksum.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static FileInfo read(File file) throws IOException {
+
+		// Taken before reading, so a change made while the file is read shows up next time.
+		long lastModified = file.lastModified();
+		CRC32 crc = new CRC32();
+		long size = 0;
+		byte[] buffer = new byte[1 << 16];
+
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				crc.update(buffer, 0, read);
+				size += read;
+			}
+		}
+
+		return new FileInfo(size, lastModified, crc.getValue());
+
+	}
+
+	/**
+	 * Computes the CRC-32 of two runs of bytes one after the other from the CRC-32 of each, as when
+	 * the parts of a file are read by different threads. This is zlib's crc32_combine: the first
+	 * checksum is advanced over as many zero bytes as the second run holds, by repeatedly squaring
+	 * the matrix of the CRC's shift register over GF(2), then the second checksum is added.
+	 * @param first The CRC-32 of the first run.
+	 * @param second The CRC-32 of the second run.
+	 * @param length The length of the second run in bytes.
+	 * @return The CRC-32 of both runs together.
+	 */
+	static long combineChecksums(long first, long second, long length) {
+
+		if (length <= 0) return first;
+
+		long[] even = new long[32]; // The operator for an even number of zero bits.
+		long[] odd = new long[32]; // The operator for an odd number.
+		odd[0] = 0xEDB88320L; // The CRC-32 polynomial, reflected.
+		for (int n = 1; n < 32; n++) odd[n] = 1L << (n - 1);
+		square(even, odd); // Two zero bits.
+		square(odd, even); // Four zero bits.
+
+		long crc = first;
+		do {
+			square(even, odd); // The first pass gives one zero byte.
+			if ((length & 1) != 0) crc = times(even, crc);
+			length >>= 1;
+			if (length == 0) break;
+			square(odd, even);
+			if ((length & 1) != 0) crc = times(odd, crc);
+			length >>= 1;
+		} while (length != 0);
+
+		return crc ^ second;
+
+	}
+
+	/**
+	 * Multiplies a 32 x 32 matrix over GF(2), one column per entry, by a vector.
+	 */
+	private static long times(long[] matrix, long vector) {
+
+		long sum = 0;
+		for (int i = 0; vector != 0; i++, vector >>>= 1) {
+			if ((vector & 1) != 0) sum ^= matrix[i];
+		}
+		return sum;
+
+	}
+
+	/**
+	 * Squares a 32 x 32 matrix over GF(2).
+	 */
+	private static void square(long[] square, long[] matrix) {
+
+		for (int n = 0; n < 32; n++) square[n] = times(matrix, matrix[n]);
+
+	}
+
+	/**
+	 * Tells whether a file still has the recorded size and modification time, without reading it.
+	 * @param file The file.
+	 * @return true if the file is taken to be unchanged.
+	 */
+	public boolean isCurrent(File file) {
+
+		return file.length() == size && file.lastModified() == lastModified;
+
+	}
+
+	/**
+	 * Tells whether another record describes the same content, whatever its modification time.
+	 * @param other The other record.
+	 * @return true if both have the same size and checksum.
+	 */
+	public boolean sameContent(FileInfo other) {
+
+		return size == other.size && checksum == other.checksum;
+
+	}
+
+	/**
+	 * Retrieves the length of the file.
+	 * @return The size in bytes.
+	 */
+	public long getSize() {
+
+		return size;
+
+	}
+
+	/**
+	 * Retrieves the modification time of the file.
+	 * @return The time in milliseconds since the epoch.
+	 */
+	public long getLastModified() {
+
+		return lastModified;
+
+	}
+
+	/**
+	 * Retrieves the checksum of the file content.
+	 * @return The CRC-32.
+	 */
+	public long getChecksum() {
+
+		return checksum;
+
+	}
+
+	/**
+	 * Writes the record (without the file name).
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	void writeTo(DataOutput out) throws IOException {
+
+		out.writeLong(size);
+		out.writeLong(lastModified);
+		out.writeLong(checksum);
+
+	}
+
+	/**
+	 * Reads a record written by writeTo.
+	 * @param in The stream to read from.
+	 * @return The record, or null if the file was stored without one.
+	 * @throws IOException if the stream cannot be read.
+	 */
+	static FileInfo readFrom(DataInput in) throws IOException {
+
+		long size = in.readLong();
+		long lastModified = in.readLong();
+		long checksum = in.readLong();
+		return (size < 0) ? null : new FileInfo(size, lastModified, checksum);
+
+	}
+
+	/**
+	 * Writes the placeholder for a file that has no record.
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	static void writeNone(DataOutput out) throws IOException {
+
+		new FileInfo(-1, 0, 0).writeTo(out);
+
+	}
+}
@@ -0,0 +1,445 @@
+package app;
+
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Indexes input files in three stages running on their own threads, so reading, tokenizing and
+ * updating the tree overlap instead of waiting on each other:
+ *
+ * the reader copies whole lines from the files into blocks of bytes; the tokenizer splits each
+ * block into tokens and collects them in TokenBatches, grouped by word and sorted; the indexer, on
+ * the calling thread, applies each batch to the tree.
+ *
+ * The stages hand blocks and batches on through bounded queues and get them back through pools of
+ * a fixed size, so nothing is allocated once the pipeline runs, and a stage that gets ahead simply
+ * waits for a free block or batch: a slow indexer holds back the tokenizer and the reader instead of
+ * letting read data pile up in memory. Each stage measures how long it works and how long it waits,
+ * and each queue how full it gets, so the slowest stage shows as the one that never waits.
+ *
+ * A pipeline is a set of settings plus the measurements of all runs; each run, e.g. by one worker
+ * of ParallelIngest, uses its own pipeline with the same settings and adds its measurements to the
+ * shared one at the end.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class IngestPipeline {
+
+	public static final int DEFAULT_BLOCK = 1 << 18; // Bytes of lines per block.
+	public static final int DEFAULT_BATCH = 1 << 14; // Tokens per batch, unless -batch gives another size.
+
+	private static final LineBlock END_OF_LINES = new LineBlock(0); // Sent by the reader after the last block.
+
+	private final int depth; // Blocks (and batches) in flight between two stages, 0 when disabled.
+	private final int blockSize;
+	private final Stage read = new Stage("read", "MB");
+	private final Stage tokenize = new Stage("tokenize", "tokens");
+	private final Stage index = new Stage("index", "tokens");
+
+	/**
+	 * Creates the settings of a pipeline.
+	 * @param depth The number of blocks, and of batches, that can wait between two stages; 0 disables
+	 * the pipeline, so files are indexed on one thread.
+	 * @param blockSize The number of bytes of lines the reader hands over at a time.
+	 * @throws IllegalArgumentException if the depth is negative or the block size is not positive.
+	 */
+	public IngestPipeline(int depth, int blockSize) {
+
+		if (depth < 0) throw new IllegalArgumentException("Illegal depth: " + depth);
+		if (blockSize <= 0) throw new IllegalArgumentException("Illegal block size: " + blockSize);
+
+		this.depth = depth;
+		this.blockSize = blockSize;
+
+	}
+
+	/**
+	 * Tells whether files should be indexed through a pipeline.
+	 * @return true unless the depth is 0.
+	 */
+	public boolean isEnabled() {
+
+		return depth > 0;
+
+	}
+
+	/**
+	 * Creates an empty pipeline with the same settings, for one run.
+	 * @return The new pipeline.
+	 */
+	public IngestPipeline copy() {
+
+		return new IngestPipeline(depth, blockSize);
+
+	}
+
+	/**
+	 * Indexes parts of input files into a tree through the three stages.
+	 * @param segments The file parts to index, in order.
+	 * @param tree The BST to update.
+	 * @param fileTable The table of the file ids recorded in the tree.
+	 * @param batchCapacity The number of tokens per batch, or 0 for DEFAULT_BATCH.
+	 * @return true if all parts were processed successfully, false otherwise.
+	 */
+	boolean process(List<ParallelIngest.Segment> segments, BSTree<Word> tree, FileTable fileTable, int batchCapacity) {
+
+		// Each pool holds everything that can be in flight, so a queue is never full when a stage puts.
+		BlockingQueue<LineBlock> freeBlocks = new ArrayBlockingQueue<>(depth + 1);
+		BlockingQueue<LineBlock> blocks = new ArrayBlockingQueue<>(depth + 2);
+		BlockingQueue<Chunk> freeChunks = new ArrayBlockingQueue<>(depth + 1);
+		BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(depth + 2);
+		for (int i = 0; i <= depth; i++) {
+			freeBlocks.add(new LineBlock(blockSize));
+			freeChunks.add(new Chunk(new TokenBatch((batchCapacity > 0) ? batchCapacity : DEFAULT_BATCH)));
+		}
+
+		ExecutorService stages = Executors.newFixedThreadPool(2);
+
+		try {
+
+			Future<Boolean> reader = stages.submit(() -> readLines(segments, fileTable, freeBlocks, blocks));
+			Future<Boolean> tokenizer = stages.submit(() -> tokenizeLines(blocks, freeBlocks, freeChunks, chunks));
+
+			// The indexer: apply every batch to the tree, in order, until the tokenizer's last chunk.
+			while (true) {
+				long waitStart = System.nanoTime();
+				Chunk chunk = chunks.take();
+				long workStart = System.nanoTime();
+				index.idleNanos += workStart - waitStart;
+				if (chunk.batch == null) break;
+
+				index.items++;
+				index.units += chunk.batch.size();
+				chunk.batch.flush(tree, fileTable, chunk.fileId);
+				freeChunks.put(chunk);
+				index.busyNanos += System.nanoTime() - workStart;
+			}
+
+			// The tokenizer first: if it failed, the reader may be waiting for a block that never comes back.
+			boolean tokenized = tokenizer.get();
+			return reader.get() && tokenized;
+
+		}catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.err.println("File processing was interrupted.");
+			return false;
+		}catch (ExecutionException e) {
+			System.err.println("An unexpected error occurred during file processing.");
+			e.getCause().printStackTrace();
+			return false;
+		}finally {
+			stages.shutdownNow(); // Stops the other stages if the indexer failed.
+		}
+
+	}
+
+	/**
+	 * The reader stage: copies the lines of each file part into blocks, each line followed by '\n'.
+	 * Always sends END_OF_LINES last, so the stages after it stop even if a file fails.
+	 * @param segments The file parts to read, in order.
+	 * @param fileTable The table to look the file ids up in.
+	 * @param freeBlocks The pool of empty blocks.
+	 * @param blocks The queue to the tokenizer.
+	 * @return true if every part was read.
+	 * @throws InterruptedException if the pipeline is stopped.
+	 */
+	private boolean readLines(List<ParallelIngest.Segment> segments, FileTable fileTable,
+			BlockingQueue<LineBlock> freeBlocks, BlockingQueue<LineBlock> blocks) throws InterruptedException {
+
+		boolean success = true;
+
+		try {
+
+			for (ParallelIngest.Segment segment : segments) {
+				success &= readSegment(segment, fileTable, freeBlocks, blocks);
+				if (!success) break;
+			}
+
+		}finally {
+			blocks.put(END_OF_LINES);
+		}
+
+		return success;
+
+	}
+
+	/**
+	 * Reads one file part into blocks.
+	 * @param segment The file part.
+	 * @param fileTable The table to look the file id up in.
+	 * @param freeBlocks The pool of empty blocks.
+	 * @param blocks The queue to the tokenizer.
+	 * @return true if the part was read, false if the file is missing or cannot be read.
+	 * @throws InterruptedException if the pipeline is stopped.
+	 */
+	private boolean readSegment(ParallelIngest.Segment segment, FileTable fileTable,
+			BlockingQueue<LineBlock> freeBlocks, BlockingQueue<LineBlock> blocks) throws InterruptedException {
+
+		String fileName = segment.fileName;
+
+		try (InputFile input = new InputFile(fileName, Charset.defaultCharset(), segment.start, segment.end)) {
+
+			int fileId = fileTable.id(fileName);
+			int lineNumber = segment.firstLine;
+			boolean more = true;
+
+			while (more) {
+
+				long waitStart = System.nanoTime();
+				LineBlock block = freeBlocks.take();
+				long workStart = System.nanoTime();
+				read.idleNanos += workStart - waitStart;
+
+				block.fileId = fileId;
+				block.firstLine = lineNumber;
+				block.length = 0;
+				while (true) {
+					int next = input.copyLine(block.bytes, block.length);
+					if (next < 0) {
+						more = false;
+						break;
+					}
+					if (next == block.length) {
+						if (next > 0) break; // The block is full.
+						block.bytes = new byte[block.bytes.length * 2]; // A line longer than a whole block.
+						continue;
+					}
+					block.length = next;
+					lineNumber++;
+				}
+
+				read.items++;
+				read.units += block.length;
+				read.busyNanos += System.nanoTime() - workStart;
+				if (block.length == 0) {
+					freeBlocks.put(block);
+				} else {
+					blocks.put(block);
+					read.sampleQueue(blocks.size());
+				}
+
+			}
+
+			segment.recordRead(input);
+			return true;
+
+		}catch (FileNotFoundException e) {
+			System.err.println("Error: Input file '" + fileName + "' not found. No words were processed.");
+			return false;
+		}catch (IOException e) {
+			System.err.println("Error reading file: " + fileName);
+			e.printStackTrace();
+			return false;
+		}
+
+	}
+
+	/**
+	 * The tokenizer stage: splits the blocks into lines and tokens and collects the tokens into batches,
+	 * one file at a time, sorting each full batch before handing it to the indexer. Always sends an
+	 * empty chunk last, so the indexer stops even if this stage fails.
+	 * @param blocks The queue from the reader.
+	 * @param freeBlocks The pool to return tokenized blocks to.
+	 * @param freeChunks The pool of empty batches.
+	 * @param chunks The queue to the indexer.
+	 * @return true if every block was tokenized.
+	 * @throws InterruptedException if the pipeline is stopped.
+	 */
+	private boolean tokenizeLines(BlockingQueue<LineBlock> blocks, BlockingQueue<LineBlock> freeBlocks,
+			BlockingQueue<Chunk> freeChunks, BlockingQueue<Chunk> chunks) throws InterruptedException {
+
+		Tokenizer tokenizer = new Tokenizer();
+		Chunk chunk = null;
+
+		try {
+
+			while (true) {
+
+				long waitStart = System.nanoTime();
+				LineBlock block = blocks.take();
+				long workStart = System.nanoTime();
+				tokenize.idleNanos += workStart - waitStart;
+				if (block == END_OF_LINES) break;
+
+				// A batch only holds the tokens of one file.
+				if (chunk != null && chunk.fileId != block.fileId) {
+					workStart = send(chunk, chunks, workStart);
+					chunk = null;
+				}
+
+				byte[] bytes = block.bytes;
+				int lineNumber = block.firstLine;
+				int start = 0;
+				for (int i = 0; i < block.length; i++) {
+					if (bytes[i] != '\n') continue;
+					tokenizer.reset(bytes, start, i - start);
+					while (tokenizer.next()) {
+						if (chunk == null) {
+							long waitFree = System.nanoTime();
+							chunk = freeChunks.take();
+							long now = System.nanoTime();
+							tokenize.idleNanos += now - waitFree;
+							workStart += now - waitFree;
+							chunk.fileId = block.fileId;
+						}
+						tokenize.units++;
+						if (chunk.batch.add(tokenizer.token(), lineNumber)) {
+							workStart = send(chunk, chunks, workStart);
+							chunk = null;
+						}
+					}
+					lineNumber++;
+					start = i + 1;
+				}
+
+				tokenize.items++;
+				tokenize.busyNanos += System.nanoTime() - workStart;
+				freeBlocks.put(block);
+
+			}
+
+			if (chunk != null) send(chunk, chunks, System.nanoTime());
+			chunk = null;
+			return true;
+
+		}finally {
+			if (chunk != null) chunk.batch.clear();
+			chunks.put(new Chunk(null));
+		}
+
+	}
+
+	/**
+	 * Sorts a batch and hands it to the indexer.
+	 * @param chunk The full batch.
+	 * @param chunks The queue to the indexer.
+	 * @param workStart When the tokenizer's current stretch of work started.
+	 * @return The start of the next stretch, excluding the time spent waiting to hand the batch over.
+	 * @throws InterruptedException if the pipeline is stopped.
+	 */
+	private long send(Chunk chunk, BlockingQueue<Chunk> chunks, long workStart) throws InterruptedException {
+
+		chunk.batch.sort();
+		long waitStart = System.nanoTime();
+		chunks.put(chunk);
+		long now = System.nanoTime();
+		tokenize.sampleQueue(chunks.size());
+		tokenize.idleNanos += now - waitStart;
+		return workStart + (now - waitStart);
+
+	}
+
+	/**
+	 * Adds the measurements of another pipeline to this one, e.g. to total the pipelines of several
+	 * worker threads. Safe to call from several threads at once.
+	 * @param other The pipeline whose measurements to add.
+	 */
+	public synchronized void addMetrics(IngestPipeline other) {
+
+		read.add(other.read);
+		tokenize.add(other.tokenize);
+		index.add(other.index);
+
+	}
+
+	/**
+	 * Formats the measurements of each stage: what it processed, how long it worked and how long it
+	 * waited for input or for room to hand its output on, and how full its output queue got.
+	 * @return A short multi-line report, without a trailing line terminator.
+	 */
+	@Override
+	public synchronized String toString() {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("pipeline: depth ").append(depth).append(", blocks of ").append(blockSize).append(" bytes");
+		for (Stage stage : new Stage[] { read, tokenize, index }) sb.append('\n').append(stage);
+		return sb.toString();
+
+	}
+
+	/**
+	 * Lines copied by the reader, each followed by '\n', for the tokenizer.
+	 */
+	private static final class LineBlock {
+
+		byte[] bytes;
+		int length; // Bytes of lines in the block.
+		int fileId;
+		int firstLine; // Line number of the first line of the block.
+
+		LineBlock(int size) {
+			bytes = new byte[size];
+		}
+	}
+
+	/**
+	 * A batch of tokens of one file, for the indexer; a null batch marks the end.
+	 */
+	private static final class Chunk {
+
+		final TokenBatch batch;
+		int fileId;
+
+		Chunk(TokenBatch batch) {
+			this.batch = batch;
+		}
+	}
+
+	/**
+	 * The measurements of one stage. Only the stage's own thread updates them while the pipeline runs.
+	 */
+	private static final class Stage {
+
+		private final String name;
+		private final String unit;
+		long items; // Blocks or batches processed.
+		long units; // Bytes or tokens processed.
+		long busyNanos; // Time spent working.
+		long idleNanos; // Time spent waiting for input or for room in the output queue.
+		private long depthSum; // Sum of the output queue sizes seen after each put.
+		private long depthSamples;
+		private int maxDepth;
+
+		Stage(String name, String unit) {
+			this.name = name;
+			this.unit = unit;
+		}
+
+		void sampleQueue(int size) {
+			depthSum += size;
+			depthSamples++;
+			maxDepth = Math.max(maxDepth, size);
+		}
+
+		void add(Stage other) {
+			items += other.items;
+			units += other.units;
+			busyNanos += other.busyNanos;
+			idleNanos += other.idleNanos;
+			depthSum += other.depthSum;
+			depthSamples += other.depthSamples;
+			maxDepth = Math.max(maxDepth, other.maxDepth);
+		}
+
+		@Override
+		public String toString() {
+			boolean bytes = unit.equals("MB");
+			double amount = bytes ? units / 1048576.0 : units;
+			double seconds = busyNanos / 1e9;
+			String line = String.format(bytes ? "  %-8s %10.1f %-6s" : "  %-8s %10.0f %-6s", name, amount, unit)
+					+ String.format(" %7d ms busy (%.0f %s/s), %7d ms waiting", busyNanos / 1000000,
+							(seconds == 0) ? 0.0 : amount / seconds, unit, idleNanos / 1000000);
+			if (depthSamples > 0) {
+				line += String.format(", output queue %.1f average, %d max", (double) depthSum / depthSamples, maxDepth);
+			}
+			return line;
+		}
+	}
+}
@@ -0,0 +1,382 @@
+package app;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Reads the lines of an input file for the tokenizer without decoding it or creating a String per
+ * line. The file is read through a FileChannel into a large byte buffer, lines are found by scanning
+ * the bytes for line terminators, and the tokenizer scans each line straight from the buffer.
+ *
+ * This is exact for charsets that encode every ASCII character as that single byte and never use
+ * bytes below 0x80 for anything else: UTF-8, US-ASCII, ISO-8859-x and windows-125x. In those, the
+ * only word characters (ASCII letters and digits) and line terminators are the bytes themselves,
+ * and every other character becomes bytes of 0x80 and above, which separate words just as the
+ * decoded character would. Files in any other charset are decoded through a BufferedReader as before.
+ *
+ * Lines end at "\n", "\r" or "\r\n", as with BufferedReader.readLine. On the byte path a file can
+ * also be read in parts, each a range of whole lines, so several threads can share a large file.
+ * A CRC-32 of the bytes is computed as they are read, so recording the checksum of an indexed file
+ * takes no second read of it.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class InputFile implements Closeable {
+
+	public static final int DEFAULT_BUFFER = 1 << 20;
+
+	private final Charset charset;
+	private final FileChannel channel; // The file; read directly on the byte path.
+	private final BufferedReader reader; // The decoding path, null when scanning bytes.
+	private final long start; // Position of the first byte of the part.
+	private final CRC32 crc = new CRC32(); // Of the bytes read from the file so far.
+	private byte[] bytes; // Bytes read from the file; grows for a line longer than the buffer.
+	private int limit; // Number of valid bytes in the buffer.
+	private int position; // Index of the next byte to scan.
+	private long remaining; // Bytes of the file (or of the part being read) not yet in the buffer.
+	private boolean endOfFile; // Everything up to the end of the file (or part) is in the buffer.
+	private boolean skipLF; // The last line ended with '\r', so a '\n' right after it is part of that terminator.
+	private int lineStart; // The line found by the last call to nextLine.
+	private int lineLength;
+	private boolean pending; // The line found last did not fit where copyLine was asked to copy it.
+	private String pendingText; // That line, on the decoding path.
+
+	/**
+	 * Opens an input file.
+	 * @param fileName The path/name of the file.
+	 * @param charset The charset the file is encoded in.
+	 * @throws FileNotFoundException if the file does not exist or cannot be opened.
+	 * @throws IOException if the size of the file cannot be read.
+	 */
+	public InputFile(String fileName, Charset charset) throws IOException {
+
+		this(fileName, charset, DEFAULT_BUFFER);
+
+	}
+
+	/**
+	 * Opens an input file with a given buffer size.
+	 * @param fileName The path/name of the file.
+	 * @param charset The charset the file is encoded in.
+	 * @param bufferSize The number of bytes read at a time, raised for longer lines; a smaller buffer
+	 * is used for a smaller file.
+	 * @throws FileNotFoundException if the file does not exist or cannot be opened.
+	 * @throws IOException if the size of the file cannot be read.
+	 * @throws IllegalArgumentException if the buffer size is not positive.
+	 */
+	public InputFile(String fileName, Charset charset, int bufferSize) throws IOException {
+
+		this(fileName, charset, 0, Long.MAX_VALUE, bufferSize);
+
+	}
+
+	/**
+	 * Opens part of an input file, from one line start up to another.
+	 * @param fileName The path/name of the file.
+	 * @param charset The charset the file is encoded in. Unless it is ASCII-compatible, the file is
+	 * decoded from the start to the end whatever the range, so the part must start at 0.
+	 * @param start The position of the first byte to read, at the start of a line.
+	 * @param end The position after the last byte to read, at the start of a line or past the end of the file.
+	 * @throws FileNotFoundException if the file does not exist or cannot be opened.
+	 * @throws IOException if the size of the file cannot be read.
+	 * @throws IllegalArgumentException if the range is negative, or starts after 0 in a charset that
+	 * is not ASCII-compatible.
+	 */
+	public InputFile(String fileName, Charset charset, long start, long end) throws IOException {
+
+		this(fileName, charset, start, end, DEFAULT_BUFFER);
+
+	}
+
+	/**
+	 * Opens part of an input file with a given buffer size.
+	 * @param fileName The path/name of the file.
+	 * @param charset The charset the file is encoded in.
+	 * @param start The position of the first byte to read.
+	 * @param end The position after the last byte to read.
+	 * @param bufferSize The number of bytes read at a time.
+	 * @throws IOException if the file cannot be opened or its size read.
+	 */
+	private InputFile(String fileName, Charset charset, long start, long end, int bufferSize) throws IOException {
+
+		if (bufferSize <= 0) throw new IllegalArgumentException("Illegal buffer size: " + bufferSize);
+		if (start < 0 || end < start) throw new IllegalArgumentException("Illegal range: " + start + " to " + end);
+		if (start > 0 && !isAsciiCompatible(charset)) {
+			throw new IllegalArgumentException("Files in " + charset + " can only be read from the start.");
+		}
+
+		this.charset = charset;
+		this.start = start;
+		FileInputStream in = new FileInputStream(fileName);
+		channel = in.getChannel();
+
+		try {
+
+			if (isAsciiCompatible(charset)) {
+				reader = null;
+				remaining = Math.max(0, Math.min(end, channel.size()) - start);
+				channel.position(start);
+				bytes = new byte[(int) Math.max(1, Math.min(bufferSize, remaining + 1))]; // +1 sees the end at once.
+			} else {
+				reader = new BufferedReader(new InputStreamReader(new CheckedInputStream(in, crc), charset));
+			}
+
+		}catch (IOException e) {
+			in.close();
+			throw e;
+		}
+
+	}
+
+	/**
+	 * Tells whether files in a charset can be scanned as bytes.
+	 * @param charset The charset.
+	 * @return true if every ASCII character is its own single byte and other characters only use
+	 * bytes of 0x80 and above.
+	 */
+	public static boolean isAsciiCompatible(Charset charset) {
+
+		String name = charset.name();
+		return name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("ISO-8859-") || name.startsWith("windows-125");
+
+	}
+
+	/**
+	 * Finds where the first line starting at or after a position of a file begins, e.g. to split the
+	 * file into parts of whole lines. The file is read as bytes, so this is only meaningful for files
+	 * in an ASCII-compatible charset.
+	 * @param fileName The path/name of the file.
+	 * @param offset The position in the file.
+	 * @return The position of the start of that line, or the size of the file if no line starts there.
+	 * @throws FileNotFoundException if the file does not exist or cannot be opened.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static long nextLineStart(String fileName, long offset) throws IOException {
+
+		if (offset <= 0) return 0;
+
+		try (FileChannel channel = new FileInputStream(fileName).getChannel()) {
+
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			long position = offset - 1; // A line starts at offset if the byte before it ends one.
+			boolean afterCR = false;
+
+			while (true) {
+
+				buffer.clear();
+				int read = channel.read(buffer, position);
+				if (read <= 0) return afterCR ? position : channel.size();
+
+				for (int i = 0; i < read; i++) {
+					byte b = buffer.get(i);
+					if (afterCR) return position + i + ((b == '\n') ? 1 : 0); // "\r\n" is one terminator.
+					if (b == '\n') return position + i + 1;
+					afterCR = b == '\r';
+				}
+				position += read;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Counts the remaining lines, reading to the end of the file (or part).
+	 * @return The number of lines, as readLine would return them.
+	 * @throws IOException if the file cannot be read or has a line longer than 2 GB.
+	 */
+	public int countLines() throws IOException {
+
+		int count = 0;
+		if (reader != null) {
+			while (reader.readLine() != null) count++;
+		} else {
+			while (nextLine()) count++;
+		}
+		return count;
+
+	}
+
+	/**
+	 * Returns the CRC-32 of the bytes read so far, which is that of the whole file (or part) once
+	 * the last line has been read.
+	 * @return The checksum.
+	 */
+	public long getChecksum() {
+
+		return crc.getValue();
+
+	}
+
+	/**
+	 * Returns the number of bytes read so far, which is the length of the whole file (or part)
+	 * once the last line has been read.
+	 * @return The number of bytes.
+	 * @throws IOException if the position in the file cannot be read.
+	 */
+	public long getLength() throws IOException {
+
+		return channel.position() - start;
+
+	}
+
+	/**
+	 * Reads the next line and starts the tokenizer on it. On the byte path the tokenizer scans the
+	 * line in the buffer, so no String is created.
+	 * @param tokenizer The tokenizer to reset to the line.
+	 * @return true if a line was read, false at the end of the file.
+	 * @throws IOException if the file cannot be read or has a line longer than 2 GB.
+	 */
+	public boolean readLine(Tokenizer tokenizer) throws IOException {
+
+		if (reader != null) {
+			String line = reader.readLine();
+			if (line == null) return false;
+			tokenizer.reset(line);
+			return true;
+		}
+
+		if (!nextLine()) return false;
+		tokenizer.reset(bytes, lineStart, lineLength);
+		return true;
+
+	}
+
+	/**
+	 * Reads the next line and copies it into an array as bytes followed by '\n', whatever its
+	 * terminator, for the tokenizer to scan later, e.g. on another thread. On the decoding path every
+	 * character that is not ASCII becomes the byte 0x80, which separates words just the same.
+	 * @param dst The array to copy into.
+	 * @param offset The index in dst to copy the line to.
+	 * @return The index after the copied '\n'; offset itself if the line does not fit, in which case
+	 * it is copied by the next call instead; or -1 at the end of the file.
+	 * @throws IOException if the file cannot be read or has a line longer than 2 GB.
+	 */
+	int copyLine(byte[] dst, int offset) throws IOException {
+
+		if (reader != null) {
+			String line = pending ? pendingText : reader.readLine();
+			if (line == null) return -1;
+			pending = line.length() >= dst.length - offset;
+			pendingText = pending ? line : null;
+			if (pending) return offset;
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				dst[offset++] = (byte) ((c < 0x80) ? c : 0x80);
+			}
+			dst[offset] = '\n';
+			return offset + 1;
+		}
+
+		if (!pending && !nextLine()) return -1;
+		pending = lineLength >= dst.length - offset;
+		if (pending) return offset;
+		System.arraycopy(bytes, lineStart, dst, offset, lineLength);
+		dst[offset + lineLength] = '\n';
+		return offset + lineLength + 1;
+
+	}
+
+	/**
+	 * Reads the next line as a String.
+	 * @return The line without its terminator, or null at the end of the file.
+	 * @throws IOException if the file cannot be read or has a line longer than 2 GB.
+	 */
+	public String readLine() throws IOException {
+
+		if (reader != null) return reader.readLine();
+		return nextLine() ? new String(bytes, lineStart, lineLength, charset) : null;
+
+	}
+
+	/**
+	 * Finds the next line in the buffer, reading more of the file when the buffer runs out.
+	 * @return true if a line was found, false at the end of the file.
+	 * @throws IOException if the file cannot be read or has a line longer than 2 GB.
+	 */
+	private boolean nextLine() throws IOException {
+
+		while (true) {
+
+			byte[] b = bytes;
+			int end = limit;
+			int i = position;
+
+			if (skipLF && i < end) {
+				if (b[i] == '\n') i++;
+				skipLF = false;
+			}
+
+			int start = i;
+			while (i < end && b[i] != '\n' && b[i] != '\r') i++;
+
+			if (i < end) {
+				skipLF = b[i] == '\r';
+				position = i + 1;
+				lineStart = start;
+				lineLength = i - start;
+				return true;
+			}
+
+			if (endOfFile) {
+				// A last line without a terminator is still a line.
+				position = end;
+				lineStart = start;
+				lineLength = end - start;
+				return start < end;
+			}
+
+			fill(start);
+
+		}
+
+	}
+
+	/**
+	 * Moves the bytes from a position on to the start of the buffer and reads more of the file after
+	 * them, growing the buffer if they already fill it.
+	 * @param start The index of the first byte to keep.
+	 * @throws IOException if the file cannot be read or the buffer cannot grow.
+	 */
+	private void fill(int start) throws IOException {
+
+		int kept = limit - start;
+		if (kept == bytes.length) {
+			if (bytes.length == Integer.MAX_VALUE) throw new IOException("Line too long.");
+			bytes = Arrays.copyOf(bytes, (int) Math.min(2L * bytes.length, Integer.MAX_VALUE));
+		} else {
+			System.arraycopy(bytes, start, bytes, 0, kept);
+		}
+
+		limit = kept;
+		position = 0;
+		int space = (int) Math.min(bytes.length - limit, remaining);
+		int read = (space == 0) ? -1 : channel.read(ByteBuffer.wrap(bytes, limit, space));
+		if (read < 0) {
+			endOfFile = true;
+		} else {
+			crc.update(bytes, limit, read);
+			limit += read;
+			remaining -= read;
+		}
+
+	}
+
+	/**
+	 * Closes the file.
+	 * @throws IOException if closing fails.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if (reader != null) reader.close();
+		else channel.close();
+
+	}
+}
@@ -0,0 +1,545 @@
+package app;
+
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only view of a repository file that serves reports and lookups straight from a memory mapping.
+ * Only the header and the file table are decoded when the repository is opened; words are located
+ * by binary search over the word directory and formatted directly from their records, so no Word
+ * objects or tree are built. A report therefore costs time proportional to its output rather than
+ * to the size of the repository.
+ *
+ * The batches of a RepositoryLog can be overlaid on the snapshot, so a report also shows the
+ * occurrences logged since the snapshot was written without loading it. Only the logged words are
+ * kept in a tree; the report walks them alongside the directory. A word of the snapshot is still
+ * formatted straight from its record unless a batch indexed one of its files again; only then, or
+ * when a batch added occurrences of it, is it decoded into a Word. The lookups by index (indexOf,
+ * frequency, appendReportLine) see the snapshot alone.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class MappedRepository implements Closeable {
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer; // The whole repository file.
+	private final long snapshotId;
+	private final FileTable fileTable = new FileTable(); // Snapshot files first, so their ids are their file indexes.
+	private final Map<String, FileInfo> files = new HashMap<>(); // Every file of the snapshot and the overlay.
+	private final boolean[] replaced; // Snapshot files indexed again by an overlaid batch, by file index.
+	private int replacedCount;
+	private final int wordCount;
+	private final int directoryOffset; // Position of the first directory entry.
+
+	private BSTree<Word> logged; // The words of the overlaid batches merged so far, or null.
+	private final List<BSTree<Word>> batches = new ArrayList<>(); // Overlaid batches not merged yet.
+	private final List<Set<String>> batchReplaced = new ArrayList<>(); // The files each of them indexed again.
+
+	/**
+	 * Maps a repository file and reads its header.
+	 * @param file The repository file, in the format RepositoryFormat writes.
+	 * @throws IOException if the file cannot be mapped or is in another format.
+	 */
+	public MappedRepository(File file) throws IOException {
+
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+		try {
+
+			if (channel.size() > Integer.MAX_VALUE) throw new IOException("Repository is too large to map.");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != RepositoryFormat.MAGIC) throw new IOException("Not a word tracker repository.");
+			int version = buffer.get() & 0xFF;
+			if (version != RepositoryFormat.VERSION) throw new IOException("Repository version " + version + " cannot be mapped.");
+			buffer.get(); // Flags only matter when a tree is built.
+			snapshotId = buffer.getLong();
+
+			int fileCount = readVarInt(buffer);
+			for (int i = 0; i < fileCount; i++) {
+				String fileName = readString(buffer);
+				fileTable.id(fileName);
+				long size = buffer.getLong();
+				long lastModified = buffer.getLong();
+				long checksum = buffer.getLong();
+				files.put(fileName, (size < 0) ? null : new FileInfo(size, lastModified, checksum));
+			}
+			replaced = new boolean[fileCount];
+
+			wordCount = readVarInt(buffer);
+			directoryOffset = buffer.position();
+
+		}catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+
+	}
+
+	/**
+	 * Retrieves the table of the repository's files. The files of the snapshot come first, in the
+	 * order of its file table, followed by those of the overlaid batches.
+	 * @return The table.
+	 */
+	public FileTable getFileTable() {
+
+		return fileTable;
+
+	}
+
+	/**
+	 * Retrieves the record of every file in the snapshot and the overlaid batches.
+	 * @return A read-only map of each file to its record, or to null if it has none.
+	 */
+	public Map<String, FileInfo> getFiles() {
+
+		return Collections.unmodifiableMap(files);
+
+	}
+
+	/**
+	 * Overlays the batches of a log on the snapshot, and attaches the log to the snapshot so later
+	 * batches can be appended. A log written for a different snapshot is ignored.
+	 * @param log The occurrence log.
+	 * @return The number of batches overlaid.
+	 * @throws IOException if the log cannot be read; nothing is overlaid and the log stays detached.
+	 */
+	public int overlay(RepositoryLog log) throws IOException {
+
+		List<BSTree<Word>> read = new ArrayList<>();
+		List<Map<String, FileInfo>> indexed = new ArrayList<>();
+		log.readBatches(snapshotId, fileTable, read, indexed);
+		for (int i = 0; i < read.size(); i++) overlay(read.get(i), indexed.get(i));
+		return read.size();
+
+	}
+
+	/**
+	 * Overlays one batch on the snapshot and the batches overlaid before it. The batch holds the
+	 * complete postings of the files it indexed, so they replace whatever the earlier layers hold
+	 * for the same files, as RepositoryLog.replay does.
+	 * @param batch The words of the batch, whose files are recorded in getFileTable().
+	 * @param batchFiles The files the batch indexed, with their records (null if unknown).
+	 */
+	public void overlay(BSTree<Word> batch, Map<String, FileInfo> batchFiles) {
+
+		Set<String> again = RepositoryLog.replacedFiles(files, batchFiles);
+		for (String fileName : again) {
+			int id = fileTable.find(fileName);
+			if (id >= 0 && id < replaced.length && !replaced[id]) {
+				replaced[id] = true;
+				replacedCount++;
+			}
+		}
+
+		batches.add(batch);
+		batchReplaced.add(again);
+		files.putAll(batchFiles);
+
+	}
+
+	/**
+	 * Returns the number of words in the snapshot.
+	 * @return The word count.
+	 */
+	public int size() {
+
+		return wordCount;
+
+	}
+
+	/**
+	 * Finds the position of a word in the sorted word directory.
+	 * @param word The word to look for.
+	 * @return The index of the word, or -(insertion point) - 1 if it is not in the repository.
+	 */
+	public int indexOf(String word) {
+
+		int low = 0;
+		int high = wordCount - 1;
+
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareWord(middle, word, false);
+			if (comparison < 0) low = middle + 1;
+			else if (comparison > 0) high = middle - 1;
+			else return middle;
+		}
+
+		return -(low + 1);
+
+	}
+
+	/**
+	 * Finds where the words not less than a key start in the sorted word directory.
+	 * @param key The lowest word wanted, or a prefix.
+	 * @param prefix Whether the words starting with the key count as equal to it.
+	 * @return The index of the first word not less than the key, or size() if there is none.
+	 */
+	public int startIndex(String key, boolean prefix) {
+
+		return bound(key, prefix, false);
+
+	}
+
+	/**
+	 * Finds where the words greater than a key start in the sorted word directory.
+	 * @param key The highest word wanted, or a prefix.
+	 * @param prefix Whether the words starting with the key count as equal to it.
+	 * @return The index of the first word greater than the key, or size() if there is none.
+	 */
+	public int endIndex(String key, boolean prefix) {
+
+		return bound(key, prefix, true);
+
+	}
+
+	/**
+	 * Returns the total frequency of a word, which is stored at the start of its record, so the
+	 * occurrences are not decoded.
+	 * @param index The index of the word in the directory.
+	 * @return The number of occurrences of the word across all files.
+	 */
+	public int frequency(int index) {
+
+		ByteBuffer record = recordAt(index);
+		int length = readVarInt(record);
+		record.position(record.position() + length); // Skip the word.
+		return readVarInt(record);
+
+	}
+
+	/**
+	 * Writes the report line of one word, formatted exactly like Word.toPFString, toPLString or toPOString.
+	 * @param index The index of the word in the directory.
+	 * @param flag The output format flag (-pf, -pl, -po).
+	 * @param out Where to write the line (without a line terminator).
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void appendReportLine(int index, String flag, Appendable out) throws IOException {
+
+		appendRecord(recordAt(index), flag, null, out);
+
+	}
+
+	/**
+	 * Writes the report line of a record, leaving out some files.
+	 * @param record The record.
+	 * @param flag The output format flag (-pf, -pl, -po).
+	 * @param skipped The files to leave out, by file index, or null for none.
+	 * @param out Where to write the line (without a line terminator).
+	 * @return The number of files written.
+	 * @throws IOException if the output cannot be written.
+	 */
+	private int appendRecord(ByteBuffer record, String flag, boolean[] skipped, Appendable out) throws IOException {
+
+		out.append(readString(record)).append(':');
+
+		boolean lines = !flag.equals("-pf");
+		readVarInt(record); // The total frequency, recounted below anyway.
+		int fileCount = readVarInt(record);
+		int written = 0;
+		int frequency = 0;
+
+		for (int f = 0; f < fileCount; f++) {
+
+			int file = readVarInt(record);
+			int count = readVarInt(record);
+
+			if (skipped != null && skipped[file]) {
+				for (int l = 0; l < count; l++) readVarInt(record);
+				continue;
+			}
+
+			out.append(' ').append(fileTable.name(file));
+			frequency += count;
+			written++;
+
+			if (lines) {
+				out.append('[');
+				int line = 0;
+				for (int l = 0; l < count; l++) {
+					line += RepositoryFormat.unzigzag(readVarInt(record));
+					if (l > 0) out.append(", ");
+					out.append(Integer.toString(line));
+				}
+				out.append(']');
+			} else {
+				for (int l = 0; l < count; l++) readVarInt(record); // Skip the line numbers.
+			}
+
+		}
+
+		if (flag.equals("-po")) out.append(" (freq = ").append(Integer.toString(frequency)).append(')');
+		return written;
+
+	}
+
+	/**
+	 * Writes the report lines of all words in ascending order, one per line, with the overlaid
+	 * batches applied.
+	 * @param flag The output format flag (-pf, -pl, -po).
+	 * @param out Where to write the report.
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void generateOutput(String flag, Appendable out) throws IOException {
+
+		generateOutput(flag, null, null, false, out);
+
+	}
+
+	/**
+	 * Writes the report lines of the selected words in ascending order, one per line, with the
+	 * overlaid batches applied: exactly the lines of the tree that loading the snapshot and
+	 * replaying the batches would give.
+	 * @param flag The output format flag (-pf, -pl, -po).
+	 * @param from The lowest word to report, or the prefix of the words to report, or null for all words.
+	 * @param to The highest word to report.
+	 * @param prefix Whether to report the words starting with from instead.
+	 * @param out Where to write the report.
+	 * @return The number of words written.
+	 * @throws IOException if the output cannot be written.
+	 */
+	public int generateOutput(String flag, String from, String to, boolean prefix, Appendable out) throws IOException {
+
+		int index = (from == null) ? 0 : startIndex(from, prefix);
+		int end = (from == null) ? wordCount : endIndex(to, prefix);
+
+		// The logged words of the same selection, found in the tree like a loaded repository finds them.
+		BSTree<Word> words = loggedWords();
+		Iterator<Word> iterator = (words == null) ? null
+				: (from == null) ? words.inorderIterator()
+				: prefix ? words.prefixIterator(Word.prefix(from))
+				: words.subTree(new Word(from), new Word(to));
+		Word next = (iterator != null && iterator.hasNext()) ? iterator.next() : null;
+
+		StringBuilder line = new StringBuilder();
+		int written = 0;
+
+		while (index < end || next != null) {
+
+			int comparison = (index == end) ? 1 : (next == null) ? -1 : compareWord(index, next.getWord(), false);
+
+			if (comparison < 0) {
+				// Only in the snapshot: formatted from the record, without the files indexed again.
+				if (replacedCount == 0) {
+					appendRecord(recordAt(index), flag, null, out);
+				} else {
+					line.setLength(0);
+					if (appendRecord(recordAt(index), flag, replaced, line) == 0) {
+						index++;
+						continue; // Every file of the word was indexed again.
+					}
+					out.append(line);
+				}
+				index++;
+			} else {
+				// Logged: the occurrences kept from the snapshot, if any, come first.
+				Word word = next;
+				if (comparison == 0) {
+					word = wordAt(index++);
+					word.addAll(next);
+				}
+				appendWord(word, flag, out);
+				next = iterator.hasNext() ? iterator.next() : null;
+			}
+
+			out.append('\n');
+			written++;
+
+		}
+
+		return written;
+
+	}
+
+	/**
+	 * Writes the report lines of the snapshot words between two directory indexes in ascending
+	 * order, one per line, without the overlaid batches.
+	 * @param flag The output format flag (-pf, -pl, -po).
+	 * @param from The index of the first word, inclusive.
+	 * @param to The index after the last word, exclusive.
+	 * @param out Where to write the report.
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void generateOutput(String flag, int from, int to, Appendable out) throws IOException {
+
+		for (int i = from; i < to; i++) {
+			appendReportLine(i, flag, out);
+			out.append('\n');
+		}
+
+	}
+
+	/**
+	 * Merges the overlaid batches not merged yet into the logged words.
+	 * @return The logged words, or null if no batch was overlaid.
+	 */
+	private BSTree<Word> loggedWords() {
+
+		if (batches.isEmpty()) return logged;
+
+		List<BSTree<Word>> trees = new ArrayList<>();
+		List<Set<String>> again = new ArrayList<>();
+		if (logged != null) {
+			trees.add(logged);
+			again.add(Collections.<String>emptySet());
+		}
+		trees.addAll(batches);
+		again.addAll(batchReplaced);
+
+		logged = new AVLTree<>();
+		logged.loadSorted(ParallelIngest.mergeReplacing(trees, again));
+		batches.clear();
+		batchReplaced.clear();
+		return logged;
+
+	}
+
+	/**
+	 * Decodes the record of a word into a Word, without the files indexed again.
+	 */
+	private Word wordAt(int index) {
+
+		ByteBuffer record = recordAt(index);
+		Word word = new Word(readString(record), fileTable);
+		readVarInt(record); // The total frequency, recounted as the occurrences are added.
+		int fileCount = readVarInt(record);
+
+		for (int f = 0; f < fileCount; f++) {
+			int file = readVarInt(record);
+			int count = readVarInt(record);
+			int line = 0;
+			for (int l = 0; l < count; l++) {
+				line += RepositoryFormat.unzigzag(readVarInt(record));
+				if (!replaced[file]) word.addOccurence(file, line);
+			}
+		}
+
+		return word;
+
+	}
+
+	/**
+	 * Writes the report line of a Word in the format of a flag.
+	 */
+	private static void appendWord(Word word, String flag, Appendable out) throws IOException {
+
+		if (flag.equals("-pf")) word.appendPFTo(out);
+		else if (flag.equals("-pl")) word.appendPLTo(out);
+		else word.appendPOTo(out);
+
+	}
+
+	/**
+	 * Closes the file channel. The mapping itself is released by the garbage collector.
+	 */
+	@Override
+	public void close() throws IOException {
+
+		channel.close();
+
+	}
+
+	/**
+	 * Returns an independent buffer positioned at the record of a word.
+	 */
+	private ByteBuffer recordAt(int index) {
+
+		ByteBuffer record = buffer.duplicate();
+		record.position((int) buffer.getLong(directoryOffset + index * 8));
+		return record;
+
+	}
+
+	/**
+	 * Binary search for the first directory index whose word compares greater than a key,
+	 * or greater than or equal to it.
+	 */
+	private int bound(String key, boolean prefix, boolean after) {
+
+		int low = 0;
+		int high = wordCount;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareWord(middle, key, prefix);
+			if (comparison > 0 || (comparison == 0 && !after)) high = middle;
+			else low = middle + 1;
+		}
+
+		return low;
+
+	}
+
+	/**
+	 * Compares the word stored at a directory index with a String, decoding the stored
+	 * modified UTF-8 one character at a time so that nothing is allocated. With prefix set,
+	 * a stored word starting with the String compares equal to it.
+	 */
+	private int compareWord(int index, String word, boolean prefix) {
+
+		ByteBuffer record = recordAt(index);
+		int length = readVarInt(record);
+		int end = record.position() + length;
+		int i = 0;
+
+		while (record.position() < end) {
+			if (i == word.length()) return prefix ? 0 : 1;
+			int diff = readChar(record) - word.charAt(i++);
+			if (diff != 0) return diff;
+		}
+
+		return i - word.length();
+
+	}
+
+	/**
+	 * Reads a String written by RepositoryFormat.writeString.
+	 */
+	private static String readString(ByteBuffer in) {
+
+		int length = readVarInt(in);
+		int end = in.position() + length;
+		StringBuilder sb = new StringBuilder(length);
+		while (in.position() < end) sb.append(readChar(in));
+		return sb.toString();
+
+	}
+
+	/**
+	 * Decodes one character of modified UTF-8.
+	 */
+	private static char readChar(ByteBuffer in) {
+
+		int b = in.get() & 0xFF;
+		if (b < 0x80) return (char) b;
+		if (b < 0xE0) return (char) (((b & 0x1F) << 6) | (in.get() & 0x3F));
+		return (char) (((b & 0x0F) << 12) | ((in.get() & 0x3F) << 6) | (in.get() & 0x3F));
+
+	}
+
+	/**
+	 * Reads an unsigned integer written by RepositoryFormat.writeVarInt.
+	 */
+	private static int readVarInt(ByteBuffer in) {
+
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			int b = in.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+
+	}
+}
@@ -0,0 +1,412 @@
+package app;
+
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Indexes the input files on a pool of worker threads.
+ * The input is cut into one share per worker of about the same number of bytes, each a run of whole
+ * lines that may span several files or be part of one, so a single large file keeps every worker
+ * busy too. The shares are in input order, and the line each one starts at is found beforehand by
+ * counting the lines before it, in parallel, so every occurrence gets its exact line number.
+ * Every worker builds its own private tree from its share, so the workers never contend on a
+ * shared structure. Once all shares are processed, the sorted contents of the repository and of
+ * every worker tree are merged in a single linear pass, in input order, and the repository is
+ * rebuilt as a balanced tree.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class ParallelIngest {
+
+	private static final long MIN_SHARE = 1 << 18; // The least input, in bytes, worth a worker of its own.
+
+	/**
+	 * Processes the input files in parallel and merges the results into the repository tree.
+	 * The repository is only changed if every file was processed successfully.
+	 * @param fileNames The paths of the files to index.
+	 * @param tree The BST (repository) to update.
+	 * @param fileTable The table of the file ids recorded in the tree.
+	 * @param threads The number of worker threads to use.
+	 * @param cache Sets the capacity of the word cache each worker puts in front of its tree, and
+	 * receives the hit and miss counts of all of them.
+	 * @param batch Sets the chunk size of the token batch each worker uses, 0 to look tokens up one at a time.
+	 * @param pipeline Unless disabled, each worker reads, tokenizes and indexes its share in a pipeline
+	 * with these settings, which receives the measurements of all of them.
+	 * @param files Receives the record of each file as it was read, with the checksum computed while
+	 * indexing it; may be null.
+	 * @return true if all files were processed successfully, false otherwise.
+	 */
+	public static boolean processInputFiles(List<String> fileNames, BSTree<Word> tree, FileTable fileTable,
+			int threads, WordCache cache, TokenBatch batch, IngestPipeline pipeline, Map<String, FileInfo> files) {
+
+		// Ids are handed out in input order before any worker starts, so every word lists its
+		// files in input order whichever worker read them, exactly as a sequential run does.
+		for (String fileName : fileNames) fileTable.id(fileName);
+
+		List<List<Segment>> shares = split(fileNames, threads);
+		ExecutorService pool = Executors.newFixedThreadPool(shares.size());
+		List<Future<BSTree<Word>>> results = new ArrayList<>();
+
+		try {
+
+			if (!numberLines(shares, pool)) return false;
+
+			for (List<Segment> share : shares) {
+				results.add(pool.submit(() -> indexSegments(share, fileTable, cache, batch.capacity(), pipeline)));
+			}
+
+			// Collect every worker tree, in input order; a null tree means one of its files failed.
+			List<BSTree<Word>> partialTrees = new ArrayList<>();
+			partialTrees.add(tree);
+			boolean success = true;
+
+			for (Future<BSTree<Word>> result : results) {
+				BSTree<Word> partial = result.get();
+				if (partial == null) success = false;
+				else partialTrees.add(partial);
+			}
+
+			if (!success) return false;
+
+			tree.loadSorted(merge(partialTrees));
+			if (files != null) {
+				for (List<Segment> share : shares) Segment.recordFiles(share, files);
+			}
+			return true;
+
+		}catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.err.println("File processing was interrupted.");
+			return false;
+		}catch (ExecutionException e) {
+			System.err.println("An unexpected error occurred during file processing.");
+			e.getCause().printStackTrace();
+			return false;
+		}finally {
+			pool.shutdownNow();
+		}
+
+	}
+
+	/**
+	 * Cuts the input into shares of about the same number of bytes, at line boundaries.
+	 * Files that cannot be read as bytes in the platform charset are only cut at their ends.
+	 * @param fileNames The paths of the files to index, in input order.
+	 * @param threads The most shares to make.
+	 * @return The shares in input order, each a list of file parts in input order.
+	 */
+	private static List<List<Segment>> split(List<String> fileNames, int threads) {
+
+		long[] sizes = new long[fileNames.size()];
+		long total = 0;
+		for (int f = 0; f < sizes.length; f++) {
+			sizes[f] = new File(fileNames.get(f)).length(); // 0 if missing; reading it will report the error.
+			total += sizes[f];
+		}
+
+		int count = (int) Math.max(1, Math.min(threads, total / MIN_SHARE));
+		boolean splittable = InputFile.isAsciiCompatible(Charset.defaultCharset());
+		List<List<Segment>> shares = new ArrayList<>();
+		List<Segment> share = new ArrayList<>();
+		long shareSize = total / count; // The last share also gets the remainder.
+		int cut = 1; // The next cut is at about cut * shareSize bytes into the input.
+		long base = 0; // Bytes of input before the current file.
+
+		for (int f = 0; f < sizes.length; f++) {
+
+			String fileName = fileNames.get(f);
+			long size = sizes[f];
+			long start = 0;
+
+			while (cut < count && cut * shareSize < base + size) {
+				long offset = cut++ * shareSize - base;
+				long end = splittable ? lineStart(fileName, Math.max(offset, start), size) : size;
+				if (end > start) {
+					share.add(new Segment(fileName, start, end));
+					start = end;
+				}
+				if (!share.isEmpty()) {
+					shares.add(share);
+					share = new ArrayList<>();
+				}
+			}
+
+			if (start < size || size == 0) share.add(new Segment(fileName, start, size));
+			base += size;
+
+		}
+
+		if (!share.isEmpty() || shares.isEmpty()) shares.add(share);
+		return shares;
+
+	}
+
+	/**
+	 * Finds the start of the first line at or after a position of a file.
+	 * @param fileName The path/name of the file.
+	 * @param offset The position in the file.
+	 * @param size The size of the file.
+	 * @return The position of the line, or the size of the file if it cannot be read.
+	 */
+	private static long lineStart(String fileName, long offset, long size) {
+
+		try {
+			return Math.min(InputFile.nextLineStart(fileName, offset), size);
+		}catch (IOException e) {
+			return size; // The file is not cut; reading it will report the error.
+		}
+
+	}
+
+	/**
+	 * Sets the line number each file part starts at, by counting in parallel the lines of every
+	 * part followed by another part of the same file.
+	 * @param shares The shares, in input order.
+	 * @param pool The threads to count on.
+	 * @return true if the lines were counted, false if a file could not be read.
+	 * @throws InterruptedException if interrupted while waiting for the counts.
+	 * @throws ExecutionException if counting fails unexpectedly.
+	 */
+	private static boolean numberLines(List<List<Segment>> shares, ExecutorService pool)
+			throws InterruptedException, ExecutionException {
+
+		List<Segment> segments = new ArrayList<>();
+		for (List<Segment> share : shares) segments.addAll(share);
+
+		List<Future<Integer>> counts = new ArrayList<>();
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			boolean continued = i + 1 < segments.size() && segments.get(i + 1).start > 0;
+			counts.add(continued ? pool.submit(segment::countLines) : null);
+		}
+
+		int line = 1;
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			if (segment.start == 0) line = 1;
+			segment.firstLine = line;
+			if (counts.get(i) != null) {
+				int lines = counts.get(i).get();
+				if (lines < 0) return false;
+				line += lines;
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Worker loop: indexes the file parts of one share into a private tree.
+	 * @param segments The file parts of the share, in input order.
+	 * @param fileTable The table of the file ids recorded in the worker's tree.
+	 * @param totals The cache whose capacity the worker's own cache gets, and which receives its counts.
+	 * @param batchCapacity The chunk size of the worker's token batch.
+	 * @param pipelines The settings of the worker's pipeline, which receive its measurements.
+	 * @return The worker's tree, or null if one of its files could not be processed.
+	 */
+	private static BSTree<Word> indexSegments(List<Segment> segments, FileTable fileTable, WordCache totals,
+			int batchCapacity, IngestPipeline pipelines) {
+
+		// Worker trees are AVL trees so that sorted input files cannot degrade them.
+		BSTree<Word> partial = new AVLTree<>();
+
+		if (pipelines.isEnabled()) {
+			IngestPipeline pipeline = pipelines.copy();
+			boolean success = pipeline.process(segments, partial, fileTable, batchCapacity);
+			pipelines.addMetrics(pipeline);
+			return success ? partial : null;
+		}
+
+		WordCache cache = new WordCache(totals.capacity()); // Valid for all files, as they go into the same tree.
+		TokenBatch batch = new TokenBatch(batchCapacity);
+		boolean success = true;
+
+		for (Segment segment : segments) {
+			success &= WordTracker.processInputFile(segment, partial, fileTable, cache, batch);
+		}
+
+		totals.addCounts(cache);
+		return success ? partial : null;
+
+	}
+
+	/**
+	 * Merges the in-order sequences of several trees into one sorted list.
+	 * Words present in more than one tree are combined into the instance from the earliest tree,
+	 * so occurrences already in the repository keep their place ahead of the new ones.
+	 * @param trees The trees to merge, the repository first.
+	 * @return The merged words in ascending order.
+	 */
+	static List<Word> merge(List<BSTree<Word>> trees) {
+
+		int total = 0;
+		for (BSTree<Word> t : trees) total += t.size();
+		List<Word> merged = new ArrayList<>(total);
+
+		// A min-heap of the next word of each tree; ties go to the earlier tree.
+		PriorityQueue<Cursor> heads = new PriorityQueue<>();
+		for (int i = 0; i < trees.size(); i++) {
+			Cursor cursor = new Cursor(i, trees.get(i).inorderIterator());
+			if (cursor.advance()) heads.add(cursor);
+		}
+
+		while (!heads.isEmpty()) {
+
+			Cursor smallest = heads.poll();
+			Word word = smallest.current;
+			if (smallest.advance()) heads.add(smallest);
+
+			// Fold the same word from any other tree into this one.
+			while (!heads.isEmpty() && heads.peek().current.compareTo(word) == 0) {
+				Cursor same = heads.poll();
+				word.addAll(same.current);
+				if (same.advance()) heads.add(same);
+			}
+
+			merged.add(word);
+
+		}
+
+		return merged;
+
+	}
+
+	/**
+	 * Merges trees in which some files were indexed again: the occurrences of each file are kept
+	 * only from the last tree that indexed it, so a file indexed twice is not counted twice.
+	 * Words left without any occurrences are dropped. Finding the old occurrences takes a pass over
+	 * the earlier trees, which is skipped when no file was indexed again.
+	 * @param trees The trees to merge, oldest (the repository) first.
+	 * @param indexedFiles For each tree, the files it indexed again: it holds their complete
+	 * postings, and an earlier tree may hold old ones. Files indexed for the first time are left out.
+	 * @return The merged words in ascending order.
+	 */
+	static List<Word> mergeReplacing(List<BSTree<Word>> trees, List<? extends Collection<String>> indexedFiles) {
+
+		// The last tree that indexed each file.
+		Map<String, Integer> latest = new HashMap<>();
+		for (int i = 0; i < indexedFiles.size(); i++) {
+			for (String fileName : indexedFiles.get(i)) latest.put(fileName, i);
+		}
+
+		if (latest.isEmpty()) return merge(trees);
+
+		// Earlier trees give up their occurrences of those files.
+		boolean removed = false;
+		for (int i = 0; i < trees.size() - 1; i++) {
+			Iterator<Word> iterator = trees.get(i).inorderIterator();
+			while (iterator.hasNext()) {
+				Word word = iterator.next();
+				for (int f = word.getFileCount() - 1; f >= 0; f--) {
+					Integer last = latest.get(word.getFileName(f));
+					if (last != null && last > i) removed |= word.removeFile(word.getFileName(f));
+				}
+			}
+		}
+
+		List<Word> merged = merge(trees);
+		if (removed) merged.removeIf(word -> word.getFileCount() == 0);
+		return merged;
+
+	}
+
+	/**
+	 * A run of whole lines of one input file.
+	 */
+	static final class Segment {
+
+		final String fileName;
+		final long start; // Position of the first byte, at the start of a line.
+		final long end; // Position after the last byte.
+		final long lastModified; // Of the file, taken before it is read; only kept by its first part.
+		int firstLine = 1; // Line number of the line at start.
+		long checksum; // CRC-32 of the bytes of the part, once it has been read.
+		long length; // Number of bytes of the part, once it has been read.
+
+		Segment(String fileName, long start, long end) {
+			this.fileName = fileName;
+			this.start = start;
+			this.end = end;
+			this.lastModified = (start == 0) ? new File(fileName).lastModified() : 0;
+		}
+
+		/**
+		 * Keeps the checksum and length of the part once it has been read in full.
+		 * @param input The part, read to its end.
+		 * @throws IOException if the position in the file cannot be read.
+		 */
+		void recordRead(InputFile input) throws IOException {
+			checksum = input.getChecksum();
+			length = input.getLength();
+		}
+
+		/**
+		 * Records the files whose parts were read, combining the checksums of the parts of a file.
+		 * @param segments The parts read, in input order.
+		 * @param files Receives the record of each file.
+		 */
+		static void recordFiles(List<Segment> segments, Map<String, FileInfo> files) {
+			for (Segment segment : segments) {
+				FileInfo previous = files.get(segment.fileName);
+				if (segment.start == 0 || previous == null) {
+					files.put(segment.fileName, new FileInfo(segment.length, segment.lastModified, segment.checksum));
+				} else {
+					files.put(segment.fileName, new FileInfo(previous.getSize() + segment.length,
+							previous.getLastModified(),
+							FileInfo.combineChecksums(previous.getChecksum(), segment.checksum, segment.length)));
+				}
+			}
+		}
+
+		/**
+		 * Counts the lines of the part.
+		 * @return The number of lines, or -1 if the file could not be read.
+		 */
+		int countLines() {
+			try (InputFile input = new InputFile(fileName, Charset.defaultCharset(), start, end)) {
+				return input.countLines();
+			}catch (IOException e) {
+				System.err.println("Error reading file: " + fileName);
+				e.printStackTrace();
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * The position of the merge within one tree's in-order sequence.
+	 */
+	private static class Cursor implements Comparable<Cursor> {
+
+		private final int source; // Index of the tree, used to break ties.
+		private final Iterator<Word> iterator;
+		private Word current;
+
+		Cursor(int source, Iterator<Word> iterator) {
+			this.source = source;
+			this.iterator = iterator;
+		}
+
+		boolean advance() {
+			if (!iterator.hasNext()) return false;
+			current = iterator.next();
+			return true;
+		}
+
+		@Override
+		public int compareTo(Cursor o) {
+			int comparison = current.compareTo(o.current);
+			return (comparison != 0) ? comparison : Integer.compare(source, o.source);
+		}
+	}
+}
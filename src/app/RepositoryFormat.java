@@ -0,0 +1,502 @@
+package app;
+
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads and writes the repository in a compact, versioned binary format.
+ * The words are written in sorted order, so loading needs no comparisons: the list read back is
+ * turned into a balanced tree in O(n). File names are stored once in a table and referenced by
+ * index, and line numbers are delta encoded as variable-length integers.
+ * A directory of fixed-width record offsets precedes the word records, so a MappedRepository can
+ * binary search and report straight from a memory mapping of the file, and each record starts with
+ * the word's total frequency, so it can be read without decoding the occurrences. The file table
+ * also records the size, modification time and checksum of each indexed file, so unchanged files
+ * are not indexed again. The header holds an id drawn at random on every save, by which a
+ * RepositoryLog recognises the snapshot it extends without reading the whole file.
+ *
+ * Layout:
+ * <pre>
+ * int     magic ("WTRP")
+ * byte    version
+ * byte    flags (bit 0: the tree is an AVL tree)
+ * long    snapshot id (not negative)
+ * varint  file count, then for each file:
+ *         name (string), long size (-1 if unknown), long modification time, long CRC-32
+ * varint  word count
+ * long[]  word directory: the file offset of each word record, in ascending word order
+ * records for each word in ascending order:
+ *         word (string), varint total frequency, varint file count, and per file:
+ *         varint file index, varint line count, zigzag varint line deltas
+ * </pre>
+ * A string is a varint byte count followed by the characters in modified UTF-8, the encoding
+ * writeUTF uses, but without its limit of 65535 bytes. A file without a record, such as one listed
+ * by a migrated repository.ser, has a size of -1, so it is always indexed again.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class RepositoryFormat {
+
+	static final int MAGIC = 0x57545250; // "WTRP"
+	static final int VERSION = 1;
+	private static final int FLAG_BALANCED = 1;
+	private static final int DIRECTORY_CHUNK = 1 << 13; // Directory entries written at a time.
+
+	/**
+	 * Writes the tree to a file, without any record of the indexed files. The files are listed in
+	 * the order they first appear in the words.
+	 * @param tree The repository tree to save.
+	 * @param file The repository file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(BSTree<Word> tree, File file) throws IOException {
+
+		write(tree, new FileTable(), Collections.<String, FileInfo>emptyMap(), file);
+
+	}
+
+	/**
+	 * Writes the tree and the record of the indexed files to a file. The data goes to a temporary
+	 * file first, which then replaces the target, so a failed save never leaves a truncated
+	 * repository behind.
+	 * @param tree The repository tree to save.
+	 * @param fileTable The table of the repository; the files are listed in its id order.
+	 * @param files The size, modification time and checksum of each indexed file.
+	 * @param file The repository file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(BSTree<Word> tree, FileTable fileTable, Map<String, FileInfo> files, File file)
+			throws IOException {
+
+		Path temp = Paths.get(file.getPath() + ".tmp");
+
+		// First pass: give every distinct file name an index. Indexed files without any words are kept too.
+		Map<String, Integer> fileIndex = fileTable(tree, fileTable, files.keySet());
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+			CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+			DataOutputStream out = new DataOutputStream(counter);
+
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeByte((tree instanceof AVLTree) ? FLAG_BALANCED : 0);
+			out.writeLong(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+
+			writeVarInt(out, fileIndex.size());
+			for (String fileName : fileIndex.keySet()) {
+				writeString(out, fileName);
+				FileInfo info = files.get(fileName);
+				if (info != null) info.writeTo(out);
+				else FileInfo.writeNone(out);
+			}
+
+			// Reserve the directory; it is filled in a chunk at a time as the record offsets become
+			// known. The reserved bytes reach the file first, so they cannot overwrite the entries.
+			int wordCount = tree.size();
+			writeVarInt(out, wordCount);
+			long entryOffset = counter.count;
+			byte[] zeros = new byte[1 << 16];
+			for (long left = wordCount * 8L; left > 0; left -= zeros.length) {
+				out.write(zeros, 0, (int) Math.min(left, zeros.length));
+			}
+			out.flush();
+			ByteBuffer directory = ByteBuffer.allocate(DIRECTORY_CHUNK * 8);
+
+			// Second pass: the words in ascending order with their occurrences.
+			Iterator<Word> iterator = tree.inorderIterator();
+			while (iterator.hasNext()) {
+				directory.putLong(counter.count);
+				writeRecord(iterator.next(), fileIndex, out);
+				if (!directory.hasRemaining()) entryOffset = writeAt(channel, directory, entryOffset);
+			}
+
+			out.flush();
+			writeAt(channel, directory, entryOffset);
+
+		}
+
+		Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+	}
+
+	/**
+	 * Writes the entries collected in a buffer at a position of the file, and empties the buffer.
+	 * @return The position after the entries.
+	 */
+	private static long writeAt(FileChannel channel, ByteBuffer entries, long position) throws IOException {
+
+		entries.flip();
+		while (entries.hasRemaining()) {
+			channel.write(entries, position + entries.position());
+		}
+		position += entries.limit();
+		entries.clear();
+		return position;
+
+	}
+
+	/**
+	 * Gives every distinct file name in a tree an index, in the id order of a FileTable, so the
+	 * ids keep their order when the table is read back. Files of words that use another table are
+	 * added to it by name.
+	 * @param tree The words whose files are listed.
+	 * @param fileTable The table whose id order the indexes follow.
+	 * @param others Further file names to list, e.g. indexed files without any words.
+	 * @return The index of every file name, iterating in index order.
+	 */
+	static Map<String, Integer> fileTable(BSTree<Word> tree, FileTable fileTable, Collection<String> others) {
+
+		BitSet used = new BitSet();
+		Iterator<Word> iterator = tree.inorderIterator();
+		while (iterator.hasNext()) {
+			Word word = iterator.next();
+			synchronized (word) {
+				boolean own = (word.getFileTable() == fileTable);
+				for (int f = 0; f < word.getFileCount(); f++) {
+					used.set(own ? word.getFileId(f) : fileTable.id(word.getFileName(f)));
+				}
+			}
+		}
+		for (String fileName : others) used.set(fileTable.id(fileName));
+
+		Map<String, Integer> fileIndex = new LinkedHashMap<>();
+		for (int id = used.nextSetBit(0); id >= 0; id = used.nextSetBit(id + 1)) {
+			fileIndex.put(fileTable.name(id), fileIndex.size());
+		}
+		return fileIndex;
+
+	}
+
+	/**
+	 * Writes one word record.
+	 * @param word The word to write.
+	 * @param fileIndex The index of every file name in the file table.
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	static void writeRecord(Word word, Map<String, Integer> fileIndex, DataOutput out) throws IOException {
+
+		// Holding the word's lock keeps the record consistent if another thread is adding to it,
+		// and lets the JIT drop the nested locks of the accessors below.
+		synchronized (word) {
+
+			writeString(out, word.getWord());
+			writeVarInt(out, word.getTotalFrequency());
+			writeVarInt(out, word.getFileCount());
+
+			for (int f = 0; f < word.getFileCount(); f++) {
+
+				int lines = word.getLineCount(f);
+				writeVarInt(out, fileIndex.get(word.getFileName(f)));
+				writeVarInt(out, lines);
+
+				int previous = 0;
+				for (int l = 0; l < lines; l++) {
+					int line = word.getLineNumber(f, l);
+					writeVarInt(out, zigzag(line - previous));
+					previous = line;
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Reads a repository file back into a tree, with a FileTable of its own.
+	 * @param file The repository file.
+	 * @param balanced true to always return an AVL tree, even if the saved tree was not one.
+	 * @return The restored tree, balanced by construction.
+	 * @throws IOException if the file cannot be read or is not a valid repository.
+	 */
+	public static BSTree<Word> read(File file, boolean balanced) throws IOException {
+
+		return read(file, balanced, null, new FileTable());
+
+	}
+
+	/**
+	 * Reads a repository file back into a tree, along with the record of the indexed files.
+	 * @param file The repository file.
+	 * @param balanced true to always return an AVL tree, even if the saved tree was not one.
+	 * @param files Receives every file in the file table with its record, or with null if it has
+	 * none; may be null.
+	 * @param fileTable The table the words record their files in; the files of the repository are
+	 * added to it in the order they are listed.
+	 * @return The restored tree, balanced by construction.
+	 * @throws IOException if the file cannot be read or is not a valid repository.
+	 */
+	public static BSTree<Word> read(File file, boolean balanced, Map<String, FileInfo> files, FileTable fileTable)
+			throws IOException {
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			return read(in, balanced, files, fileTable);
+		}
+
+	}
+
+	/**
+	 * Reads the snapshot id from the header of a repository file, without reading the rest of it.
+	 * @param file The repository file.
+	 * @return The id the file was saved with.
+	 * @throws IOException if the file cannot be read or is not a valid repository.
+	 */
+	public static long snapshotId(File file) throws IOException {
+
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+
+			readVersion(in);
+			in.readUnsignedByte(); // Flags.
+			return in.readLong();
+
+		}
+
+	}
+
+	/**
+	 * Reads a repository from a stream in the binary repository format.
+	 * @param in The stream to read from.
+	 * @param balanced true to always return an AVL tree, even if the saved tree was not one.
+	 * @param files Receives every file in the file table with its record, or null; may be null.
+	 * @param fileTable The table the words record their files in.
+	 * @return The restored tree.
+	 * @throws IOException if the stream cannot be read or is not a valid repository.
+	 */
+	static BSTree<Word> read(DataInputStream in, boolean balanced, Map<String, FileInfo> files, FileTable fileTable)
+			throws IOException {
+
+		readVersion(in);
+		int flags = in.readUnsignedByte();
+		in.readLong(); // The snapshot id only matters to the log.
+
+		int[] fileIds = new int[readVarInt(in)];
+		for (int i = 0; i < fileIds.length; i++) {
+			String fileName = readString(in);
+			fileIds[i] = fileTable.id(fileName);
+			FileInfo info = FileInfo.readFrom(in);
+			if (files != null) files.put(fileName, info);
+		}
+
+		int wordCount = readVarInt(in);
+		List<Word> words = new ArrayList<>(wordCount);
+
+		// The directory is only needed for random access; a full load reads the records in sequence.
+		skipFully(in, wordCount * 8L);
+
+		for (int w = 0; w < wordCount; w++) {
+			words.add(readRecord(in, fileTable, fileIds));
+		}
+
+		BSTree<Word> tree = (balanced || (flags & FLAG_BALANCED) != 0) ? new AVLTree<>() : new BSTree<>();
+		tree.loadSorted(words);
+		return tree;
+
+	}
+
+	/**
+	 * Checks the magic number and format version at the start of a repository.
+	 */
+	private static void readVersion(DataInput in) throws IOException {
+
+		if (in.readInt() != MAGIC) throw new IOException("Not a word tracker repository.");
+		int version = in.readUnsignedByte();
+		if (version != VERSION) throw new IOException("Unsupported repository version " + version + ".");
+
+	}
+
+	/**
+	 * Reads one word record.
+	 * @param in The stream to read from.
+	 * @param fileTable The table the word records its files in.
+	 * @param fileIds The ids in that table of the files the record refers to, by file index.
+	 * @return The word with its occurrences.
+	 * @throws IOException if the stream cannot be read or the record is corrupt.
+	 */
+	static Word readRecord(DataInput in, FileTable fileTable, int[] fileIds) throws IOException {
+
+		Word word = new Word(readString(in), fileTable);
+		int frequency = readVarInt(in);
+		int files = readVarInt(in);
+
+		for (int f = 0; f < files; f++) {
+
+			int file = readVarInt(in);
+			if (file >= fileIds.length) throw new IOException("Corrupt repository: unknown file index " + file + ".");
+			int fileId = fileIds[file];
+			int lines = readVarInt(in);
+			int line = 0;
+
+			for (int l = 0; l < lines; l++) {
+				line += unzigzag(readVarInt(in));
+				word.addOccurence(fileId, line);
+			}
+
+		}
+
+		if (frequency != word.getTotalFrequency()) {
+			throw new IOException("Corrupt repository: frequency mismatch for \"" + word.getWord() + "\".");
+		}
+		return word;
+
+	}
+
+	/**
+	 * Skips exactly the given number of bytes.
+	 */
+	private static void skipFully(DataInputStream in, long bytes) throws IOException {
+
+		while (bytes > 0) {
+			int skipped = in.skipBytes((int) Math.min(bytes, Integer.MAX_VALUE));
+			if (skipped <= 0) throw new EOFException("Truncated repository.");
+			bytes -= skipped;
+		}
+
+	}
+
+	/**
+	 * Writes a String as a varint byte count followed by its characters in modified UTF-8, as
+	 * writeUTF encodes them but without its limit of 65535 bytes.
+	 */
+	static void writeString(DataOutput out, String value) throws IOException {
+
+		int length = value.length();
+		int bytes = length;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c == 0 || c >= 0x80) bytes += (c < 0x800) ? 1 : 2;
+		}
+		writeVarInt(out, bytes);
+
+		if (bytes == length) {
+			out.writeBytes(value); // All ASCII, one byte per character.
+			return;
+		}
+
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c != 0 && c < 0x80) {
+				out.writeByte(c);
+			} else if (c < 0x800) {
+				out.writeByte(0xC0 | (c >> 6));
+				out.writeByte(0x80 | (c & 0x3F));
+			} else {
+				out.writeByte(0xE0 | (c >> 12));
+				out.writeByte(0x80 | ((c >> 6) & 0x3F));
+				out.writeByte(0x80 | (c & 0x3F));
+			}
+		}
+
+	}
+
+	/**
+	 * Reads a String written by writeString.
+	 */
+	static String readString(DataInput in) throws IOException {
+
+		int length = readVarInt(in);
+		if (length < 0) throw new IOException("Corrupt repository: string of " + (length & 0xFFFFFFFFL) + " bytes.");
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+
+		char[] chars = new char[length];
+		int count = 0;
+		for (int i = 0; i < length; ) {
+			int b = bytes[i++] & 0xFF;
+			if (b < 0x80) {
+				chars[count++] = (char) b;
+			} else if (b >= 0xC0 && b < 0xE0 && i < length) {
+				chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[i++] & 0x3F));
+			} else if (b >= 0xE0 && b < 0xF0 && i + 1 < length) {
+				chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[i] & 0x3F) << 6) | (bytes[i + 1] & 0x3F));
+				i += 2;
+			} else {
+				throw new UTFDataFormatException("Malformed string at byte " + (i - 1) + ".");
+			}
+		}
+		return new String(chars, 0, count);
+
+	}
+
+	/**
+	 * Writes an unsigned integer using 7 bits per byte, low bits first.
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+
+	}
+
+	/**
+	 * Reads an unsigned integer written by writeVarInt.
+	 */
+	static int readVarInt(DataInput in) throws IOException {
+
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Malformed variable-length integer.");
+
+	}
+
+	/**
+	 * Maps a signed delta to an unsigned value so small negative deltas stay short.
+	 */
+	static int zigzag(int value) {
+
+		return (value << 1) ^ (value >> 31);
+
+	}
+
+	/**
+	 * Reverses zigzag.
+	 */
+	static int unzigzag(int value) {
+
+		return (value >>> 1) ^ -(value & 1);
+
+	}
+
+	/**
+	 * Passes bytes through while counting them, so record offsets are known while streaming.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		private long count; // Number of bytes written so far.
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package app;
+
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the occurrences added since the repository snapshot was last written.
+ * Each ingest appends one batch holding only its new occurrences, so saving costs time proportional
+ * to the new data rather than to the whole repository. Loading replays the batches on top of the
+ * snapshot, and a MappedRepository overlays them on the mapped snapshot instead, so an ingest that
+ * is only logged costs time proportional to the new data and the log, never to the snapshot. Once
+ * the log grows large it is compacted by writing a new snapshot and deleting the log; only then is
+ * the snapshot loaded into a tree.
+ *
+ * The log names the snapshot it extends by the id stored in the snapshot's header, which every save
+ * draws anew, so checking it reads a few bytes rather than the whole snapshot. A log left behind by
+ * a compaction that was interrupted before the log could be deleted therefore no longer matches the
+ * new snapshot and is ignored, so its occurrences are never applied twice. A batch torn by a crash
+ * while it was being appended fails its own checksum; it and anything after it are dropped.
+ *
+ * Each batch lists the files it indexed along with their size, modification time and checksum.
+ * A batch holds the complete postings of those files, so on replay they replace whatever the
+ * snapshot or earlier batches recorded for the same files.
+ *
+ * Layout:
+ * <pre>
+ * int     magic ("WTRL")
+ * byte    version
+ * long    id of the snapshot the log extends
+ * batches, each:
+ *         int length, int CRC-32 of the payload, then the payload:
+ *         varint file count, then for each indexed file:
+ *         name (string, as in RepositoryFormat), long size (-1 if unknown), long modification time, long CRC-32
+ *         varint word count, then the word records in ascending order, as in RepositoryFormat
+ * </pre>
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class RepositoryLog {
+
+	static final int MAGIC = 0x5754524C; // "WTRL"
+	static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 4 + 1 + 8;
+
+	private final File file;
+	private long snapshotId = -1; // The snapshot the log extends, once replay has read it; -1 before.
+	private long length; // Bytes of the log holding a valid header and complete batches.
+
+	/**
+	 * Creates a log backed by a file. Nothing is read until replay is called.
+	 * @param file The log file; it need not exist.
+	 */
+	public RepositoryLog(File file) {
+
+		this.file = file;
+
+	}
+
+	/**
+	 * Tells whether the log file exists and holds anything.
+	 * @return true if the log may hold occurrences that are not in the snapshot.
+	 */
+	public boolean exists() {
+
+		return file.length() > 0;
+
+	}
+
+	/**
+	 * Returns the number of bytes of valid batches found by replay or written since.
+	 * @return The length of the usable part of the log.
+	 */
+	public long length() {
+
+		return length;
+
+	}
+
+	/**
+	 * Tells whether batches can be appended: replay must have read the snapshot they extend.
+	 * @return true if append may be called.
+	 */
+	public boolean isAttached() {
+
+		return snapshotId >= 0;
+
+	}
+
+	/**
+	 * Applies the batches of the log to a tree loaded from the snapshot, and attaches the log to
+	 * that snapshot so later batches can be appended. A log written for a different snapshot is
+	 * ignored and will be overwritten by the next append. If the log cannot be read it stays
+	 * detached, so the caller writes a new snapshot instead of appending to it.
+	 * @param snapshot The snapshot file the tree was loaded from.
+	 * @param tree The tree loaded from the snapshot; it is rebuilt with the logged occurrences.
+	 * @param fileTable The table of the tree's file ids; the logged files are added to it.
+	 * @param files The record of every file the snapshot holds, as loaded with it; updated with the
+	 * logged files. A batch only looks for the old occurrences of the files listed here or in an
+	 * earlier batch, so the files it indexed for the first time cost nothing to replace.
+	 * @return The number of batches applied.
+	 * @throws IOException if the snapshot or the log cannot be read.
+	 */
+	public int replay(File snapshot, BSTree<Word> tree, FileTable fileTable, Map<String, FileInfo> files)
+			throws IOException {
+
+		List<BSTree<Word>> batches = new ArrayList<>();
+		List<Map<String, FileInfo>> indexed = new ArrayList<>(); // The files each batch indexed.
+		readBatches(RepositoryFormat.snapshotId(snapshot), fileTable, batches, indexed);
+		if (batches.isEmpty()) return 0;
+
+		List<BSTree<Word>> trees = new ArrayList<>();
+		List<Set<String>> replaced = new ArrayList<>(); // The files each tree indexed again.
+		trees.add(tree);
+		replaced.add(Collections.<String>emptySet());
+
+		for (int i = 0; i < batches.size(); i++) {
+			trees.add(batches.get(i));
+			replaced.add(replacedFiles(files, indexed.get(i)));
+			files.putAll(indexed.get(i));
+		}
+
+		tree.loadSorted(ParallelIngest.mergeReplacing(trees, replaced));
+		return batches.size();
+
+	}
+
+	/**
+	 * Reads the batches of the log and attaches the log to the snapshot they extend, so later
+	 * batches can be appended. A log written for a different snapshot is ignored and will be
+	 * overwritten by the next append.
+	 * @param id The snapshot id stored in the header of the snapshot.
+	 * @param fileTable The table the words of the batches record their files in.
+	 * @param batches Receives the words of each batch, in the order they were appended.
+	 * @param files Receives the files each batch indexed, with their records (null if unknown).
+	 * @throws IOException if the log cannot be read; it then stays detached.
+	 */
+	void readBatches(long id, FileTable fileTable, List<BSTree<Word>> batches, List<Map<String, FileInfo>> files)
+			throws IOException {
+
+		snapshotId = -1;
+		length = 0;
+
+		if (!exists()) {
+			snapshotId = id;
+			return;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+
+			if (in.readInt() != MAGIC) throw new IOException("Not a word tracker log.");
+			int version = in.readUnsignedByte();
+			if (version != VERSION) throw new IOException("Unsupported log version " + version + ".");
+			if (in.readLong() != id) {
+				System.err.println("Ignoring " + file + ": it was written for a different repository snapshot.");
+				snapshotId = id;
+				return;
+			}
+
+			long position = HEADER_LENGTH;
+			long fileLength = file.length();
+			byte[] payload;
+
+			while ((payload = readBatch(in, fileLength - position)) != null) {
+				Map<String, FileInfo> batchFiles = new LinkedHashMap<>();
+				batches.add(decodeBatch(payload, fileTable, batchFiles));
+				files.add(batchFiles);
+				position += 8 + payload.length;
+			}
+
+			length = position;
+			if (position < fileLength) {
+				System.err.println("Ignoring an incomplete batch at the end of " + file + ".");
+			}
+			snapshotId = id;
+
+		}
+
+	}
+
+	/**
+	 * Finds the files a batch indexed again: those an earlier layer (the snapshot or an earlier
+	 * batch) already holds, whose old occurrences the batch replaces.
+	 * @param known Every file of the earlier layers.
+	 * @param batchFiles The files the batch indexed.
+	 * @return The files of the batch that are known.
+	 */
+	static Set<String> replacedFiles(Map<String, FileInfo> known, Map<String, FileInfo> batchFiles) {
+
+		Set<String> replaced = new HashSet<>();
+		for (String fileName : batchFiles.keySet()) {
+			if (known.containsKey(fileName)) replaced.add(fileName);
+		}
+		return replaced;
+
+	}
+
+	/**
+	 * Appends the words of one ingest as a new batch and forces it to disk.
+	 * Anything after the last valid batch (a torn batch, or a log for another snapshot) is discarded first.
+	 * @param added The complete postings of the indexed files.
+	 * @param fileTable The table of the repository; the files are listed in its id order.
+	 * @param files The files that were indexed, with their records (or null values if unknown).
+	 * @throws IOException if the log cannot be written.
+	 * @throws IllegalStateException if replay has not attached the log to a snapshot.
+	 */
+	public void append(BSTree<Word> added, FileTable fileTable, Map<String, FileInfo> files) throws IOException {
+
+		if (!isAttached()) throw new IllegalStateException("The log is not attached to a snapshot.");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		if (length == 0) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeLong(snapshotId);
+		}
+
+		byte[] payload = encodeBatch(added, fileTable, files);
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		out.writeInt(payload.length);
+		out.writeInt((int) crc.getValue());
+		out.write(payload);
+		out.flush();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+			channel.truncate(length);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining()) channel.write(buffer, length + buffer.position());
+			channel.force(false);
+
+		}
+
+		length += bytes.size();
+
+	}
+
+	/**
+	 * Deletes the log, after its occurrences have been compacted into a new snapshot.
+	 * The log is detached; replay must be called again before the next append.
+	 * @throws IOException if the file exists but cannot be deleted.
+	 */
+	public void delete() throws IOException {
+
+		Files.deleteIfExists(file.toPath());
+		snapshotId = -1;
+		length = 0;
+
+	}
+
+	/**
+	 * Reads the next batch payload, checking its length and checksum.
+	 * @param remaining The number of bytes left in the log.
+	 * @return The payload, or null at the end of the log or at a torn batch.
+	 */
+	private static byte[] readBatch(DataInputStream in, long remaining) throws IOException {
+
+		try {
+
+			int payloadLength = in.readInt();
+			int expected = in.readInt();
+			if (payloadLength < 0 || payloadLength > remaining - 8) return null;
+
+			byte[] payload = new byte[payloadLength];
+			in.readFully(payload);
+
+			CRC32 crc = new CRC32();
+			crc.update(payload, 0, payload.length);
+			return ((int) crc.getValue() == expected) ? payload : null;
+
+		}catch (EOFException e) {
+			return null;
+		}
+
+	}
+
+	/**
+	 * Encodes the words of a tree and the files they were indexed from as a batch payload.
+	 */
+	private static byte[] encodeBatch(BSTree<Word> added, FileTable fileTable, Map<String, FileInfo> files)
+			throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		Map<String, Integer> fileIndex = RepositoryFormat.fileTable(added, fileTable, files.keySet());
+		RepositoryFormat.writeVarInt(out, fileIndex.size());
+		for (String fileName : fileIndex.keySet()) {
+			RepositoryFormat.writeString(out, fileName);
+			FileInfo info = files.get(fileName);
+			if (info != null) info.writeTo(out);
+			else FileInfo.writeNone(out);
+		}
+
+		RepositoryFormat.writeVarInt(out, added.size());
+		Iterator<Word> iterator = added.inorderIterator();
+		while (iterator.hasNext()) RepositoryFormat.writeRecord(iterator.next(), fileIndex, out);
+
+		out.flush();
+		return bytes.toByteArray();
+
+	}
+
+	/**
+	 * Decodes a batch payload into a tree of its words, whose files are recorded in a table.
+	 * @param files Receives the files the batch indexed, with their records (null if unknown).
+	 */
+	private static BSTree<Word> decodeBatch(byte[] payload, FileTable fileTable, Map<String, FileInfo> files)
+			throws IOException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+		int[] fileIds = new int[RepositoryFormat.readVarInt(in)];
+		for (int i = 0; i < fileIds.length; i++) {
+			String fileName = RepositoryFormat.readString(in);
+			fileIds[i] = fileTable.id(fileName);
+			files.put(fileName, FileInfo.readFrom(in));
+		}
+
+		int wordCount = RepositoryFormat.readVarInt(in);
+		List<Word> words = new ArrayList<>(wordCount);
+		for (int w = 0; w < wordCount; w++) {
+			words.add(RepositoryFormat.readRecord(in, fileTable, fileIds));
+		}
+
+		BSTree<Word> batch = new AVLTree<>();
+		batch.loadSorted(words);
+		return batch;
+
+	}
+}
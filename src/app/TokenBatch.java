@@ -0,0 +1,274 @@
+package app;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+
+/**
+ * Collects the tokens of a file in chunks and applies each chunk to the repository tree at once,
+ * instead of looking every token up in the tree as it is read. The tokens of a chunk are grouped
+ * by word in a small hash table local to the chunk, the distinct words are sorted, and the tree is
+ * then visited once per distinct word in ascending order, each visit recording all the lines the
+ * word was found on. A word repeated a hundred times in a chunk costs one tree descent instead of a
+ * hundred, and consecutive descents follow nearly the same path, which stays in the CPU cache.
+ *
+ * Lines are recorded in the order they were read, so a Word ends up with exactly the occurrences
+ * the per-token path gives it. A batch is not thread-safe; each thread needs its own.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class TokenBatch {
+
+	// Up to 52 MiB of buffers per batch, and each worker thread has its own.
+	public static final int MAX_CAPACITY = 1 << 20;
+
+	private final int capacity; // Tokens per chunk, 0 when batching is disabled.
+	private char[] chars; // The characters of the distinct words of the chunk, one after another.
+	private int charCount;
+	private final int[] wordStart; // wordStart[w] is the index in chars of distinct word w.
+	private final int[] wordLength;
+	private final int[] firstLine; // Index in lines of the first occurrence of word w.
+	private final int[] lastLine; // Index in lines of the last occurrence of word w.
+	private int wordCount;
+	private boolean sorted; // order holds the distinct words in ascending order.
+	private final int[] lines; // lines[o] is the line number of occurrence o.
+	private final int[] nextLine; // Index in lines of the next occurrence of the same word, or -1.
+	private int lineCount;
+	private final int[] table; // Open-addressed hash table of word index + 1, 0 for an empty slot.
+	private final int[] order; // The distinct words sorted by their characters, filled by flush.
+	private final int[] scratch; // Merge buffer for sorting order.
+	private final Key key = new Key();
+
+	/**
+	 * Creates an empty batch.
+	 * @param capacity The number of tokens collected before they are applied to the tree; 0 disables
+	 * batching, so tokens are looked up one at a time.
+	 * @throws IllegalArgumentException if the capacity is negative or above MAX_CAPACITY.
+	 */
+	public TokenBatch(int capacity) {
+
+		if (capacity < 0 || capacity > MAX_CAPACITY) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+		this.capacity = capacity;
+		chars = new char[Math.min(capacity, 1 << 12) * 8]; // Grows with the words of the chunk.
+		wordStart = new int[capacity];
+		wordLength = new int[capacity];
+		firstLine = new int[capacity];
+		lastLine = new int[capacity];
+		lines = new int[capacity];
+		nextLine = new int[capacity];
+		table = new int[(capacity == 0) ? 0 : Integer.highestOneBit(capacity) << 2]; // At most half full.
+		order = new int[capacity];
+		scratch = new int[capacity];
+
+	}
+
+	/**
+	 * Returns the number of tokens collected before they are applied to the tree.
+	 * @return The capacity, 0 if batching is disabled.
+	 */
+	public int capacity() {
+
+		return capacity;
+
+	}
+
+	/**
+	 * Returns the number of tokens collected since the last flush.
+	 * @return The number of pending tokens.
+	 */
+	public int size() {
+
+		return lineCount;
+
+	}
+
+	/**
+	 * Adds a token to the chunk.
+	 * @param token The token to add; its characters are copied.
+	 * @param lineNumber The line the token was found on, not lower than that of the previous token.
+	 * @return true if the chunk is now full and must be flushed before the next token is added.
+	 * @throws IllegalStateException if batching is disabled or the chunk is already full.
+	 */
+	public boolean add(Tokenizer.Token token, int lineNumber) {
+
+		if (lineCount == capacity) throw new IllegalStateException("Batch is full.");
+
+		int hash = token.hash();
+		int mask = table.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		int word;
+
+		// Find the word of the chunk with the same characters, or the empty slot to add it in.
+		while (true) {
+			word = table[slot] - 1;
+			if (word < 0) {
+				word = addWord(token);
+				table[slot] = word + 1;
+				sorted = false;
+				break;
+			}
+			if (token.contentEquals(chars, wordStart[word], wordLength[word])) {
+				nextLine[lastLine[word]] = lineCount;
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		lines[lineCount] = lineNumber;
+		nextLine[lineCount] = -1;
+		lastLine[word] = lineCount;
+		return ++lineCount == capacity;
+
+	}
+
+	/**
+	 * Sorts the distinct words collected so far, which flush otherwise does first. This lets a
+	 * batch filled on one thread be sorted there too, before another thread applies it.
+	 */
+	public void sort() {
+
+		if (sorted) return;
+		for (int w = 0; w < wordCount; w++) order[w] = w;
+		sort(0, wordCount);
+		sorted = true;
+
+	}
+
+	/**
+	 * Applies the collected tokens to the tree and empties the batch: every distinct word is found
+	 * or added once, in ascending order, and all its lines are recorded on it.
+	 * @param tree The BST (repository) to update.
+	 * @param fileTable The table of the file ids recorded in the tree.
+	 * @param fileId The id of the file the tokens were read from.
+	 */
+	public void flush(BSTree<Word> tree, FileTable fileTable, int fileId) {
+
+		sort();
+		Function<Key, Word> newWord = k -> k.toWord(fileTable);
+
+		for (int i = 0; i < wordCount; i++) {
+			int w = order[i];
+			Word word = tree.computeIfAbsent(key.of(w), newWord);
+			for (int o = firstLine[w]; o >= 0; o = nextLine[o]) {
+				word.addOccurence(fileId, lines[o]);
+			}
+		}
+
+		clear();
+
+	}
+
+	/**
+	 * Discards the collected tokens without applying them.
+	 */
+	public void clear() {
+
+		if (wordCount > 0) Arrays.fill(table, 0);
+		charCount = 0;
+		wordCount = 0;
+		sorted = false;
+		lineCount = 0;
+
+	}
+
+	/**
+	 * Adds the characters of a token as a new distinct word of the chunk.
+	 * @param token The token.
+	 * @return The index of the new word.
+	 */
+	private int addWord(Tokenizer.Token token) {
+
+		int length = token.length();
+		if (charCount + length > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+		}
+		token.getChars(chars, charCount);
+
+		int word = wordCount++;
+		wordStart[word] = charCount;
+		wordLength[word] = length;
+		firstLine[word] = lineCount;
+		charCount += length;
+		return word;
+
+	}
+
+	/**
+	 * Merge sorts a range of order by the characters of the words, like String.compareTo.
+	 * @param from The first index of the range.
+	 * @param to The index after the last one.
+	 */
+	private void sort(int from, int to) {
+
+		if (to - from < 2) return;
+
+		int middle = (from + to) >>> 1;
+		sort(from, middle);
+		sort(middle, to);
+		if (compare(order[middle - 1], order[middle]) < 0) return; // Already in order.
+
+		System.arraycopy(order, from, scratch, from, to - from);
+		int left = from, right = middle;
+		for (int i = from; i < to; i++) {
+			if (right == to || left < middle && compare(scratch[left], scratch[right]) < 0) {
+				order[i] = scratch[left++];
+			} else {
+				order[i] = scratch[right++];
+			}
+		}
+
+	}
+
+	/**
+	 * Compares two distinct words of the chunk.
+	 * @param a The index of the first word.
+	 * @param b The index of the second word.
+	 * @return A negative integer, zero, or a positive integer as the first word is less than,
+	 * equal to, or greater than the second.
+	 */
+	private int compare(int a, int b) {
+
+		int startA = wordStart[a], startB = wordStart[b];
+		int limit = Math.min(wordLength[a], wordLength[b]);
+		for (int i = 0; i < limit; i++) {
+			int diff = chars[startA + i] - chars[startB + i];
+			if (diff != 0) return diff;
+		}
+		return wordLength[a] - wordLength[b];
+
+	}
+
+	/**
+	 * A reusable view of one distinct word of the chunk, for looking it up in the tree.
+	 */
+	private final class Key implements Comparable<Word> {
+
+		private int start;
+		private int length;
+
+		Key of(int word) {
+			start = wordStart[word];
+			length = wordLength[word];
+			return this;
+		}
+
+		@Override
+		public int compareTo(Word o) {
+			String other = o.getWord();
+			int limit = Math.min(length, other.length());
+			for (int i = 0; i < limit; i++) {
+				int diff = chars[start + i] - other.charAt(i);
+				if (diff != 0) return diff;
+			}
+			return length - other.length();
+		}
+
+		Word toWord(FileTable fileTable) {
+			return new Word(new String(chars, start, length), fileTable);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package app;
+
+import implementations.FileTable;
+import implementations.Word;
+
+/**
+ * Splits lines of text into the lower-case words stored by the Word Tracker.
+ * A word is a run of ASCII letters and digits; every other character separates words.
+ * This gives exactly the same tokens as cleaning a line with replaceAll("[^a-zA-Z0-9 ]", " "),
+ * lower-casing it and splitting on whitespace, but scans each character once with no regex
+ * and no intermediate Strings. The current token is exposed as a reusable view over an
+ * internal buffer, which only becomes a String when the caller asks for one. A line can also be
+ * scanned straight from the bytes of an ASCII-compatible encoding, where bytes of 0x80 and above
+ * (the parts of non-ASCII characters) separate words just as those characters do.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class Tokenizer {
+
+	private char[] buffer = new char[32]; // Holds the characters of the current token (already lower-cased).
+	private int length; // Number of characters of the current token in the buffer.
+	private CharSequence line; // The line being scanned, null when scanning bytes.
+	private byte[] bytes; // The bytes holding the line being scanned, null when scanning characters.
+	private int position; // Index of the next character (or byte) of the line to scan.
+	private int end; // Index after the last byte of the line, when scanning bytes.
+	private final Token token = new Token(); // Reusable view of the current token.
+
+	private static final char[] BYTE_WORD_CHARS = new char[256]; // toWordChar of each byte value.
+
+	static {
+		for (int b = 0; b < 256; b++) BYTE_WORD_CHARS[b] = (b < 0x80) ? toWordChar((char) b) : 0;
+	}
+
+	/**
+	 * Starts scanning a new line of text.
+	 * @param line The line to split into tokens.
+	 */
+	public void reset(CharSequence line) {
+
+		this.line = line;
+		this.bytes = null;
+		this.position = 0;
+		this.length = 0;
+
+	}
+
+	/**
+	 * Starts scanning a new line held as bytes of an ASCII-compatible encoding such as UTF-8.
+	 * The bytes are not copied, so they must not change until the line has been scanned.
+	 * @param bytes The array holding the line.
+	 * @param offset The index of the first byte of the line.
+	 * @param count The number of bytes in the line.
+	 */
+	public void reset(byte[] bytes, int offset, int count) {
+
+		this.line = null;
+		this.bytes = bytes;
+		this.position = offset;
+		this.end = offset + count;
+		this.length = 0;
+
+	}
+
+	/**
+	 * Advances to the next token of the current line.
+	 * @return true if a token was found, false if the end of the line was reached.
+	 */
+	public boolean next() {
+
+		if (bytes != null) return nextInBytes();
+
+		CharSequence text = line;
+		int end = text.length();
+		int i = position;
+		length = 0;
+
+		// Skip separators up to the start of the next token.
+		while (i < end && toWordChar(text.charAt(i)) == 0) i++;
+
+		// Copy the token, lower-casing it on the fly.
+		while (i < end) {
+			char c = toWordChar(text.charAt(i));
+			if (c == 0) break;
+			append(c);
+			i++;
+		}
+
+		position = i;
+		return length > 0;
+
+	}
+
+	/**
+	 * Advances to the next token of the current line of bytes.
+	 * @return true if a token was found, false if the end of the line was reached.
+	 */
+	private boolean nextInBytes() {
+
+		byte[] text = bytes;
+		char[] word = BYTE_WORD_CHARS;
+		int i = position;
+
+		// Skip separators, then find the end of the token and copy it lower-cased in one go.
+		while (i < end && word[text[i] & 0xFF] == 0) i++;
+		int start = i;
+		while (i < end && word[text[i] & 0xFF] != 0) i++;
+
+		length = i - start;
+		if (length > buffer.length) buffer = new char[Math.max(length, buffer.length * 2)];
+		char[] chars = buffer;
+		for (int j = 0; j < length; j++) chars[j] = word[text[start + j] & 0xFF];
+
+		position = i;
+		return length > 0;
+
+	}
+
+	/**
+	 * Retrieves the current token. The returned view is reused and overwritten by the next call to next().
+	 * @return The current token.
+	 */
+	public Token token() {
+
+		return token;
+
+	}
+
+	/**
+	 * Maps a character to its lower-case word character.
+	 * @param c The character to classify.
+	 * @return The lower-case letter or digit, or 0 if the character separates words.
+	 */
+	private static char toWordChar(char c) {
+
+		if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') return c;
+		if (c >= 'A' && c <= 'Z') return (char) (c + ('a' - 'A'));
+		return 0;
+
+	}
+
+	/**
+	 * Appends one character to the token buffer, growing it when needed.
+	 * @param c The character to append.
+	 */
+	private void append(char c) {
+
+		if (length == buffer.length) {
+			char[] bigger = new char[buffer.length * 2];
+			System.arraycopy(buffer, 0, bigger, 0, length);
+			buffer = bigger;
+		}
+		buffer[length++] = c;
+
+	}
+
+	/**
+	 * A read-only view of the current token. It can be compared directly against stored Words,
+	 * so a tree lookup by token needs no String at all.
+	 */
+	public final class Token implements CharSequence, Comparable<Word> {
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index: " + index);
+			return buffer[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		/**
+		 * Compares this token with a stored Word using the same ordering as String.compareTo.
+		 * @param o The Word to compare against.
+		 * @return A negative integer, zero, or a positive integer as this token is less than,
+		 * equal to, or greater than the word.
+		 */
+		@Override
+		public int compareTo(Word o) {
+			String other = o.getWord();
+			int limit = Math.min(length, other.length());
+			for (int i = 0; i < limit; i++) {
+				int diff = buffer[i] - other.charAt(i);
+				if (diff != 0) return diff;
+			}
+			return length - other.length();
+		}
+
+		/**
+		 * Computes the hash code the token would have as a String, without creating one.
+		 * @return The same value as toString().hashCode().
+		 */
+		public int hash() {
+			int h = 0;
+			for (int i = 0; i < length; i++) h = 31 * h + buffer[i];
+			return h;
+		}
+
+		/**
+		 * Copies the characters of the token into an array.
+		 * @param dst The array to copy into.
+		 * @param dstBegin The index in dst of the first character.
+		 * @throws IndexOutOfBoundsException if dst is too short.
+		 */
+		public void getChars(char[] dst, int dstBegin) {
+			System.arraycopy(buffer, 0, dst, dstBegin, length);
+		}
+
+		/**
+		 * Tells whether the token has the same characters as a range of an array.
+		 * @param chars The array holding the characters to compare against.
+		 * @param offset The index of the first character.
+		 * @param count The number of characters.
+		 * @return true if the token is exactly those characters.
+		 */
+		public boolean contentEquals(char[] chars, int offset, int count) {
+			if (count != length) return false;
+			for (int i = 0; i < count; i++) {
+				if (buffer[i] != chars[offset + i]) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Creates a new Word holding a copy of this token.
+		 * @param fileTable The table of the file ids the Word will record.
+		 * @return The new Word.
+		 */
+		public Word toWord(FileTable fileTable) {
+			return new Word(toString(), fileTable);
+		}
+
+		/**
+		 * Copies the token into a new String.
+		 */
+		@Override
+		public String toString() {
+			return new String(buffer, 0, length);
+		}
+	}
+}
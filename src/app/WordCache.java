@@ -0,0 +1,155 @@
+package app;
+
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+
+/**
+ * A small hash table of recently used Words placed in front of the repository tree while a file is
+ * indexed. Natural-language text is Zipfian, so a few hundred words make up most tokens; for those
+ * a lookup becomes one hash probe and one comparison instead of a descent of the tree. The tree
+ * stays the only complete, ordered record: a token not in the cache is looked up (or added) there
+ * as before, and the cache only holds references to Words that are in the tree.
+ *
+ * The table is bounded. Each token hashes to a pair of slots, and each slot keeps a small use count
+ * that a hit raises and a miss on the same pair lowers; a word is only evicted once its count has
+ * run down, so frequent words stay while a stream of rare ones passes through. Hits and misses are
+ * counted for the statistics report. A cache is not thread-safe and must only be used with one tree,
+ * as long as nothing else removes Words from it.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public class WordCache {
+
+	public static final int DEFAULT_CAPACITY = 1024;
+	// About 12 MiB of slots per cache, and each worker thread has its own.
+	public static final int MAX_CAPACITY = 1 << 20;
+	private static final int MAX_USES = 15; // A word survives at most this many misses in a row against its slot.
+
+	private final Word[] words; // The cached words, null for an empty slot; null altogether when disabled.
+	private final int[] hashes; // hashes[i] is the hash code of words[i], compared before the characters.
+	private final int[] uses; // uses[i] is the use count of words[i], 0 for an empty slot.
+	private long hits;
+	private long misses;
+
+	/**
+	 * Creates an empty cache.
+	 * @param capacity The number of words it can hold, rounded up to a power of two; 0 disables the
+	 * cache, so every lookup goes to the tree.
+	 * @throws IllegalArgumentException if the capacity is negative or above MAX_CAPACITY.
+	 */
+	public WordCache(int capacity) {
+
+		if (capacity < 0 || capacity > MAX_CAPACITY) throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+		if (capacity == 0) {
+			words = null;
+			hashes = null;
+			uses = null;
+		} else {
+			int slots = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+			words = new Word[slots];
+			hashes = new int[slots];
+			uses = new int[slots];
+		}
+
+	}
+
+	/**
+	 * Finds the stored Word for a token, or adds a new one to the tree, like
+	 * tree.computeIfAbsent(token, t -> t.toWord(fileTable)), trying the cache first.
+	 * @param tree The tree the cached words belong to.
+	 * @param fileTable The table of the file ids recorded by a new Word.
+	 * @param token The token to look up.
+	 * @return The Word stored in the tree.
+	 */
+	public Word lookup(BSTree<Word> tree, FileTable fileTable, Tokenizer.Token token) {
+
+		if (words == null) {
+			misses++;
+			return tree.computeIfAbsent(token, t -> t.toWord(fileTable));
+		}
+
+		int hash = token.hash();
+		int slot = (hash ^ (hash >>> 16)) & (words.length - 2); // The even slot of the pair.
+
+		for (int i = slot; i <= slot + 1; i++) {
+			Word word = words[i];
+			if (word != null && hashes[i] == hash && token.compareTo(word) == 0) {
+				hits++;
+				if (uses[i] < MAX_USES) uses[i]++;
+				return word;
+			}
+		}
+
+		misses++;
+		Word word = tree.computeIfAbsent(token, t -> t.toWord(fileTable));
+
+		// The less used slot of the pair loses a use, and goes to the new word once it has none left.
+		int victim = (uses[slot] <= uses[slot + 1]) ? slot : slot + 1;
+		if (uses[victim] > 0) uses[victim]--;
+		if (uses[victim] == 0) {
+			words[victim] = word;
+			hashes[victim] = hash;
+			uses[victim] = 1;
+		}
+
+		return word;
+
+	}
+
+	/**
+	 * Returns the number of words the cache can hold.
+	 * @return The capacity, 0 if the cache is disabled.
+	 */
+	public int capacity() {
+
+		return (words == null) ? 0 : words.length;
+
+	}
+
+	/**
+	 * Returns the number of lookups answered from the cache.
+	 * @return The hit count.
+	 */
+	public long getHits() {
+
+		return hits;
+
+	}
+
+	/**
+	 * Returns the number of lookups that went to the tree.
+	 * @return The miss count.
+	 */
+	public long getMisses() {
+
+		return misses;
+
+	}
+
+	/**
+	 * Adds the hit and miss counts of another cache to this one, e.g. to total the caches of several
+	 * worker threads. Safe to call from several threads at once.
+	 * @param other The cache whose counts to add.
+	 */
+	public synchronized void addCounts(WordCache other) {
+
+		hits += other.hits;
+		misses += other.misses;
+
+	}
+
+	/**
+	 * Formats the hit and miss counts.
+	 * @return A one-line summary.
+	 */
+	@Override
+	public String toString() {
+
+		long lookups = hits + misses;
+		return String.format("word cache: %d entries, %d lookups, %d hits (%.1f%%), %d misses",
+				capacity(), lookups, hits, (lookups == 0) ? 0.0 : 100.0 * hits / lookups, misses);
+
+	}
+}
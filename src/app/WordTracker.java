@@ -2,42 +2,88 @@ package app;
 
 import implementations.Word;
 import utilities.Iterator;
+import implementations.AVLTree;
 import implementations.BSTree;
-import implementations.BSTreeNode;
+import implementations.FileTable;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * The main application for the Word Tracker program.
  * It reads text files, stores unique words and their locations (file/line) in a Binary Search Tree (BST),
- * serializes the BST to a repository file for persistence, and generates reports based on command line flags.
+ * saves the BST to a binary repository file for persistence, and generates reports based on command line flags.
  *
  * @author  Precious, Monica, Jasmine, Mitali
  */
 
 public class WordTracker {
 	
-	private static final String REPO_FILE = "repository.ser";
+	private static final String REPO_FILE = "repository.wtr";
+	private static final String LEGACY_REPO_FILE = "repository.ser"; // Java serialization format of older versions.
+	private static final String LOG_FILE = "repository.log"; // Occurrences added since repository.wtr was written.
+	private static final long MIN_COMPACT_BYTES = 1 << 20; // The log is never compacted while smaller than this.
 	
 	/**
 	 * Main method to run the Word Tracker. Handles command-line arguments and orchestrates the process.
-	 * Expected arguments: <input.txt> -pf/-pl/-po [-f output.txt]
+	 * Expected arguments: [<input.txt|directory>...] -pf/-pl/-po [-f output.txt] [-w word | -prefix text | -range from to] [-b] [-t threads] [-cache entries] [-batch tokens] [-pipeline depth] [-stats]
+	 * Without input files the run is report-only: the saved repository is memory-mapped and the report
+	 * is produced straight from it, without loading the words into a tree. The optional -w switch limits
+	 * the report to a single word, -prefix to the words starting with some text, and -range to the words
+	 * between two words, inclusive; the matching words are found without visiting the others.
+	 * The optional -b switch stores the repository in a self-balancing AVL tree so sorted input
+	 * cannot degrade lookups to a linear scan.
+	 * The input is indexed in parallel on -t worker threads (default: one per available processor),
+	 * each taking an equal share of the bytes, split at line boundaries so a single large file is
+	 * shared too, and the results are merged into the repository.
+	 * Only the new occurrences are written: they are appended to repository.log, which is compacted
+	 * into repository.wtr once it grows to half the size of the repository. Until then the repository
+	 * is memory-mapped with the log overlaid, as for a report-only run, and never loaded into a tree;
+	 * each run still reads the whole log, which compaction keeps small next to the repository.
+	 * Files that are unchanged since they were last indexed are skipped; a changed file has its old
+	 * occurrences replaced by the new ones, so running twice over the same files counts nothing twice.
+	 * While a file is indexed, the most used words are kept in a hash cache in front of the tree, so
+	 * they are found without descending it; -cache sets how many words it holds (0 disables it,
+	 * at most 1048576).
+	 * With -batch, the tokens of a file are instead collected that many at a time (at most 1048576),
+	 * grouped by word and applied to the tree in sorted order, one descent per distinct word of each
+	 * chunk.
+	 * With -pipeline, each worker reads, tokenizes and indexes on three threads connected by queues
+	 * of that many blocks, in batches of the -batch size.
+	 * The optional -stats switch prints to the error stream, after the report, the shape (height,
+	 * average depth and balance factors) of the tree built from the input files and of the repository
+	 * tree, the hit rate of the word cache and the throughput of each pipeline stage. The repository
+	 * is then loaded into a tree instead of mapped.
 	 * @param args Command line arguments provided by the user.
 	 */
 	public static void main(String[] args) {
 		
-		// 1. Initial argument validation (minimum 2 arguments required)
-		if (args.length < 2) {
+		// 1. Initial argument validation (a flag is required; input files are optional)
+		int flagIndex = 0;
+		while (flagIndex < args.length && !args[flagIndex].startsWith("-")) flagIndex++;
+		
+		if (flagIndex == args.length) {
 			
-			System.out.println(" Use => java WordTracker <input.txt> -pf/-pl/-po [-f output.txt] ");
+			System.out.println(" Use => java WordTracker [<input.txt|directory>...] -pf/-pl/-po [-f output.txt] [-w word | -prefix text | -range from to] [-b] [-t threads] [-cache entries] [-batch tokens] [-pipeline depth] [-stats] ");
 			return;
 			
 		}
 		
-		String inputFile = args[0];
-		String flag = args[1];
+		String flag = args[flagIndex];
 		String outputFile = null;
+		String from = null; // The words to report: all of them, or from..to (inclusive), or those starting with from.
+		String to = null;
+		boolean prefix = false;
+		boolean balanced = false;
+		boolean stats = false;
+		int threads = 0;
+		int cacheCapacity = -1;
+		int batchCapacity = -1;
+		int pipelineDepth = -1;
 		
 		// 2. Mutual Exclusion Check: Ensure only one valid flag is used.
 		if (!flag.matches("-pf|-pl|-po")) {
@@ -45,83 +91,446 @@ public class WordTracker {
 			return;
 		}
 		
-		// 3. Optional output file check
-		if (args.length == 4 && args[2].equals("-f")) {
-			outputFile = args[3];
-		} else if (args.length > 2 && !(args.length == 4 && args[2].equals("-f"))) {
-			// Catch cases like 3 arguments or 4 arguments where the 3rd isn't -f
-			System.err.println("Error: Invalid argument format. Ensure flags are mutually exclusive and '-f' is followed by an output filename.");
+		// 3. Optional output file, word selection, balanced tree and thread count checks
+		for (int i = flagIndex + 1; i < args.length; i++) {
+			if (args[i].equals("-f") && i + 1 < args.length && outputFile == null) {
+				outputFile = args[++i];
+			} else if (args[i].equals("-w") && i + 1 < args.length && from == null) {
+				from = to = args[++i].toLowerCase(); // Words are stored in lowercase.
+			} else if (args[i].equals("-prefix") && i + 1 < args.length && from == null) {
+				from = to = args[++i].toLowerCase();
+				prefix = true;
+			} else if (args[i].equals("-range") && i + 2 < args.length && from == null) {
+				from = args[++i].toLowerCase();
+				to = args[++i].toLowerCase();
+			} else if (args[i].equals("-b") && !balanced) {
+				balanced = true;
+			} else if (args[i].equals("-stats") && !stats) {
+				stats = true;
+			} else if (args[i].equals("-t") && i + 1 < args.length && threads == 0 && args[i + 1].matches("[1-9][0-9]{0,3}")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-cache") && i + 1 < args.length && cacheCapacity < 0 && args[i + 1].matches("0|[1-9][0-9]{0,6}")
+					&& Integer.parseInt(args[i + 1]) <= WordCache.MAX_CAPACITY) {
+				cacheCapacity = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-batch") && i + 1 < args.length && batchCapacity < 0 && args[i + 1].matches("0|[1-9][0-9]{0,6}")
+					&& Integer.parseInt(args[i + 1]) <= TokenBatch.MAX_CAPACITY) {
+				batchCapacity = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-pipeline") && i + 1 < args.length && pipelineDepth < 0 && args[i + 1].matches("0|[1-9][0-9]{0,3}")) {
+				pipelineDepth = Integer.parseInt(args[++i]);
+			} else {
+				// Catch cases like a dangling -f, repeated switches or unknown arguments
+				System.err.println("Error: Invalid argument format. Ensure flags are mutually exclusive and '-f' is followed by an output filename.");
+				return;
+			}
+		}
+		
+		if (threads == 0) threads = Runtime.getRuntime().availableProcessors();
+		if (cacheCapacity < 0) cacheCapacity = WordCache.DEFAULT_CAPACITY;
+		
+		// Report-only run: nothing to index, so the repository is never loaded into a tree or saved.
+		if (flagIndex == 0) {
+			reportRepository(flag, outputFile, from, to, prefix, stats);
 			return;
 		}
-
 		
-		// 4. Loading or creating BST
-		BSTree<Word> tree = loadRepository();
+		List<String> inputFiles = expandInputs(Arrays.asList(args).subList(0, flagIndex));
+		if (inputFiles.isEmpty()) {
+			System.err.println("Error: No input files found. No words were processed.");
+			return;
+		}
+
 		
-		// 5. Reading input text file and adding words
-		// We only continue if the file processing is successful (returns true).
-		boolean success = processInputFile(inputFile, tree);
+		// 4. Mapping the saved repository with the logged occurrences overlaid, so an ingest that is
+		// only logged never loads it; it is loaded into a tree when it must be written out in full,
+		// when there is none to map, or for its statistics.
+		RepositoryLog log = new RepositoryLog(new File(LOG_FILE));
+		Map<String, FileInfo> indexedFiles = new HashMap<>();
+		MappedRepository mapped = stats ? null : mapRepository(log);
+		FileTable fileTable;
+		BSTree<Word> tree = null;
 		
-		if (success) {
-			// 6. Saving updated tree ONLY if the input file was processed successfully.
-			saveRepository(tree);
+		if (mapped != null) {
+			fileTable = mapped.getFileTable(); // The new files get the ids after those of the repository.
+			indexedFiles.putAll(mapped.getFiles());
 		} else {
-			// If file processing failed (e.g., FileNotFound), we stop here unless we explicitly want to run generateOutput on the old repo data.
-			System.err.println("Program terminated due to file processing error. Repository state unchanged.");
-			return;
+			fileTable = new FileTable(); // The file ids of this repository start at 0.
+			tree = loadRepository(balanced, fileTable, log, indexedFiles);
+		}
+		
+		BSTree<Word> added = null;
+		WordCache cache = new WordCache(cacheCapacity);
+		IngestPipeline pipeline = new IngestPipeline(Math.max(pipelineDepth, 0), IngestPipeline.DEFAULT_BLOCK);
+		
+		try {
+			
+			// 5. Reading the new or changed input files into a tree of just their occurrences
+			// We only continue if the file processing is successful (returns true).
+			List<String> filesToIndex = findChangedFiles(inputFiles, indexedFiles);
+			TokenBatch batch = new TokenBatch(Math.max(batchCapacity, 0));
+			
+			if (filesToIndex.isEmpty()) {
+				
+				System.err.println("All input files are unchanged since they were indexed.");
+				
+			} else {
+				
+				Map<String, FileInfo> readFiles = new LinkedHashMap<>(); // The records of the files as they were read.
+				added = newTree(balanced);
+				boolean success = (filesToIndex.size() == 1 && threads == 1 && !pipeline.isEnabled())
+						? processInputFile(filesToIndex.get(0), added, fileTable, cache, batch, readFiles)
+						: ParallelIngest.processInputFiles(filesToIndex, added, fileTable, threads, cache, batch, pipeline, readFiles);
+				
+				if (!success) {
+					// If file processing failed (e.g., FileNotFound), we stop here unless we explicitly want to run generateOutput on the old repo data.
+					System.err.println("Program terminated due to file processing error. Repository state unchanged.");
+					return;
+				}
+				
+				// 6. Saving the new occurrences ONLY if the input file was processed successfully.
+				if (tree != null) {
+					updateRepository(tree, added, fileTable, readFiles, indexedFiles, log);
+				} else {
+					boolean logged = appendBatch(added, fileTable, readFiles, log);
+					if (logged && !needsCompaction(log)) {
+						mapped.overlay(added, readFiles);
+					} else {
+						// The repository is written out in full, so it is loaded after all. Replaying the
+						// log includes this batch if it was logged; merging it again then replaces its
+						// own occurrences.
+						closeRepository(mapped);
+						mapped = null;
+						Map<String, FileInfo> loadedFiles = new HashMap<>();
+						tree = loadRepository(balanced, fileTable, log, loadedFiles);
+						loadedFiles.putAll(indexedFiles); // With the records of the touched but unchanged files.
+						indexedFiles = loadedFiles;
+						mergeBatch(tree, added, readFiles, indexedFiles);
+						compact(tree, fileTable, indexedFiles, log);
+					}
+				}
+				
+			}
+			
+			// 7. Generating output report
+			if (mapped != null) generateOutput(mapped, flag, outputFile, from, to, prefix);
+			else generateOutput(tree, flag, outputFile, from, to, prefix);
+			
+		}finally {
+			if (mapped != null) closeRepository(mapped);
+		}
+		
+		if (stats) {
+			if (added != null) {
+				printStatistics("indexed input", added);
+				System.err.println(cache);
+				if (pipeline.isEnabled()) System.err.println(pipeline);
+			}
+			printStatistics("repository", tree);
 		}
 		
-		// 7. Generating output report
-		generateOutput(tree, flag, outputFile);
+	}
+	
+	/**
+	 * Expands the input arguments into the list of files to index.
+	 * Directories are replaced by the regular files they contain (recursively, in sorted order);
+	 * any other argument is kept as given, so a missing file is still reported when it is processed.
+	 * @param inputs The input arguments from the command line.
+	 * @return The distinct input file paths, in command-line order.
+	 */
+	private static List<String> expandInputs(List<String> inputs) {
+		
+		Set<String> files = new LinkedHashSet<>();
+		
+		for (String input : inputs) {
+			
+			File file = new File(input);
+			
+			if (!file.isDirectory()) {
+				files.add(input);
+				continue;
+			}
+			
+			try (Stream<Path> paths = Files.walk(file.toPath())) {
+				
+				paths.filter(Files::isRegularFile).map(Path::toString).sorted().forEach(files::add);
+				
+			}catch (IOException | UncheckedIOException e) {
+				System.err.println("Error reading directory: " + input);
+			}
+			
+		}
+		
+		return new ArrayList<>(files);
 		
 	}
 		
 	/**
-	 * Loads the existing BST from the repository file (repository.ser).
+	 * Finds the input files that must be indexed: those never indexed, and those whose content
+	 * changed since. A file with its recorded size and modification time is skipped without being
+	 * read, and one with a new size is indexed without being read first. Only a file of the same size
+	 * but a new modification time is read here, to compare its checksum, so a file that was only
+	 * touched is skipped too. The files to index get their checksums while they are indexed.
+	 * @param inputFiles The input files.
+	 * @param indexedFiles The record of the indexed files; updated for touched but unchanged files.
+	 * @return The files to index, in input order.
+	 */
+	private static List<String> findChangedFiles(List<String> inputFiles, Map<String, FileInfo> indexedFiles) {
+		
+		List<String> changed = new ArrayList<>();
+		
+		for (String fileName : inputFiles) {
+			
+			File file = new File(fileName);
+			FileInfo recorded = indexedFiles.get(fileName);
+			if (recorded != null && recorded.isCurrent(file)) continue;
+			
+			if (recorded == null || file.length() != recorded.getSize()) {
+				changed.add(fileName); // Indexing it reports a missing or unreadable file.
+				continue;
+			}
+			
+			try {
+				FileInfo current = FileInfo.read(file);
+				if (recorded.sameContent(current)) {
+					indexedFiles.put(fileName, current); // Saved with the next full write of the repository.
+				} else {
+					changed.add(fileName);
+				}
+			}catch (IOException e) {
+				changed.add(fileName);
+			}
+			
+		}
+		
+		return changed;
+		
+	}
+	
+	/**
+	 * Loads the existing BST from the binary repository file (repository.wtr) and replays the
+	 * occurrences logged since it was written.
+	 * If only a repository.ser file from an older version exists, it is read with Java
+	 * serialization instead; the next save then writes it out in the binary format.
+	 * @param balanced true if the repository must be kept in a self-balancing AVL tree.
+	 * @param fileTable The empty table the words of the repository record their files in.
+	 * @param log The occurrence log; it is attached to the repository file if that exists.
+	 * @param indexedFiles Receives every file in the repository, with its record or null if it has none.
 	 * @return The restored BST or a new empty BST.
 	 */
-	private static BSTree<Word> loadRepository(){
+	private static BSTree<Word> loadRepository(boolean balanced, FileTable fileTable, RepositoryLog log,
+			Map<String, FileInfo> indexedFiles){
 			
 		File file = new File(REPO_FILE);
+		File legacyFile = new File(LEGACY_REPO_FILE);
 		
-		if (!file.exists()) {
+		if (!file.exists() && !legacyFile.exists()) {
 			
 			// If no repository file is found, start with a new, empty BST.
-			return new BSTree<>();
+			return newTree(balanced);
 			
 		}
 		
-		// Attempting to load the serialized BST
-		try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+		try {
 			
-			@SuppressWarnings("unchecked")
-			BSTree<Word> tree = (BSTree<Word>) ois.readObject();
+			if (file.exists()) {
+				
+				// The words are stored in sorted order, so the tree is rebuilt balanced in O(n).
+				BSTree<Word> tree = RepositoryFormat.read(file, balanced, indexedFiles, fileTable);
+				
+				try {
+					log.replay(file, tree, fileTable, indexedFiles);
+				}catch (IOException e) {
+					// The repository itself is fine; the log stays detached, so the next save writes
+					// the repository out in full and drops the log.
+					System.err.println("Error reading " + LOG_FILE + ". The occurrences logged since the last save are ignored.");
+					e.printStackTrace();
+				}
+				
+				return tree;
+				
+			}
+			
+			System.err.println("Migrating " + LEGACY_REPO_FILE + " to " + REPO_FILE + ".");
+			BSTree<Word> tree = loadLegacyRepository(legacyFile, balanced, fileTable);
 			
+			// A legacy repository has no file records, but its files must still be known to be in it,
+			// so indexing one again replaces its old occurrences.
+			Iterator<Word> iterator = tree.inorderIterator();
+			while (iterator.hasNext()) {
+				Word word = iterator.next();
+				for (int f = 0; f < word.getFileCount(); f++) indexedFiles.putIfAbsent(word.getFileName(f), null);
+			}
 			return tree;
 			
 		}catch (Exception e) {
 			
 			System.err.println("Error loading repository. Starting with a new tree.");
 			e.printStackTrace();
-			return new BSTree<>();
+			indexedFiles.clear();
+			return newTree(balanced);
 			
 		}
 	}
+	
+	/**
+	 * Loads a repository saved with Java serialization by earlier versions of the Word Tracker.
+	 * The restored tree is rebuilt from its in-order sequence, so even a degenerate tree comes back balanced.
+	 * @param file The serialized repository file.
+	 * @param balanced true if the repository must be kept in a self-balancing AVL tree.
+	 * @param fileTable The table the restored words record their files in.
+	 * @return The restored BST.
+	 * @throws IOException if the file cannot be read.
+	 * @throws ClassNotFoundException if the file holds an unknown class.
+	 */
+	private static BSTree<Word> loadLegacyRepository(File file, boolean balanced, FileTable fileTable)
+			throws IOException, ClassNotFoundException {
+		
+		try (ObjectInputStream ois = new FileTable.Reader(new BufferedInputStream(new FileInputStream(file)), fileTable)) {
+			
+			@SuppressWarnings("unchecked")
+			BSTree<Word> legacyTree = (BSTree<Word>) ois.readObject();
+			
+			// The words are taken straight from the in-order traversal, without collecting them first.
+			BSTree<Word> tree = newTree(balanced || legacyTree instanceof AVLTree);
+			tree.loadSorted(legacyTree.inorderIterator(), legacyTree.size());
+			return tree;
+			
+		}
+	}
+	
+	/**
+	 * Creates an empty repository tree of the requested kind.
+	 * @param balanced true for a self-balancing AVL tree, false for a plain BST.
+	 * @return A new, empty tree.
+	 */
+	private static BSTree<Word> newTree(boolean balanced) {
+		
+		return balanced ? new AVLTree<>() : new BSTree<>();
+		
+	}
+		
+	/**
+	 * Records the occurrences of this run and merges them into the repository tree, replacing
+	 * any occurrences recorded earlier for the same files.
+	 * They are appended to the log, which takes time proportional to the new data; the whole
+	 * repository is only written when there is no repository file to log against yet, or once
+	 * the log has grown to half the size of the repository file (compaction).
+	 * @param tree The repository, as loaded; it is rebuilt with the new occurrences.
+	 * @param added The occurrences found in the input files.
+	 * @param fileTable The table of the repository.
+	 * @param changedFiles The files that were indexed, with their new records.
+	 * @param indexedFiles The record of every file in the repository; updated with the changed files.
+	 * @param log The occurrence log, attached to the repository file by loadRepository.
+	 */
+	private static void updateRepository(BSTree<Word> tree, BSTree<Word> added, FileTable fileTable,
+			Map<String, FileInfo> changedFiles, Map<String, FileInfo> indexedFiles, RepositoryLog log) {
+		
+		boolean logged = appendBatch(added, fileTable, changedFiles, log);
+		mergeBatch(tree, added, changedFiles, indexedFiles);
+		if (!logged || needsCompaction(log)) compact(tree, fileTable, indexedFiles, log);
+		
+	}
+	
+	/**
+	 * Appends the occurrences of this run to the log.
+	 * @param added The occurrences found in the input files.
+	 * @param fileTable The table of the repository.
+	 * @param changedFiles The files that were indexed, with their new records.
+	 * @param log The occurrence log.
+	 * @return true if they were logged; false if the log is not attached to a repository file or
+	 *         cannot be written, so the repository must be written out in full instead.
+	 */
+	private static boolean appendBatch(BSTree<Word> added, FileTable fileTable, Map<String, FileInfo> changedFiles,
+			RepositoryLog log) {
+		
+		if (!log.isAttached()) return false;
+		
+		try {
+			log.append(added, fileTable, changedFiles);
+			return true;
+		}catch (IOException e) {
+			System.err.println("Error writing " + LOG_FILE + ". Saving the whole repository instead.");
+			e.printStackTrace();
+			return false;
+		}
+		
+	}
+	
+	/**
+	 * Tells whether the log has grown enough for the repository to be written out in full: to half
+	 * the size of the repository file, and at least MIN_COMPACT_BYTES.
+	 * @param log The occurrence log.
+	 * @return true if the log must be compacted into the repository file.
+	 */
+	private static boolean needsCompaction(RepositoryLog log) {
+		
+		return log.length() > Math.max(MIN_COMPACT_BYTES, new File(REPO_FILE).length() / 2);
+		
+	}
+	
+	/**
+	 * Merges the occurrences of this run into the repository tree, rebuilding it.
+	 * @param tree The repository.
+	 * @param added The occurrences found in the input files.
+	 * @param changedFiles The files that were indexed, with their new records.
+	 * @param indexedFiles The record of every file in the repository; updated with the changed files.
+	 */
+	private static void mergeBatch(BSTree<Word> tree, BSTree<Word> added, Map<String, FileInfo> changedFiles,
+			Map<String, FileInfo> indexedFiles) {
+		
+		// The new occurrences follow the ones already in the repository, word by word; the
+		// occurrences previously recorded for the changed files are dropped. Only files already in
+		// the repository can have any, so new files cost no pass over the repository.
+		Set<String> replaced = new HashSet<>();
+		for (String fileName : changedFiles.keySet()) {
+			if (indexedFiles.containsKey(fileName)) replaced.add(fileName);
+		}
+		tree.loadSorted(ParallelIngest.mergeReplacing(Arrays.asList(tree, added),
+				Arrays.asList(Collections.<String>emptySet(), replaced)));
+		
+		indexedFiles.putAll(changedFiles);
+		
+	}
+	
+	/**
+	 * Writes the repository out in full and deletes the log it replaces.
+	 * @param tree The repository.
+	 * @param fileTable The table of the repository.
+	 * @param indexedFiles The record of every file in the repository.
+	 * @param log The occurrence log.
+	 */
+	private static void compact(BSTree<Word> tree, FileTable fileTable, Map<String, FileInfo> indexedFiles,
+			RepositoryLog log) {
+		
+		if (!saveRepository(tree, fileTable, indexedFiles)) return;
 		
+		try {
+			log.delete();
+		}catch (IOException e) {
+			// Harmless: a log written for the previous repository file is ignored when loading.
+			System.err.println("Error deleting " + LOG_FILE + ".");
+		}
+		
+	}
+	
 	/**
-	 * Saves the current BST to the repository file (repository.ser) using Java serialization.
-	 * @param tree The BST to be serialized and saved.
+	 * Saves the current BST to the repository file (repository.wtr) in the binary repository format.
+	 * @param tree The BST to be saved.
+	 * @param fileTable The table of the repository.
+	 * @param indexedFiles The record of the indexed files.
+	 * @return true if the repository was saved.
 	 */
-	private static void saveRepository(BSTree<Word> tree) {
+	private static boolean saveRepository(BSTree<Word> tree, FileTable fileTable, Map<String, FileInfo> indexedFiles) {
 		
-		try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(REPO_FILE))) {
+		try {
 			
-			oos.writeObject(tree);
+			RepositoryFormat.write(tree, fileTable, indexedFiles, new File(REPO_FILE));
+			return true;
 			
 		}catch (Exception e) {
 			
 			System.err.println("Error saving repository.");
 			e.printStackTrace();
+			return false;
 			
 		}
 		
@@ -131,50 +540,64 @@ public class WordTracker {
 	 * Reads the input file, processes words, and updates/inserts them into the BST.
 	 * @param fileName The path/name of the file to process.
 	 * @param tree The BST (repository) to update.
+	 * @param fileTable The table of the file ids recorded in the tree.
+	 * @param cache The word cache in front of the tree, only used with this tree.
+	 * @param batch Collects the tokens into chunks applied to the tree at once, unless its capacity is 0.
+	 * @param files Receives the record of the file as it was read; may be null.
 	 * @return true if file processing was successful, false otherwise.
 	 */
-	private static boolean processInputFile(String fileName, BSTree<Word> tree) {
+	static boolean processInputFile(String fileName, BSTree<Word> tree, FileTable fileTable, WordCache cache,
+			TokenBatch batch, Map<String, FileInfo> files) {
+		
+		ParallelIngest.Segment whole = new ParallelIngest.Segment(fileName, 0, Long.MAX_VALUE);
+		if (!processInputFile(whole, tree, fileTable, cache, batch)) return false;
+		if (files != null) ParallelIngest.Segment.recordFiles(Collections.singletonList(whole), files);
+		return true;
 		
-		try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+	}
+		
+	/**
+	 * Reads part of the input file, a range of whole lines, processes words, and updates/inserts them into the BST.
+	 * The checksum and length of the part are kept in it once it has been read.
+	 * @param segment The part of the file to process, with the line number of its first line.
+	 * @param tree The BST (repository) to update.
+	 * @param fileTable The table of the file ids recorded in the tree.
+	 * @param cache The word cache in front of the tree, only used with this tree.
+	 * @param batch Collects the tokens into chunks applied to the tree at once, unless its capacity is 0.
+	 * @return true if file processing was successful, false otherwise.
+	 */
+	static boolean processInputFile(ParallelIngest.Segment segment, BSTree<Word> tree, FileTable fileTable,
+			WordCache cache, TokenBatch batch) {
+		
+		String fileName = segment.fileName;
+		
+		// Lines are scanned as bytes, without decoding or a String per line, when the platform charset allows it.
+		try (InputFile input = new InputFile(fileName, Charset.defaultCharset(), segment.start, segment.end)) {
 			
-			String line;
-			int lineNumber = 1;
+			int lineNumber = segment.firstLine;
+			int fileId = fileTable.id(fileName); // Looked up once; every occurrence records the id.
+			Tokenizer tokenizer = new Tokenizer();
+			boolean batched = batch.capacity() > 0;
+			batch.clear(); // Drops the tokens of a file that failed part way.
 			
-			while ((line = br.readLine()) != null ) {
-				
-				// Preprocessing: remove punctuation (keep letters, digits, and spaces) and convert to lowercase.
-				line = line.replaceAll("[^a-zA-Z0-9 ]", " ").toLowerCase();
-				
-				String[] words = line.split("\\s+");
+			// Starts the tokenizer on each line, which it splits into lowercase words (letters and
+			// digits); punctuation separates words.
+			while (input.readLine(tokenizer)) {
 				
-				for (String w : words) {
+				while (tokenizer.next()) {
 					
-					// Skip empty strings.
-					if (w.trim().isEmpty()) continue; 
-					
-					// Create a temporary Word object for searching.
-					Word temp = new Word(w);
-					
-					// Checking if word exists already using the BST search logic.
-					BSTreeNode<Word> node = tree.search(temp);
-					Word existing = (node != null) ? node.getData() : null;
-					
-					
-					if (existing == null) {
-						
-						// New word: record occurrence and add new node to BST.
-						Word newWord = new Word(w);
-						newWord.addOccurence(fileName, lineNumber);
-						tree.add(newWord);
-						
-						
-					}else {
-						
-						// Existing word: update the occurrence data on the existing Word object (mutation).
-						existing.addOccurence(fileName, lineNumber);
-						
+					if (batched) {
+						// Collect the token; a full chunk is grouped by word and applied to the BST in sorted order.
+						if (batch.add(tokenizer.token(), lineNumber)) batch.flush(tree, fileTable, fileId);
+						continue;
 					}
 					
+					// Find the stored Word in the cache, or else find it in a read-only descent of the BST, inserting it if new.
+					// The token is compared in place, so a String and a Word are only created for new words.
+					Word word = cache.lookup(tree, fileTable, tokenizer.token());
+					
+					// Update the occurrence data on the stored Word object (mutation).
+					word.addOccurence(fileId, lineNumber);
 					
 				}
 				
@@ -182,6 +605,8 @@ public class WordTracker {
 				
 			} 
 			
+			if (batched) batch.flush(tree, fileTable, fileId);
+			segment.recordRead(input);
 			return true; // Successfully processed the file.
 			
 		}catch (FileNotFoundException e) {
@@ -199,64 +624,232 @@ public class WordTracker {
 	}
 		
 	/**
-	 * Generates the final output report based on the flag and redirects output if specified.
-	 * @param tree The final, updated BST.
+	 * Produces a report from the saved repository without modifying it.
+	 * The repository file is memory-mapped, with the occurrences logged since it was written overlaid,
+	 * and formatted directly; only if it cannot be mapped (e.g. a legacy repository.ser, or a file in
+	 * another format), or if tree statistics are wanted, is it loaded into a tree instead.
+	 * A legacy repository.ser is the exception: once loaded it is saved as repository.wtr, so the
+	 * runs after this one map it instead of migrating it again.
+	 * @param flag The output format flag (-pf, -pl, -po).
+	 * @param outputFile The file to write to, or null for console output.
+	 * @param from The lowest word to report, or the prefix of the words to report, or null for all words.
+	 * @param to The highest word to report.
+	 * @param prefix Whether to report the words starting with from instead.
+	 * @param stats Whether to load the repository into a tree and print its shape statistics.
+	 */
+	private static void reportRepository(String flag, String outputFile, String from, String to, boolean prefix, boolean stats) {
+		
+		File file = new File(REPO_FILE);
+		RepositoryLog log = new RepositoryLog(new File(LOG_FILE));
+		MappedRepository repository = stats ? null : mapRepository(log);
+		
+		if (repository == null) {
+			boolean legacy = !file.exists() && new File(LEGACY_REPO_FILE).exists();
+			Map<String, FileInfo> indexedFiles = new HashMap<>();
+			FileTable fileTable = new FileTable();
+			BSTree<Word> tree = loadRepository(false, fileTable, log, indexedFiles);
+			// An empty tree means the legacy file could not be read; it is left for the next run to retry.
+			if (legacy && !tree.isEmpty()) saveRepository(tree, fileTable, indexedFiles);
+			generateOutput(tree, flag, outputFile, from, to, prefix);
+			if (stats) printStatistics("repository", tree);
+			return;
+		}
+		
+		generateOutput(repository, flag, outputFile, from, to, prefix);
+		closeRepository(repository);
+		
+	}
+	
+	/**
+	 * Maps the repository file and overlays the occurrences logged since it was written, so the
+	 * repository can be reported and extended without loading it into a tree. The log is attached
+	 * to the repository file, unless it cannot be read; its occurrences are then left out.
+	 * @param log The occurrence log.
+	 * @return The mapped repository, or null if there is no repository file or it cannot be mapped.
+	 */
+	private static MappedRepository mapRepository(RepositoryLog log) {
+		
+		File file = new File(REPO_FILE);
+		if (!file.exists()) return null;
+		
+		MappedRepository repository;
+		try {
+			repository = new MappedRepository(file);
+		}catch (IOException e) {
+			System.err.println("Cannot map repository (" + e.getMessage() + "). Loading it instead.");
+			return null;
+		}
+		
+		try {
+			repository.overlay(log);
+		}catch (IOException e) {
+			// The log stays detached, so the next save writes the repository out in full and drops the log.
+			System.err.println("Error reading " + LOG_FILE + ". The occurrences logged since the last save are ignored.");
+			e.printStackTrace();
+		}
+		
+		return repository;
+		
+	}
+	
+	/**
+	 * Closes a mapped repository.
+	 * @param repository The repository to close.
+	 */
+	private static void closeRepository(MappedRepository repository) {
+		
+		try {
+			repository.close();
+		}catch (IOException e) {
+			// Harmless: the file was only read.
+			System.err.println("Error closing " + REPO_FILE + ".");
+		}
+		
+	}
+	
+	/**
+	 * Prints the shape statistics of a tree to the error stream, apart from the report.
+	 * @param name What the tree holds.
+	 * @param tree The tree to measure.
+	 */
+	private static void printStatistics(String name, BSTree<Word> tree) {
+		
+		System.err.println("Tree statistics (" + name + "):");
+		System.err.println(tree.statistics());
+		
+	}
+	
+	/**
+	 * Builds the message printed when no word matches the -w, -prefix or -range selection.
+	 * @param from The word, the prefix or the lowest word of the range.
+	 * @param to The highest word of the range.
+	 * @param prefix Whether from is a prefix.
+	 * @return The message.
+	 */
+	private static String notFoundMessage(String from, String to, boolean prefix) {
+		
+		if (prefix) return "No words starting with '" + from + "' were found in the repository.";
+		if (from.equals(to)) return "Word '" + from + "' was not found in the repository.";
+		return "No words from '" + from + "' to '" + to + "' were found in the repository.";
+		
+	}
+	
+	/**
+	 * Opens a buffered writer for a report.
+	 * @param outputFile The file to write to, or null for console output.
+	 * @return The writer.
+	 * @throws IOException if the output file cannot be created.
+	 */
+	private static Writer openReportWriter(String outputFile) throws IOException {
+		
+		return (outputFile == null)
+				? new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16)
+				: new BufferedWriter(new FileWriter(outputFile), 1 << 16);
+		
+	}
+		
+	/**
+	 * Generates the output report from a mapped repository, formatting each word straight from the
+	 * mapping unless a logged batch changed it.
+	 * @param repository The mapped repository, with the logged occurrences overlaid.
 	 * @param flag The output format flag (-pf, -pl, -po).
 	 * @param outputFile The file to write to, or null for console output.
+	 * @param from The lowest word to report, or the prefix of the words to report, or null for all words.
+	 * @param to The highest word to report.
+	 * @param prefix Whether to report the words starting with from instead.
 	 */
-	private static void generateOutput(BSTree<Word> tree, String flag, String outputFile) {
-		
-		StringBuilder sb = new StringBuilder();
-		
-		// Use the in-order iterator for the required alphabetical order of words.
-		Iterator<Word> iterator = tree.inorderIterator();
-		
-		while (iterator.hasNext()) {
-			
-			Word w = iterator.next();
-			String line = "";
-			
-			// Selects the appropriate output formatting method based on the command-line flag.
-			switch (flag) {
-				case "-pf": 
-					line = w.toPFString();
-					break;
-				case "-pl":
-					line = w.toPLString();
-					break;
-				case "-po":
-					line = w.toPOString();
-					break;
-				// NOTE: Invalid flag check is already done in main, but left for redundancy.
-				default: 
-					System.out.println("Internal Error: Invalid flag passed to generateOutput.");
-					return;	
+	private static void generateOutput(MappedRepository repository, String flag, String outputFile, String from,
+			String to, boolean prefix) {
+		
+		try {
+			
+			Writer out = openReportWriter(outputFile);
+			
+			try {
+				
+				// The matching words are next to each other in the directory, between two binary searches.
+				int written = repository.generateOutput(flag, from, to, prefix, out);
+				if (from != null && written == 0) System.err.println(notFoundMessage(from, to, prefix));
+				
+			}finally {
+				// Never close the console stream; a report file is closed here.
+				if (outputFile == null) out.flush();
+				else out.close();
 			}
 			
-			sb.append(line).append("\n");
+		}catch (IOException e) {
+			
+			System.err.println("Error writing report" + (outputFile == null ? "." : " to output file: " + outputFile));
+			e.printStackTrace();
 			
 		}
 		
-		// Output to screen or file.
-		if (outputFile == null) {
-			
-			// Print the accumulated report to the console.
-			System.out.print(sb.toString());
+	}
+		
+	/**
+	 * Generates the final output report based on the flag and redirects output if specified.
+	 * Each line is written to a buffered writer as the iterator reaches its word, so the
+	 * report is never held in memory as a whole.
+	 * @param tree The final, updated BST.
+	 * @param flag The output format flag (-pf, -pl, -po).
+	 * @param outputFile The file to write to, or null for console output.
+	 * @param from The lowest word to report, or the prefix of the words to report, or null for all words.
+	 * @param to The highest word to report.
+	 * @param prefix Whether to report the words starting with from instead.
+	 */
+	private static void generateOutput(BSTree<Word> tree, String flag, String outputFile, String from, String to, boolean prefix) {
+		
+		// Use an in-order iterator for the required alphabetical order of words. A selection of words
+		// is found by descending the tree to the first one, instead of a traversal of all of them.
+		Iterator<Word> iterator;
+		if (from == null) iterator = tree.inorderIterator();
+		else if (prefix) iterator = tree.prefixIterator(Word.prefix(from));
+		else iterator = tree.subTree(new Word(from), new Word(to));
+		
+		if (from != null && !iterator.hasNext()) System.err.println(notFoundMessage(from, to, prefix));
+		
+		try {
 			
-		}else {
+			Writer out = openReportWriter(outputFile);
 			
-			// Write the report to the specified file using PrintWriter.
-			try (PrintWriter pw = new PrintWriter(new FileWriter(outputFile))) {
-				
-				pw.print(sb.toString());
-				
-			}catch (Exception e) {
+			try {
 				
-				System.err.println("Error writing report to output file: " + outputFile);
-				e.printStackTrace();
+				while (iterator.hasNext()) {
+					
+					Word w = iterator.next();
+					
+					// Selects the appropriate output formatting method based on the command-line flag.
+					switch (flag) {
+						case "-pf": 
+							w.appendPFTo(out);
+							break;
+						case "-pl":
+							w.appendPLTo(out);
+							break;
+						case "-po":
+							w.appendPOTo(out);
+							break;
+						// NOTE: Invalid flag check is already done in main, but left for redundancy.
+						default: 
+							System.out.println("Internal Error: Invalid flag passed to generateOutput.");
+							return;	
+					}
+					
+					out.append('\n');
+					
+				}
 				
+			}finally {
+				// Never close the console stream; a report file is closed here.
+				if (outputFile == null) out.flush();
+				else out.close();
 			}
 			
+		}catch (IOException e) {
+			
+			System.err.println("Error writing report" + (outputFile == null ? "." : " to output file: " + outputFile));
+			e.printStackTrace();
+			
 		}
 		
 	}
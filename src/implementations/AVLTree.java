@@ -0,0 +1,337 @@
+package implementations;
+
+import java.util.ArrayList;
+import java.util.function.Function;
+
+/**
+ * Self-balancing variant of the Binary Search Tree (an AVL tree).
+ * After every insertion or removal the heights of the affected nodes are updated and
+ * rotations are applied so the two subtrees of any node never differ in height by more than one.
+ * This keeps the height of the tree O(log n) even when the input is already sorted,
+ * which would otherwise degrade a plain BSTree into a linked list.
+ *
+ * @param <E> The type of element stored in the tree, which must extend Comparable.
+ * @author Precious, Monica, Jasmine, Mitali
+ */
+
+public class AVLTree<E extends Comparable<? super E>> extends BSTree<E>
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Default constructor for an empty AVL tree.
+	 */
+	public AVLTree()
+	{
+		super();
+	}
+
+	/**
+	 * Constructor for an AVL tree initialized with a single root entry.
+	 * @param newEntry The initial element for the root node.
+	 */
+	public AVLTree(E newEntry)
+	{
+		super(newEntry);
+	}
+
+	/**
+	 * Adds a new entry to the tree and rebalances the path back up to the root.
+	 * @param newEntry The element being added to the tree.
+	 * @return true if the element is added successfully.
+	 * @throws NullPointerException if the entry is null.
+	 */
+	@Override
+	public boolean add(E newEntry) throws NullPointerException {
+		if(newEntry == null)
+		{
+			throw new NullPointerException("Entry cannot be null.");
+		}
+
+		BSTreeNode<E> newNode = new BSTreeNode<E>(newEntry);
+		this.size ++;
+		this.modCount ++;
+
+		// Case 1: Empty tree. New entry becomes the root.
+		if (this.root == null)
+		{
+			this.root = newNode;
+			return true;
+		}
+
+		// Record the path from the root to the insertion point so it can be rebalanced afterwards.
+		ArrayList<BSTreeNode<E>> path = new ArrayList<BSTreeNode<E>>();
+		BSTreeNode<E> node = this.root;
+
+		while(true)
+		{
+			path.add(node);
+			node.setSize(node.getSize() + 1); // The new node goes somewhere below.
+
+			// Go left for less than or equal to (same duplicate handling as BSTree).
+			if(newEntry.compareTo(node.getData()) <= 0)
+			{
+				if(node.getLeft() == null)
+				{
+					node.setLeft(newNode);
+					break;
+				}
+				node = node.getLeft();
+			}
+			else
+			{
+				if(node.getRight() == null)
+				{
+					node.setRight(newNode);
+					break;
+				}
+				node = node.getRight();
+			}
+		}
+
+		rebalancePath(path);
+		return true;
+	}
+
+	/**
+	 * Finds the element equal to the key, or adds the element created by the mapping function
+	 * and rebalances. The descent from the root only reads the tree; when the key is not found, a
+	 * second descent collects the path that is rebalanced.
+	 * @param key The key of the element to find.
+	 * @param mappingFunction Creates the new element from the key when it is not found.
+	 * @return The element stored in the tree (existing or newly added).
+	 * @throws NullPointerException if the key is null or the mapping function returns null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E computeIfAbsent(K key, Function<? super K, ? extends E> mappingFunction) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+
+		BSTreeNode<E> node = this.root;
+		BSTreeNode<E> parent = null; // The last node visited, where a new node would be attached.
+		int comparison = 0;
+
+		while(node != null)
+		{
+			comparison = key.compareTo(node.getData());
+
+			if(comparison == 0)
+			{
+				return node.getData(); // Found: the tree is left untouched.
+			}
+
+			parent = node;
+			node = (comparison < 0) ? node.getLeft() : node.getRight();
+		}
+
+		E newEntry = mappingFunction.apply(key);
+		if(newEntry == null)
+		{
+			throw new NullPointerException("Mapping function returned null.");
+		}
+
+		BSTreeNode<E> newNode = new BSTreeNode<E>(newEntry);
+		this.size ++;
+		this.modCount ++;
+
+		if(parent == null)
+		{
+			this.root = newNode;
+			return newEntry;
+		}
+
+		// Only an insertion needs the path: the descent is repeated to collect it.
+		ArrayList<BSTreeNode<E>> path = new ArrayList<BSTreeNode<E>>();
+		for(node = this.root; node != parent; node = (key.compareTo(node.getData()) < 0) ? node.getLeft() : node.getRight())
+		{
+			path.add(node);
+		}
+		path.add(parent);
+
+		if(comparison < 0) parent.setLeft(newNode);
+		else parent.setRight(newNode);
+		
+		// Rebalancing may stop below the root, so every ancestor counts the new node first.
+		for(BSTreeNode<E> ancestor : path) ancestor.setSize(ancestor.getSize() + 1);
+
+		rebalancePath(path);
+		return newEntry;
+	}
+
+	/**
+	 * Removes the smallest element in the tree (the leftmost node) and rebalances.
+	 * @return The removed node, or null if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> removeMin() {
+		if(root == null)
+		{
+			return null;
+		}
+
+		ArrayList<BSTreeNode<E>> path = new ArrayList<BSTreeNode<E>>();
+		BSTreeNode<E> node = this.root;
+
+		// Find the leftmost node (the minimum), remembering its ancestors.
+		while(node.getLeft() != null)
+		{
+			path.add(node);
+			node.setSize(node.getSize() - 1);
+			node = node.getLeft();
+		}
+
+		this.size --;
+		this.modCount ++;
+
+		if(path.isEmpty())
+		{
+			// The root is the minimum: its right child (if any) becomes the new root.
+			this.root = node.getRight();
+		}
+		else
+		{
+			path.get(path.size()-1).setLeft(node.getRight());
+			rebalancePath(path);
+		}
+
+		return detach(node);
+	}
+
+	/**
+	 * Removes the largest element in the tree (the rightmost node) and rebalances.
+	 * @return The removed node, or null if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> removeMax() {
+		if(root == null)
+		{
+			return null;
+		}
+
+		ArrayList<BSTreeNode<E>> path = new ArrayList<BSTreeNode<E>>();
+		BSTreeNode<E> node = this.root;
+
+		// Find the rightmost node (the maximum), remembering its ancestors.
+		while(node.getRight() != null)
+		{
+			path.add(node);
+			node.setSize(node.getSize() - 1);
+			node = node.getRight();
+		}
+
+		this.size --;
+		this.modCount ++;
+
+		if(path.isEmpty())
+		{
+			// The root is the maximum: its left child (if any) becomes the new root.
+			this.root = node.getLeft();
+		}
+		else
+		{
+			path.get(path.size()-1).setRight(node.getLeft());
+			rebalancePath(path);
+		}
+
+		return detach(node);
+	}
+
+	/**
+	 * Walks a root-to-node path bottom-up, updating heights and rotating any unbalanced node.
+	 * Stops early once a subtree keeps both its root and its height, since nothing above it can change;
+	 * the callers have already updated the sizes along the path.
+	 * @param path The nodes visited from the root downwards.
+	 */
+	private void rebalancePath(ArrayList<BSTreeNode<E>> path) {
+		for (int i = path.size()-1; i >= 0; i--) {
+
+			BSTreeNode<E> node = path.get(i);
+			int oldHeight = node.getHeight();
+			BSTreeNode<E> subtree = rebalance(node);
+
+			if (subtree == node && subtree.getHeight() == oldHeight) {
+				return; // This subtree is unchanged, so its ancestors are too.
+			}
+
+			// Re-link the (possibly new) subtree root into its parent.
+			if (i == 0) {
+				this.root = subtree;
+			} else {
+				BSTreeNode<E> parent = path.get(i-1);
+				if (parent.getLeft() == node) parent.setLeft(subtree);
+				else parent.setRight(subtree);
+			}
+		}
+	}
+
+	/**
+	 * Restores the AVL property at a single node, whose children are already balanced.
+	 * @param node The node to rebalance.
+	 * @return The root of the rebalanced subtree.
+	 */
+	private BSTreeNode<E> rebalance(BSTreeNode<E> node) {
+		updateNode(node);
+		int balance = heightOf(node.getLeft()) - heightOf(node.getRight());
+
+		if (balance > 1) {
+			// Left-heavy. A left-right shape needs a preliminary left rotation of the child.
+			if (heightOf(node.getLeft().getLeft()) < heightOf(node.getLeft().getRight())) {
+				node.setLeft(rotateLeft(node.getLeft()));
+			}
+			return rotateRight(node);
+		}
+
+		if (balance < -1) {
+			// Right-heavy. A right-left shape needs a preliminary right rotation of the child.
+			if (heightOf(node.getRight().getRight()) < heightOf(node.getRight().getLeft())) {
+				node.setRight(rotateRight(node.getRight()));
+			}
+			return rotateLeft(node);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Rotates a subtree to the right: the left child becomes the new subtree root.
+	 * @param node The current subtree root.
+	 * @return The new subtree root.
+	 */
+	private BSTreeNode<E> rotateRight(BSTreeNode<E> node) {
+		BSTreeNode<E> pivot = node.getLeft();
+		node.setLeft(pivot.getRight());
+		pivot.setRight(node);
+		updateNode(node);
+		updateNode(pivot);
+		return pivot;
+	}
+
+	/**
+	 * Rotates a subtree to the left: the right child becomes the new subtree root.
+	 * @param node The current subtree root.
+	 * @return The new subtree root.
+	 */
+	private BSTreeNode<E> rotateLeft(BSTreeNode<E> node) {
+		BSTreeNode<E> pivot = node.getRight();
+		node.setRight(pivot.getLeft());
+		pivot.setLeft(node);
+		updateNode(node);
+		updateNode(pivot);
+		return pivot;
+	}
+
+	/**
+	 * Isolates a removed node before it is handed back to the caller.
+	 * @param node The removed node.
+	 * @return The same node with no children.
+	 */
+	private BSTreeNode<E> detach(BSTreeNode<E> node) {
+		node.setLeft(null);
+		node.setRight(null);
+		node.setHeight(1);
+		node.setSize(1);
+		return node;
+	}
+}
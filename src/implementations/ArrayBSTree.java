@@ -0,0 +1,800 @@
+package implementations;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import utilities.BSTreeADT;
+
+import utilities.Iterator;
+
+
+/**
+ * Binary Search Tree based on the BSTreeADT interface that stores its nodes in parallel arrays
+ * instead of one BSTreeNode object per element. A node is an index: the element is kept in an
+ * Object array and its two children side by side in an int array, with -1 for a missing child.
+ * This saves the object header and the references of every node (12 bytes per node instead of 32).
+ * Nodes are stored in the order they are added, or in pre-order after loadSorted, which keeps the
+ * top of the tree, visited by every search, in a few cache lines.
+ *
+ * The ordering rules are the same as BSTree: duplicates go to the left and the tree is not rebalanced.
+ * Since there are no node objects, search, getRoot, removeMin and removeMax return a new, detached
+ * BSTreeNode holding the element, without children; use find or contains for allocation-free lookups.
+ *
+ * @param <E> The type of element stored in the tree, which must extend Comparable.
+ * @author Precious, Monica, Jasmine, Mitali
+ */
+
+public class ArrayBSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final int NIL = -1; // The index of a missing node.
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] elements; // The element of each node.
+	private int[] links; // The left and right child of each node, side by side; the left one also links the free slots.
+	private int root = NIL; // The index of the top node of the tree.
+	private int size; // Tracks the total number of elements in the tree.
+	private int used; // Slots handed out so far; the ones below this are either nodes or free.
+	private int free = NIL; // The first slot freed by a removal, reused before growing the arrays.
+	protected transient int modCount; // Counts structural changes so iterators can fail fast.
+
+
+	/**
+	 * Default constructor for an empty tree.
+	 */
+	public ArrayBSTree()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor for an empty tree with room for a number of elements before the arrays grow.
+	 * @param initialCapacity The number of elements expected.
+	 * @throws IllegalArgumentException if the capacity is negative.
+	 */
+	public ArrayBSTree(int initialCapacity)
+	{
+		if (initialCapacity < 0) throw new IllegalArgumentException("Capacity cannot be negative.");
+		this.elements = new Object[initialCapacity];
+		this.links = new int[2 * initialCapacity];
+	}
+
+	/**
+	 * Constructor for a tree initialized with a single root entry.
+	 * @param newEntry The initial element for the root node.
+	 */
+	public ArrayBSTree(E newEntry)
+	{
+		this();
+		this.root = newNode(newEntry);
+		this.size = 1;
+	}
+
+	/**
+	 * Retrieves a copy of the root node of the tree.
+	 * @return A detached node holding the root element.
+	 * @throws NullPointerException if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> getRoot() throws NullPointerException {
+		if(root == NIL)
+		{
+			// Check if the tree is empty before returning the root.
+			throw new NullPointerException("the tree is empty");
+		}
+		return new BSTreeNode<E>(element(root));
+	}
+
+	/**
+	 * Determines the height of the tree (number of levels).
+	 * The walk uses an explicit stack, so a degenerate tree cannot overflow the call stack.
+	 * @return The height of the tree, 0 if it is empty.
+	 */
+	@Override
+	public int getHeight() {
+		int height = 0;
+		IntStack nodes = new IntStack();
+		IntStack depths = new IntStack();
+
+		if (root != NIL)
+		{
+			nodes.push(root);
+			depths.push(1);
+		}
+		while (!nodes.isEmpty())
+		{
+			int node = nodes.pop();
+			int depth = depths.pop();
+			height = Math.max(height, depth);
+
+			if (left(node) != NIL)
+			{
+				nodes.push(left(node));
+				depths.push(depth + 1);
+			}
+			if (right(node) != NIL)
+			{
+				nodes.push(right(node));
+				depths.push(depth + 1);
+			}
+		}
+		return height;
+	}
+
+	/**
+	 * Returns the number of elements currently stored in the tree.
+	 * @return The size of the tree.
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Checks if the tree contains any elements.
+	 * @return true if the tree has no root, indicating an empty tree.
+	 */
+	@Override
+	public boolean isEmpty() {
+		return root == NIL;
+	}
+
+	/**
+	 * Clears the tree and releases its arrays.
+	 */
+	@Override
+	public void clear() {
+		this.elements = new Object[DEFAULT_CAPACITY];
+		this.links = new int[2 * DEFAULT_CAPACITY];
+		this.root = NIL;
+		this.size = 0;
+		this.used = 0;
+		this.free = NIL;
+		this.modCount ++;
+	}
+
+	/**
+	 * Replaces the contents of the tree with the given elements, which must already be in sorted order.
+	 * The middle element of every range becomes the subtree root, so the result is height-balanced,
+	 * and the nodes are laid out in pre-order so a search walks forward through the arrays.
+	 * @param sorted The elements in ascending order, in a random-access list.
+	 * @throws NullPointerException if the list contains a null element.
+	 */
+	public void loadSorted(List<? extends E> sorted) throws NullPointerException {
+		int capacity = Math.max(sorted.size(), DEFAULT_CAPACITY);
+		this.elements = new Object[capacity];
+		this.links = new int[2 * capacity];
+		this.used = 0;
+		this.free = NIL;
+		this.root = buildBalanced(sorted, 0, sorted.size()-1);
+		this.size = sorted.size();
+		this.modCount ++;
+	}
+
+	/**
+	 * Recursive helper that builds a balanced subtree from a sorted range (recursion depth is O(log n)).
+	 * @param sorted The elements in ascending order.
+	 * @param low The first index of the range.
+	 * @param high The last index of the range.
+	 * @return The index of the subtree root, or NIL for an empty range.
+	 */
+	private int buildBalanced(List<? extends E> sorted, int low, int high) {
+		if (low > high) return NIL;
+
+		int middle = (low + high) >>> 1;
+		E data = sorted.get(middle);
+		if (data == null) throw new NullPointerException("Entry cannot be null.");
+
+		int node = newNode(data);
+		setLeft(node, buildBalanced(sorted, low, middle-1));
+		setRight(node, buildBalanced(sorted, middle+1, high));
+		return node;
+	}
+
+	/**
+	 * Checks if the tree contains a specific entry.
+	 * @param entry The element to check for.
+	 * @return true if the element is found, false otherwise.
+	 * @throws NullPointerException if the entry is null.
+	 */
+	@Override
+	public boolean contains(E entry) throws NullPointerException {
+		return indexOf(entry) != NIL;
+	}
+
+	/**
+	 * Finds the stored element equal to a key, which need not be an element itself, without allocating.
+	 * @param key The key of the element being searched.
+	 * @return The element stored in the tree, or null if not found.
+	 * @throws NullPointerException if the key is null.
+	 */
+	public <K extends Comparable<? super E>> E find(K key) throws NullPointerException {
+		int node = indexOf(key);
+		return (node == NIL) ? null : element(node);
+	}
+
+	/**
+	 * Searches for the node containing the specified entry.
+	 * @param entry The element object being searched.
+	 * @return A detached node holding the found element, or null if not found.
+	 * @throws NullPointerException if the entry being passed in is null.
+	 */
+	@Override
+	public BSTreeNode<E> search(E entry) throws NullPointerException {
+		int node = indexOf(entry);
+		return (node == NIL) ? null : new BSTreeNode<E>(element(node));
+	}
+
+	/**
+	 * Iterative search from the root.
+	 * @param entry The element or key being searched.
+	 * @return The index of the node holding the element, or NIL if not found.
+	 * @throws NullPointerException if the entry is null.
+	 */
+	private int indexOf(Comparable<? super E> entry) throws NullPointerException {
+		if(entry == null)
+		{
+			throw new NullPointerException("Entry cannot be null.");
+		}
+
+		int node = this.root;
+		while(node != NIL)
+		{
+			int comparison = entry.compareTo(element(node));
+
+			if(comparison == 0)
+			{
+				return node;
+			}
+			// Move to the right subtree if the entry is greater, to the left one otherwise.
+			node = (comparison > 0) ? right(node) : left(node);
+		}
+
+		return NIL; // Not found.
+	}
+
+	/**
+	 * Finds the largest element less than or equal to a key.
+	 * @param key The key to compare the elements against.
+	 * @return The largest element not greater than the key, or null if there is none.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E floor(K key) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+
+		int floor = NIL;
+		int node = this.root;
+		while(node != NIL)
+		{
+			int comparison = key.compareTo(element(node));
+			if(comparison == 0)
+			{
+				return element(node);
+			}
+			if(comparison > 0)
+			{
+				// Candidate; a closer one can only be in the right subtree.
+				floor = node;
+				node = right(node);
+			}
+			else
+			{
+				node = left(node);
+			}
+		}
+		return (floor == NIL) ? null : element(floor);
+	}
+
+	/**
+	 * Finds the smallest element greater than or equal to a key.
+	 * @param key The key to compare the elements against.
+	 * @return The smallest element not less than the key, or null if there is none.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E ceiling(K key) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+
+		int ceiling = NIL;
+		int node = this.root;
+		while(node != NIL)
+		{
+			int comparison = key.compareTo(element(node));
+			if(comparison == 0)
+			{
+				return element(node);
+			}
+			if(comparison < 0)
+			{
+				// Candidate; a closer one can only be in the left subtree.
+				ceiling = node;
+				node = left(node);
+			}
+			else
+			{
+				node = right(node);
+			}
+		}
+		return (ceiling == NIL) ? null : element(ceiling);
+	}
+
+	/**
+	 * Adds a new entry to the tree in its correct sorted position.
+	 * @param newEntry The element being added to the tree.
+	 * @return true if the element is added successfully.
+	 * @throws NullPointerException if the entry is null.
+	 */
+	@Override
+	public boolean add(E newEntry) throws NullPointerException {
+		if(newEntry == null)
+		{
+			throw new NullPointerException("Entry cannot be null.");
+		}
+
+		int parent = NIL;
+		boolean goLeft = false;
+		int node = this.root;
+
+		// Iteratively find the insertion point. Duplicates go to the left.
+		while(node != NIL)
+		{
+			parent = node;
+			goLeft = newEntry.compareTo(element(node)) <= 0;
+			node = goLeft ? left(node) : right(node);
+		}
+
+		attach(parent, goLeft, newNode(newEntry));
+		return true;
+	}
+
+	/**
+	 * Finds the element equal to the key, or adds the element created by the mapping function,
+	 * using a single descent from the root.
+	 * @param key The key of the element to find.
+	 * @param mappingFunction Creates the new element from the key when it is not found.
+	 * @return The element stored in the tree (existing or newly added).
+	 * @throws NullPointerException if the key is null or the mapping function returns null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E computeIfAbsent(K key, Function<? super K, ? extends E> mappingFunction) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+
+		int parent = NIL; // The last node visited, where a new node would be attached.
+		int comparison = 0;
+		int node = this.root;
+
+		while(node != NIL)
+		{
+			comparison = key.compareTo(element(node));
+
+			if(comparison == 0)
+			{
+				return element(node); // Found: no insertion needed.
+			}
+
+			parent = node;
+			node = (comparison < 0) ? left(node) : right(node);
+		}
+
+		E newEntry = mappingFunction.apply(key);
+		if(newEntry == null)
+		{
+			throw new NullPointerException("Mapping function returned null.");
+		}
+
+		attach(parent, comparison < 0, newNode(newEntry));
+		return newEntry;
+	}
+
+	/**
+	 * Removes the smallest element in the tree (the leftmost node).
+	 * @return A detached node holding the removed element, or null if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> removeMin() {
+		if(root == NIL)
+		{
+			return null;
+		}
+
+		int parent = NIL;
+		int node = this.root;
+		while(left(node) != NIL)
+		{
+			parent = node;
+			node = left(node);
+		}
+
+		// The minimum's right subtree takes its place.
+		if(parent == NIL) this.root = right(node);
+		else setLeft(parent, right(node));
+
+		return new BSTreeNode<E>(release(node));
+	}
+
+	/**
+	 * Removes the largest element in the tree (the rightmost node).
+	 * @return A detached node holding the removed element, or null if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> removeMax() {
+		if(root == NIL)
+		{
+			return null;
+		}
+
+		int parent = NIL;
+		int node = this.root;
+		while(right(node) != NIL)
+		{
+			parent = node;
+			node = right(node);
+		}
+
+		// The maximum's left subtree takes its place.
+		if(parent == NIL) this.root = left(node);
+		else setRight(parent, left(node));
+
+		return new BSTreeNode<E>(release(node));
+	}
+
+	/**
+	 * Retrieves the element of a node.
+	 * @param node The index of the node.
+	 * @return Its element.
+	 */
+	@SuppressWarnings("unchecked")
+	private E element(int node) {
+		return (E) elements[node];
+	}
+
+	/**
+	 * Retrieves the left child of a node.
+	 * @param node The index of the node.
+	 * @return The index of the left child, or NIL.
+	 */
+	private int left(int node) {
+		return links[node << 1];
+	}
+
+	/**
+	 * Retrieves the right child of a node.
+	 * @param node The index of the node.
+	 * @return The index of the right child, or NIL.
+	 */
+	private int right(int node) {
+		return links[(node << 1) | 1];
+	}
+
+	/**
+	 * Links the left child of a node.
+	 * @param node The index of the node.
+	 * @param child The index of the child, or NIL.
+	 */
+	private void setLeft(int node, int child) {
+		links[node << 1] = child;
+	}
+
+	/**
+	 * Links the right child of a node.
+	 * @param node The index of the node.
+	 * @param child The index of the child, or NIL.
+	 */
+	private void setRight(int node, int child) {
+		links[(node << 1) | 1] = child;
+	}
+
+	/**
+	 * Takes a slot for a new leaf, reusing a freed slot first and growing the arrays by half when full.
+	 * @param data The element of the node.
+	 * @return The index of the new node.
+	 */
+	private int newNode(E data) {
+		int node;
+		if (free != NIL)
+		{
+			node = free;
+			free = left(node);
+		}
+		else
+		{
+			if (used == elements.length)
+			{
+				int capacity = Math.max(DEFAULT_CAPACITY, used + (used >> 1));
+				elements = Arrays.copyOf(elements, capacity);
+				links = Arrays.copyOf(links, 2 * capacity);
+			}
+			node = used++;
+		}
+		elements[node] = data;
+		setLeft(node, NIL);
+		setRight(node, NIL);
+		return node;
+	}
+
+	/**
+	 * Links a new node under its parent and counts it.
+	 * @param parent The parent, or NIL if the node becomes the root.
+	 * @param asLeft true to attach it as the left child.
+	 * @param node The new node.
+	 */
+	private void attach(int parent, boolean asLeft, int node) {
+		if (parent == NIL) this.root = node;
+		else if (asLeft) setLeft(parent, node);
+		else setRight(parent, node);
+		this.size ++;
+		this.modCount ++;
+	}
+
+	/**
+	 * Puts the slot of a node that was unlinked from the tree on the free list.
+	 * @param node The index of the node.
+	 * @return The element it held.
+	 */
+	private E release(int node) {
+		E data = element(node);
+		elements[node] = null; // Lets the element be collected.
+		setLeft(node, free);
+		setRight(node, NIL);
+		free = node;
+		this.size --;
+		this.modCount ++;
+		return data;
+	}
+
+
+	/**
+	 * Generates an in-order iteration over the contents of the tree.
+	 * Traversal order: Left -> Root -> Right (results in sorted/alphabetical order).
+	 * The iteration is lazy: it only holds the path to the next node on a stack (O(height)),
+	 * and fails fast if the tree is structurally modified while it is in progress.
+	 * @return An iterator with the elements in the natural order.
+	 */
+	@Override
+	public Iterator<E> inorderIterator() {
+		return new InorderIterator();
+	}
+
+	/**
+	 * Generates a pre-order iteration over the contents of the tree.
+	 * Traversal order: Root -> Left -> Right.
+	 * The iteration is lazy and fails fast, like the in-order iterator.
+	 * @return An iterator with the elements in pre-order.
+	 */
+	@Override
+	public Iterator<E> preorderIterator() {
+		return new PreorderIterator();
+	}
+
+	/**
+	 * Generates a post-order iteration over the contents of the tree.
+	 * Traversal order: Left -> Right -> Root.
+	 * The iteration is lazy and fails fast, like the in-order iterator.
+	 * @return An iterator with the elements in post-order.
+	 */
+	@Override
+	public Iterator<E> postorderIterator() {
+		return new PostorderIterator();
+	}
+
+	/**
+	 * Generates an in-order iteration over the elements between two keys, inclusive.
+	 * The iteration is lazy and fails fast, like the in-order iterator; it only descends into
+	 * subtrees that can hold elements of the range, so it costs O(height + k) for k elements.
+	 * @param from The lowest key of the range.
+	 * @param to The highest key of the range.
+	 * @return An iterator with the elements in the range, empty if from is greater than to.
+	 * @throws NullPointerException if either key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> Iterator<E> subTree(K from, K to) throws NullPointerException {
+		if(from == null || to == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+		return new RangeIterator(from, to);
+	}
+
+	/**
+	 * Generates an in-order iteration over the elements that compare equal to a key,
+	 * e.g. the words starting with a prefix when given Word.prefix.
+	 * @param prefix The key the elements must compare equal to.
+	 * @return An iterator with the matching elements in the natural order.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> Iterator<E> prefixIterator(K prefix) throws NullPointerException {
+		return subTree(prefix, prefix);
+	}
+
+	/**
+	 * A growable stack of node indexes, so traversals do not box them.
+	 */
+	private static class IntStack {
+
+		private int[] values = new int[32];
+		private int count;
+
+		void push(int value) {
+			if (count == values.length) values = Arrays.copyOf(values, count * 2);
+			values[count++] = value;
+		}
+
+		int pop() {
+			return values[--count];
+		}
+
+		int peek() {
+			return values[count-1];
+		}
+
+		boolean isEmpty() {
+			return count == 0;
+		}
+	}
+
+	/**
+	 * Base class for the lazy traversal iterators.
+	 * Keeps the stack of pending nodes and the modification count seen at creation time.
+	 */
+	private abstract class TreeIterator implements Iterator<E> {
+
+		protected final IntStack stack = new IntStack(); // Pending nodes.
+		private final int expectedModCount = modCount; // Tree version this iterator is walking.
+
+		/**
+		 * Checks if the iteration has more elements.
+		 * @return true if there are still nodes waiting on the stack.
+		 */
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+
+		/**
+		 * Returns the next element in the traversal.
+		 * @return The next element.
+		 * @throws NoSuchElementException If the iteration has no more elements.
+		 * @throws ConcurrentModificationException If the tree changed since the iterator was created.
+		 */
+		@Override
+		public E next() throws NoSuchElementException {
+			if (modCount != expectedModCount) throw new ConcurrentModificationException("Tree was modified during iteration.");
+			if (!hasNext()) throw new NoSuchElementException("No more elements in the iteration.");
+
+			return element(advance(stack.pop()));
+		}
+
+		/**
+		 * Pushes the nodes that follow the popped node in this traversal order.
+		 * @param node The node just popped off the stack.
+		 * @return The node to visit.
+		 */
+		protected abstract int advance(int node);
+
+		/**
+		 * Pushes a node and its chain of left children.
+		 * @param node The top of the chain, or NIL.
+		 */
+		protected void pushLeftSpine(int node) {
+			while (node != NIL) {
+				stack.push(node);
+				node = left(node);
+			}
+		}
+	}
+
+	/**
+	 * Lazy in-order iterator: the stack holds the left spine of the unvisited part of the tree.
+	 */
+	private class InorderIterator extends TreeIterator {
+
+		InorderIterator() {
+			pushLeftSpine(root);
+		}
+
+		@Override
+		protected int advance(int node) {
+			// The next node in order is the leftmost node of the right subtree.
+			pushLeftSpine(right(node));
+			return node;
+		}
+	}
+
+	/**
+	 * Lazy in-order iterator over a range: the stack starts with the nodes on the path to the
+	 * first element of the range that are not below it, and the iteration ends at the first
+	 * element past the range.
+	 */
+	private class RangeIterator extends TreeIterator {
+
+		private final Comparable<? super E> to;
+
+		RangeIterator(Comparable<? super E> from, Comparable<? super E> to) {
+			this.to = to;
+			int node = root;
+			while (node != NIL) {
+				// Nodes below from are skipped along with their left subtrees.
+				if (from.compareTo(element(node)) <= 0) {
+					stack.push(node);
+					node = left(node);
+				} else {
+					node = right(node);
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty() && to.compareTo(element(stack.peek())) >= 0;
+		}
+
+		@Override
+		protected int advance(int node) {
+			pushLeftSpine(right(node));
+			return node;
+		}
+	}
+
+	/**
+	 * Lazy pre-order iterator: the stack holds the roots of the subtrees still to visit.
+	 */
+	private class PreorderIterator extends TreeIterator {
+
+		PreorderIterator() {
+			if (root != NIL) stack.push(root);
+		}
+
+		@Override
+		protected int advance(int node) {
+			// Push Right first, so Left is popped and processed next due to LIFO.
+			if (right(node) != NIL) stack.push(right(node));
+			if (left(node) != NIL) stack.push(left(node));
+			return node;
+		}
+	}
+
+	/**
+	 * Lazy post-order iterator: the stack holds the path from the root to the next node to visit.
+	 */
+	private class PostorderIterator extends TreeIterator {
+
+		PostorderIterator() {
+			pushFirstLeafPath(root);
+		}
+
+		@Override
+		protected int advance(int node) {
+			// If we just finished a left subtree, the parent's right subtree comes before the parent.
+			if (!stack.isEmpty()) {
+				int parent = stack.peek();
+				if (left(parent) == node) pushFirstLeafPath(right(parent));
+			}
+			return node;
+		}
+
+		private void pushFirstLeafPath(int node) {
+			// Descend preferring left children until reaching the first node visited in post-order.
+			while (node != NIL) {
+				stack.push(node);
+				node = (left(node) != NIL) ? left(node) : right(node);
+			}
+		}
+	}
+
+}
@@ -2,6 +2,12 @@ package implementations;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import utilities.BSTreeADT;
 
@@ -22,7 +28,9 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 	private static final long serialVersionUID = 1L;
 	
 	public BSTreeNode<E> root; // The top node of the tree.
-	private int size; // Tracks the total number of elements in the tree.
+	protected int size; // Tracks the total number of elements in the tree.
+	protected transient int modCount; // Counts structural changes so iterators can fail fast.
+	private transient BSTreeNode<E>[] path; // The ancestors of the node being added, reused by the next addition.
 	
 	
 	/**
@@ -44,6 +52,33 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 		this.root = newRoot;
 		this.size = 1;
 	}
+	
+	/**
+	 * Builds a balanced BST from elements already in sorted order, in O(n) without any comparisons.
+	 * @param sorted The elements in ascending order.
+	 * @return A new tree of minimal height holding the elements.
+	 * @throws NullPointerException if the array contains a null element.
+	 */
+	public static <E extends Comparable<? super E>> BSTree<E> fromSorted(E[] sorted) throws NullPointerException {
+		BSTree<E> tree = new BSTree<E>();
+		tree.loadSorted(Arrays.asList(sorted));
+		return tree;
+	}
+	
+	/**
+	 * Builds a balanced BST from an iteration over elements in sorted order, in O(n) without any comparisons.
+	 * @param sorted An iteration returning at least count elements in ascending order.
+	 * @param count The number of elements to take from the iteration.
+	 * @return A new tree of minimal height holding the elements.
+	 * @throws NullPointerException if the iteration returns a null element.
+	 * @throws NoSuchElementException if the iteration ends before count elements.
+	 */
+	public static <E extends Comparable<? super E>> BSTree<E> fromSorted(Iterator<? extends E> sorted, int count)
+			throws NullPointerException, NoSuchElementException {
+		BSTree<E> tree = new BSTree<E>();
+		tree.loadSorted(sorted, count);
+		return tree;
+	}
 
 	/**
 	 * Retrieves the root node of the tree.
@@ -62,34 +97,116 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 	}
 
 	/**
-	 * Determines the height of the tree (number of levels - 1).
-	 * @return The height of the tree.
+	 * Determines the height of the tree (number of levels).
+	 * Every node keeps the height of its subtree up to date, so it is read from the root in O(1),
+	 * however degenerate the tree is.
+	 * @return The height of the tree (0 for an empty tree).
 	 */
 	@Override
 	public int getHeight() {
+		return heightOf(this.root);
+	}
+	
+	/**
+	 * Finds the element at a position in the natural order, using the subtree sizes kept on the nodes.
+	 * Costs O(height) rather than a traversal.
+	 * @param index The position of the element, 0 for the smallest.
+	 * @return The element that has index elements before it.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size.
+	 */
+	public E select(int index) throws IndexOutOfBoundsException {
+		if(index < 0 || index >= this.size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
 		
-		// Calls recursive helper function and adds 1 to account for the root level (height is depth - 1).
-		return heightRecursive(this.root)+1;
-
+		BSTreeNode<E> node = this.root;
+		while(true)
+		{
+			int leftSize = sizeOf(node.getLeft());
+			if(index == leftSize)
+			{
+				return node.getData();
+			}
+			if(index < leftSize)
+			{
+				node = node.getLeft();
+			}
+			else
+			{
+				// Skip the left subtree and this node.
+				index -= leftSize + 1;
+				node = node.getRight();
+			}
+		}
 	}
 	
 	/**
-	 * Recursive helper method to calculate the height of a subtree.
-	 * The height of a node is 1 plus the height of the taller of its two children.
-	 * @param node The current node being examined.
-	 * @return The height of the subtree rooted at 'node' (-1 for an empty tree).
+	 * Counts the elements less than a key, which is the position the key has, or would have,
+	 * in the natural order. Costs O(height), using the subtree sizes kept on the nodes.
+	 * @param key The key to compare the elements against.
+	 * @return The number of elements less than the key.
+	 * @throws NullPointerException if the key is null.
 	 */
-	private int heightRecursive(BSTreeNode<E> node) {
-	    if (node == null) return -1; // Base case: height of an empty subtree is -1.
-
-	    // Recursively find the height of the left and right subtrees.
-	    int leftHeight = heightRecursive(node.getLeft());
-	    int rightHeight = heightRecursive(node.getRight());
-
-	    // Height is 1 + the maximum height of its children.
-	    return 1 + Math.max(leftHeight, rightHeight);
+	public <K extends Comparable<? super E>> int rank(K key) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+		
+		int rank = 0;
+		BSTreeNode<E> node = this.root;
+		while(node != null)
+		{
+			if(key.compareTo(node.getData()) <= 0)
+			{
+				node = node.getLeft();
+			}
+			else
+			{
+				// This node and its left subtree are all less than the key.
+				rank += sizeOf(node.getLeft()) + 1;
+				node = node.getRight();
+			}
+		}
+		return rank;
 	}
-
+	
+	/**
+	 * Measures the shape of the tree: its height, the depth of its nodes and their balance.
+	 * @return The statistics of the tree as it is now.
+	 */
+	public TreeStatistics statistics() {
+		return new TreeStatistics(this.root);
+	}
+	
+	/**
+	 * Null-safe height lookup.
+	 * @param node The node, possibly null.
+	 * @return The stored height, or 0 for an empty subtree.
+	 */
+	protected static int heightOf(BSTreeNode<?> node) {
+		return node == null ? 0 : node.getHeight();
+	}
+	
+	/**
+	 * Null-safe subtree size lookup.
+	 * @param node The node, possibly null.
+	 * @return The stored size, or 0 for an empty subtree.
+	 */
+	protected static int sizeOf(BSTreeNode<?> node) {
+		return node == null ? 0 : node.getSize();
+	}
+	
+	/**
+	 * Recomputes the height and size of a node from the values stored in its children.
+	 * @param node The node to update.
+	 */
+	protected static void updateNode(BSTreeNode<?> node) {
+		node.setHeight(1 + Math.max(heightOf(node.getLeft()), heightOf(node.getRight())));
+		node.setSize(1 + sizeOf(node.getLeft()) + sizeOf(node.getRight()));
+	}
+	
 	/**
 	 * Returns the number of elements currently stored in the tree.
 	 * @return The size of the tree.
@@ -116,9 +233,106 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 	public void clear() {
 		this.root = null;
 		this.size = 0;
+		this.modCount ++;
 		
 	}
 
+	/**
+	 * Replaces the contents of the tree with the given elements, which must already be in sorted order.
+	 * The middle element of every range becomes the subtree root, so the result is height-balanced
+	 * (and a valid AVL tree) and is built in O(n) without any comparisons.
+	 * @param sorted The elements in ascending order, in a random-access list.
+	 * @throws NullPointerException if the list contains a null element.
+	 */
+	public void loadSorted(List<? extends E> sorted) throws NullPointerException {
+		this.root = buildBalanced(sorted, 0, sorted.size()-1);
+		this.size = sorted.size();
+		this.modCount ++;
+	}
+	
+	/**
+	 * Recursive helper that builds a balanced subtree from a sorted range (recursion depth is O(log n)).
+	 * @param sorted The elements in ascending order.
+	 * @param low The first index of the range.
+	 * @param high The last index of the range.
+	 * @return The root of the subtree, or null for an empty range.
+	 */
+	private BSTreeNode<E> buildBalanced(List<? extends E> sorted, int low, int high) {
+		if (low > high) return null;
+		
+		int middle = (low + high) >>> 1;
+		E data = sorted.get(middle);
+		if (data == null) throw new NullPointerException("Entry cannot be null.");
+		
+		BSTreeNode<E> node = new BSTreeNode<E>(data);
+		node.setLeft(buildBalanced(sorted, low, middle-1));
+		node.setRight(buildBalanced(sorted, middle+1, high));
+		updateNode(node);
+		return node;
+	}
+	
+	/**
+	 * Replaces the contents of the tree with elements taken from a sorted iteration.
+	 * The tree gets the same shape as with loadSorted(List), but the elements are consumed one at
+	 * a time in order, so they need not be collected in a list first.
+	 * @param sorted An iteration returning at least count elements in ascending order.
+	 * @param count The number of elements to take from the iteration.
+	 * @throws NullPointerException if the iteration returns a null element.
+	 * @throws NoSuchElementException if the iteration ends before count elements; the tree is then unchanged.
+	 * @throws IllegalArgumentException if count is negative.
+	 */
+	public void loadSorted(Iterator<? extends E> sorted, int count) throws NullPointerException, NoSuchElementException {
+		if (count < 0) throw new IllegalArgumentException("Count cannot be negative: " + count);
+		
+		this.root = buildInOrder(() -> {
+			E data = sorted.next();
+			if (data == null) throw new NullPointerException("Entry cannot be null.");
+			return new BSTreeNode<E>(data);
+		}, count);
+		this.size = count;
+		this.modCount ++;
+	}
+	
+	/**
+	 * Rebuilds the tree in place into a balanced shape of minimal height, in O(n) without any
+	 * comparisons. The existing nodes are relinked in order rather than copied, so nothing but
+	 * the path of the traversal is allocated; a tree filled from sorted input can be rebalanced
+	 * once after loading instead of paying for its height on every lookup.
+	 */
+	public void rebalance() {
+		// In-order walk over the current nodes. A node's right link is read when it is taken,
+		// before the builder relinks it, and the nodes still on the stack are never relinked.
+		ArrayList<BSTreeNode<E>> stack = new ArrayList<BSTreeNode<E>>();
+		for (BSTreeNode<E> node = this.root; node != null; node = node.getLeft()) stack.add(node);
+		
+		this.root = buildInOrder(() -> {
+			BSTreeNode<E> next = stack.remove(stack.size()-1);
+			for (BSTreeNode<E> node = next.getRight(); node != null; node = node.getLeft()) stack.add(node);
+			return next;
+		}, this.size);
+		this.modCount ++;
+	}
+	
+	/**
+	 * Recursive helper that builds a balanced subtree from the next nodes of an in-order sequence,
+	 * giving it the same shape as buildBalanced (recursion depth is O(log n)).
+	 * @param nodes Supplies the nodes in ascending order; their links are overwritten.
+	 * @param count The number of nodes in the subtree.
+	 * @return The root of the subtree, or null if count is 0.
+	 */
+	private BSTreeNode<E> buildInOrder(Supplier<BSTreeNode<E>> nodes, int count) {
+		if (count == 0) return null;
+		
+		int leftCount = (count - 1) >>> 1; // The middle element of the range is the root.
+		BSTreeNode<E> left = buildInOrder(nodes, leftCount);
+		BSTreeNode<E> node = nodes.get();
+		BSTreeNode<E> right = buildInOrder(nodes, count - 1 - leftCount);
+		node.setLeft(left);
+		node.setRight(right);
+		updateNode(node);
+		return node;
+	}
+
 	/**
 	 * Checks if the tree contains a specific entry by calling the search method.
 	 * @param entry The element to check for.
@@ -133,8 +347,10 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 	
 	/**
 	 * Searches for a node containing the specified entry.
+	 * The node returned is the live node stored in the tree (no copy is allocated),
+	 * so its children reflect the current tree structure.
 	 * @param entry The element object being searched.
-	 * @return A new node containing the found element's data, or null if not found.
+	 * @return The node containing the found element, or null if not found.
 	 * @throws NullPointerException if the entry being passed in is null.
 	 */
 	@Override
@@ -157,8 +373,8 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 			
 			if(comparison == 0) 
 			{
-				// Found the element. Returns a new node with the data (shallow copy of data).
-				return new BSTreeNode<E>(node.getData()); 
+				// Found the element. Return the node itself rather than an allocated copy.
+				return node;
 			}
 			else if(comparison > 0 ) 
 			{
@@ -175,6 +391,103 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 		return null; // Not found.
 	}
 	
+	/**
+	 * Finds the stored element equal to a key, which need not be an element itself.
+	 * @param key The key of the element being searched.
+	 * @return The element stored in the tree, or null if not found.
+	 * @throws NullPointerException if the key is null.
+	 */
+	public <K extends Comparable<? super E>> E find(K key) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+		
+		BSTreeNode<E> node = this.root;
+		while(node != null)
+		{
+			int comparison = key.compareTo(node.getData());
+			if(comparison == 0)
+			{
+				return node.getData();
+			}
+			node = (comparison < 0) ? node.getLeft() : node.getRight();
+		}
+		return null; // Not found.
+	}
+	
+	/**
+	 * Finds the largest element less than or equal to a key.
+	 * @param key The key to compare the elements against.
+	 * @return The largest element not greater than the key, or null if there is none.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E floor(K key) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+		
+		E floor = null;
+		BSTreeNode<E> node = this.root;
+		while(node != null)
+		{
+			int comparison = key.compareTo(node.getData());
+			if(comparison == 0)
+			{
+				return node.getData();
+			}
+			if(comparison > 0)
+			{
+				// Candidate; a closer one can only be in the right subtree.
+				floor = node.getData();
+				node = node.getRight();
+			}
+			else
+			{
+				node = node.getLeft();
+			}
+		}
+		return floor;
+	}
+	
+	/**
+	 * Finds the smallest element greater than or equal to a key.
+	 * @param key The key to compare the elements against.
+	 * @return The smallest element not less than the key, or null if there is none.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E ceiling(K key) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+		
+		E ceiling = null;
+		BSTreeNode<E> node = this.root;
+		while(node != null)
+		{
+			int comparison = key.compareTo(node.getData());
+			if(comparison == 0)
+			{
+				return node.getData();
+			}
+			if(comparison < 0)
+			{
+				// Candidate; a closer one can only be in the left subtree.
+				ceiling = node.getData();
+				node = node.getLeft();
+			}
+			else
+			{
+				node = node.getRight();
+			}
+		}
+		return ceiling;
+	}
+	
 	/**
 	 * Adds a new entry to the tree in its correct sorted position.
 	 * @param newEntry The element being added to the tree.
@@ -189,6 +502,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 			throw new NullPointerException("Entry cannot be null.");
 		}
 		this.size ++; // Optimistic increment. Decremented if insertion fails.
+		this.modCount ++;
 		
 		// Case 1: Empty tree. New entry becomes the root.
 		if (this.root == null) 
@@ -199,10 +513,13 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 		} 
 		
 		BSTreeNode<E> node = this.root;
+		int depth = 0; // Depth of node, and the number of nodes recorded on the path.
 		
 		// Iteratively find the correct insertion point.
 		while(node!=null) 
 		{
+			recordPath(node, depth ++);
+			
 			// Go left for less than or equal to (handles duplicates by placing them on the left).
 			if(newEntry.compareTo(node.getData()) <= 0) 
 			{
@@ -211,6 +528,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 					// Found insertion point: insert new node as the left child.
 					BSTreeNode<E> newNode = new BSTreeNode<E>(newEntry);
 					node.setLeft(newNode);
+					countNewLeaf(depth);
 					return true;
 				}
 				else 
@@ -225,6 +543,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 					// Found insertion point: insert new node as the right child.
 					BSTreeNode<E> newNode = new BSTreeNode<E>(newEntry);
 					node.setRight(newNode);
+					countNewLeaf(depth);
 					return true;
 				}
 				else 
@@ -240,6 +559,115 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 		return false;
 	}
 
+	/**
+	 * Finds the element equal to the key, or adds the element created by the mapping function.
+	 * The descent from the root only reads the tree; when the key is not found, a second descent
+	 * records the ancestors of the new node, whose sizes and heights change.
+	 * @param key The key of the element to find.
+	 * @param mappingFunction Creates the new element from the key when it is not found.
+	 * @return The element stored in the tree (existing or newly added).
+	 * @throws NullPointerException if the key is null or the mapping function returns null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E computeIfAbsent(K key, Function<? super K, ? extends E> mappingFunction) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+		
+		BSTreeNode<E> node = this.root;
+		BSTreeNode<E> parent = null; // The last node visited, where a new node would be attached.
+		int comparison = 0;
+		
+		// Iterative search traversal, remembering where the key would be inserted.
+		while(node != null)
+		{
+			comparison = key.compareTo(node.getData());
+			
+			if(comparison == 0)
+			{
+				return node.getData(); // Found: the tree is left untouched.
+			}
+			
+			parent = node;
+			node = (comparison < 0) ? node.getLeft() : node.getRight();
+		}
+		
+		E newEntry = mappingFunction.apply(key);
+		if(newEntry == null)
+		{
+			throw new NullPointerException("Mapping function returned null.");
+		}
+		
+		int depth = recordPath(key); // Before the new node is attached, so the descent ends at its parent.
+		
+		// Attach the new node at the point where the search ended.
+		BSTreeNode<E> newNode = new BSTreeNode<E>(newEntry);
+		if(parent == null)
+		{
+			this.root = newNode;
+		}
+		else if(comparison < 0)
+		{
+			parent.setLeft(newNode);
+		}
+		else
+		{
+			parent.setRight(newNode);
+		}
+		countNewLeaf(depth);
+		this.size ++;
+		this.modCount ++;
+		
+		return newEntry;
+	}
+
+	/**
+	 * Records a node visited while looking for an insertion point.
+	 * @param node The node.
+	 * @param depth Its depth, the root being at depth 0.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void recordPath(BSTreeNode<E> node, int depth) {
+		if(path == null || depth == path.length)
+		{
+			path = (path == null) ? new BSTreeNode[32] : Arrays.copyOf(path, depth * 2);
+		}
+		path[depth] = node;
+	}
+	
+	/**
+	 * Records the nodes visited while descending to the point where a key that is not in the tree
+	 * would be inserted.
+	 * @param key The key.
+	 * @return The number of nodes recorded, which is the depth of the insertion point.
+	 */
+	private <K extends Comparable<? super E>> int recordPath(K key) {
+		int depth = 0;
+		for(BSTreeNode<E> node = this.root; node != null; )
+		{
+			recordPath(node, depth ++);
+			node = (key.compareTo(node.getData()) < 0) ? node.getLeft() : node.getRight();
+		}
+		return depth;
+	}
+	
+	/**
+	 * Counts a leaf that was just attached below the recorded path in the sizes and heights of its
+	 * ancestors, bottom-up, without comparing anything again; the entries used are cleared.
+	 * @param depth The depth of the leaf, which is the number of ancestors on the path.
+	 */
+	private void countNewLeaf(int depth) {
+		for(int i = depth-1; i >= 0; i--)
+		{
+			BSTreeNode<E> node = path[i];
+			path[i] = null;
+			node.setSize(node.getSize() + 1);
+			// The subtree of this node now reaches down to the leaf.
+			if(node.getHeight() < depth - i + 1) node.setHeight(depth - i + 1);
+		}
+	}
+
 	/**
 	 * Removes the smallest element in the tree (the leftmost node).
 	 * @return The removed node, or null if the tree is empty.
@@ -248,6 +676,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 	public BSTreeNode<E> removeMin() {
 		BSTreeNode<E> node = this.root;
 		BSTreeNode<E> preNode = null; // Used to track the parent of 'node'.
+		ArrayList<BSTreeNode<E>> path = new ArrayList<BSTreeNode<E>>(); // The ancestors of 'node', whose sizes and heights change.
 		
 		if(root==null) 
 		{
@@ -257,11 +686,13 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 		// Find the leftmost node (the minimum).
 		while(node.getLeft() != null)
 		{
+			path.add(node);
 			preNode = node;
 			node = node.getLeft();
 		}
 		
 		this.size --;
+		this.modCount ++;
 		
 		// Case 1: The root is the minimum (preNode is null).
 		if(preNode == null) 
@@ -276,9 +707,16 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 			preNode.setLeft(node.getRight());
 		}
 		
+		// Update the ancestors bottom-up, so each one sees the new values of its child.
+		for(int i = path.size()-1; i >= 0; i--)
+		{
+			updateNode(path.get(i));
+		}
+		
 		// Isolate the removed node for return.
 		node.setLeft(null);
 		node.setRight(null);
+		updateNode(node);
 		return node;
 	}
 
@@ -291,6 +729,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 	public BSTreeNode<E> removeMax() {
 		BSTreeNode<E> node = this.root;
 		BSTreeNode<E> preNode = null; // Used to track the parent of 'node'.
+		ArrayList<BSTreeNode<E>> path = new ArrayList<BSTreeNode<E>>(); // The ancestors of 'node', whose sizes and heights change.
 		
 		if(root==null) 
 		{
@@ -300,11 +739,13 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 		// Find the rightmost node (the maximum).
 		while(node.getRight() != null)
 		{
+			path.add(node);
 			preNode = node;
 			node = node.getRight();
 		}
 		
 		this.size --;
+		this.modCount ++;
 		
 		// Case 1: The root is the maximum (preNode is null).
 		if(preNode == null) 
@@ -319,9 +760,16 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 			preNode.setRight(node.getLeft());
 		}
 		
+		// Update the ancestors bottom-up, so each one sees the new values of its child.
+		for(int i = path.size()-1; i >= 0; i--)
+		{
+			updateNode(path.get(i));
+		}
+		
 		// Isolate the removed node for return.
 		node.setLeft(null);
 		node.setRight(null);
+		updateNode(node);
 		return node;
 	}
 
@@ -329,104 +777,214 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Se
 	/**
 	 * Generates an in-order iteration over the contents of the tree.
 	 * Traversal order: Left -> Root -> Right (results in sorted/alphabetical order).
-	 * Uses an iterative approach with a stack.
+	 * The iteration is lazy: it only holds the path to the next node on a stack (O(height)),
+	 * and fails fast if the tree is structurally modified while it is in progress.
 	 * @return An iterator with the elements in the natural order.
 	 */
 	@Override
 	public Iterator<E> inorderIterator() {
-		ArrayList<E> result = new ArrayList<E>(); // List to hold the sorted traversal order.
-		ArrayList<BSTreeNode<E>> stack = new ArrayList<BSTreeNode<E>>(); // Stack for iterative traversal.
-		BSTreeNode<E> current = root;
-
-	    while (current != null || !stack.isEmpty()) {
-
-	        // 1. Travel down to the leftmost node, storing all parent nodes on the stack.
-	        while (current != null) {
-	            stack.add(current);
-	            current = current.getLeft();
-	        }
-
-	        // 2. The leftmost node (or next node in order) is at the top of the stack.
-	        current = stack.get(stack.size()-1);
-	        stack.remove(stack.size()-1);
-	        result.add(current.getData());  // Visit (add to list)
-	        
-	        // 3. Move to the right child to process the right subtree.
-	        current = current.getRight();
-	    }
-
-	    return new MyIterator<E>(result);
+		return new InorderIterator();
 	}
 
 	/**
 	 * Generates a pre-order iteration over the contents of the tree.
 	 * Traversal order: Root -> Left -> Right.
-	 * Uses an iterative approach with a stack.
+	 * The iteration is lazy and fails fast, like the in-order iterator.
 	 * @return An iterator with the elements in pre-order.
 	 */
 	@Override
 	public Iterator<E> preorderIterator() {
-		ArrayList<E> result = new ArrayList<>();
-
-	    if (root == null)
-	    {
-	    	return new MyIterator<E>(new ArrayList<E>());
-	    }
-
-	    ArrayList<BSTreeNode<E>> stack = new ArrayList<BSTreeNode<E>>();
-	    stack.add(root);
-
-	    // Iterative Pre-order Traversal
-	    while (!stack.isEmpty()) {
-	    	BSTreeNode<E> node = stack.get(stack.size()-1);
-	    	stack.remove(stack.size()-1);
-	        result.add(node.getData()); // 1. Visit (add to list)
-
-	        // 2 & 3. Process Right then Left (push Right first, so Left is popped and processed next due to LIFO).
-	        if (node.getRight() != null) stack.add(node.getRight());
-	        if (node.getLeft() != null) stack.add(node.getLeft());
-	    }
-
-	    return new MyIterator<E>(result);
+		return new PreorderIterator();
 	}
 
 	/**
 	 * Generates a post-order iteration over the contents of the tree.
 	 * Traversal order: Left -> Right -> Root.
-	 * Uses an iterative approach with two stacks to achieve the correct L-R-R order.
+	 * The iteration is lazy and fails fast, like the in-order iterator.
 	 * @return An iterator with the elements in post-order.
 	 */
 	@Override
 	public Iterator<E> postorderIterator() {
-		ArrayList<E> result = new ArrayList<>();
-
-	    if (root == null) return new MyIterator<E>(new ArrayList<E>());
-
-	    ArrayList<BSTreeNode<E>> stack1 = new ArrayList<BSTreeNode<E>>(); // Used to process nodes (R-R-L order)
-	    ArrayList<BSTreeNode<E>> stack2 = new ArrayList<BSTreeNode<E>>(); // Used to store results (L-R-R order)
-
-	    stack1.add(root);
-
-	    // First stage: Fill stack2 in the reverse post-order (Root -> Right -> Left).
-	    while (!stack1.isEmpty()) {
-	    	BSTreeNode<E> node = stack1.get(stack1.size()-1);
-	    	stack1.remove(stack1.size()-1);
-	        stack2.add(node);
-
-	        // Push Left child, then Right child (ensures R is processed before L for the R-R-L stack2 order).
-	        if (node.getLeft() != null) stack1.add(node.getLeft());
-	        if (node.getRight() != null) stack1.add(node.getRight());
-	    }
+		return new PostorderIterator();
+	}
 
-	    // Second stage: Pop elements from stack2. This reverses the R-R-L order to Post-order (Left -> Right -> Root).
-	    while (!stack2.isEmpty()) {
-	    	
-	        result.add(stack2.get(stack2.size()-1).getData());
-	        stack2.remove(stack2.size()-1);
-	    }
+	/**
+	 * Generates an in-order iteration over the elements between two keys, inclusive.
+	 * The iteration is lazy and fails fast, like the in-order iterator; it only descends into
+	 * subtrees that can hold elements of the range, so it costs O(height + k) for k elements.
+	 * @param from The lowest key of the range.
+	 * @param to The highest key of the range.
+	 * @return An iterator with the elements in the range, empty if from is greater than to.
+	 * @throws NullPointerException if either key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> Iterator<E> subTree(K from, K to) throws NullPointerException {
+		if(from == null || to == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+		return new RangeIterator(from, to);
+	}
 
-	    return new MyIterator<E>(result);
+	/**
+	 * Generates an in-order iteration over the elements that compare equal to a key,
+	 * e.g. the words starting with a prefix when given Word.prefix.
+	 * @param prefix The key the elements must compare equal to.
+	 * @return An iterator with the matching elements in the natural order.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> Iterator<E> prefixIterator(K prefix) throws NullPointerException {
+		return subTree(prefix, prefix);
+	}
+	
+	/**
+	 * Base class for the lazy traversal iterators.
+	 * Keeps the stack of pending nodes and the modification count seen at creation time.
+	 */
+	private abstract class TreeIterator implements Iterator<E> {
+		
+		protected final ArrayList<BSTreeNode<E>> stack = new ArrayList<BSTreeNode<E>>(); // Pending nodes, top at the end.
+		private final int expectedModCount = modCount; // Tree version this iterator is walking.
+		
+		/**
+		 * Checks if the iteration has more elements.
+		 * @return true if there are still nodes waiting on the stack.
+		 */
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty();
+		}
+		
+		/**
+		 * Returns the next element in the traversal.
+		 * @return The next element.
+		 * @throws NoSuchElementException If the iteration has no more elements.
+		 * @throws ConcurrentModificationException If the tree changed since the iterator was created.
+		 */
+		@Override
+		public E next() throws NoSuchElementException {
+			if (modCount != expectedModCount) throw new ConcurrentModificationException("Tree was modified during iteration.");
+			if (!hasNext()) throw new NoSuchElementException("No more elements in the iteration.");
+			
+			return advance(stack.remove(stack.size()-1)).getData();
+		}
+		
+		/**
+		 * Pushes the nodes that follow the popped node in this traversal order.
+		 * @param node The node just popped off the stack.
+		 * @return The node to visit.
+		 */
+		protected abstract BSTreeNode<E> advance(BSTreeNode<E> node);
+		
+		/**
+		 * Pushes a node and its chain of left children.
+		 * @param node The top of the chain, or null.
+		 */
+		protected void pushLeftSpine(BSTreeNode<E> node) {
+			while (node != null) {
+				stack.add(node);
+				node = node.getLeft();
+			}
+		}
 	}
 	
+	/**
+	 * Lazy in-order iterator: the stack holds the left spine of the unvisited part of the tree.
+	 */
+	private class InorderIterator extends TreeIterator {
+		
+		InorderIterator() {
+			pushLeftSpine(root);
+		}
+		
+		@Override
+		protected BSTreeNode<E> advance(BSTreeNode<E> node) {
+			// The next node in order is the leftmost node of the right subtree.
+			pushLeftSpine(node.getRight());
+			return node;
+		}
+	}
+	
+	/**
+	 * Lazy in-order iterator over a range: the stack starts with the nodes on the path to the
+	 * first element of the range that are not below it, and the iteration ends at the first
+	 * element past the range.
+	 */
+	private class RangeIterator extends TreeIterator {
+		
+		private final Comparable<? super E> to;
+		
+		RangeIterator(Comparable<? super E> from, Comparable<? super E> to) {
+			this.to = to;
+			BSTreeNode<E> node = root;
+			while (node != null) {
+				// Nodes below from are skipped along with their left subtrees.
+				if (from.compareTo(node.getData()) <= 0) {
+					stack.add(node);
+					node = node.getLeft();
+				} else {
+					node = node.getRight();
+				}
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return !stack.isEmpty() && to.compareTo(stack.get(stack.size()-1).getData()) >= 0;
+		}
+		
+		@Override
+		protected BSTreeNode<E> advance(BSTreeNode<E> node) {
+			pushLeftSpine(node.getRight());
+			return node;
+		}
+	}
+	
+	/**
+	 * Lazy pre-order iterator: the stack holds the roots of the subtrees still to visit.
+	 */
+	private class PreorderIterator extends TreeIterator {
+		
+		PreorderIterator() {
+			if (root != null) stack.add(root);
+		}
+		
+		@Override
+		protected BSTreeNode<E> advance(BSTreeNode<E> node) {
+			// Push Right first, so Left is popped and processed next due to LIFO.
+			if (node.getRight() != null) stack.add(node.getRight());
+			if (node.getLeft() != null) stack.add(node.getLeft());
+			return node;
+		}
+	}
+	
+	/**
+	 * Lazy post-order iterator: the stack holds the path from the root to the next node to visit.
+	 */
+	private class PostorderIterator extends TreeIterator {
+		
+		PostorderIterator() {
+			pushFirstLeafPath(root);
+		}
+		
+		@Override
+		protected BSTreeNode<E> advance(BSTreeNode<E> node) {
+			// If we just finished a left subtree, the parent's right subtree comes before the parent.
+			if (!stack.isEmpty()) {
+				BSTreeNode<E> parent = stack.get(stack.size()-1);
+				if (parent.getLeft() == node) pushFirstLeafPath(parent.getRight());
+			}
+			return node;
+		}
+		
+		private void pushFirstLeafPath(BSTreeNode<E> node) {
+			// Descend preferring left children until reaching the first node visited in post-order.
+			while (node != null) {
+				stack.add(node);
+				node = (node.getLeft() != null) ? node.getLeft() : node.getRight();
+			}
+		}
+	}
 
 }
\ No newline at end of file
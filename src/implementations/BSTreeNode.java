@@ -18,6 +18,8 @@ public class BSTreeNode<E> implements Serializable
 	private E data; // The actual data element stored in this node (e.g., a Word object).
 	private BSTreeNode<E> left; // Reference to the left child node.
 	private BSTreeNode<E> right; // Reference to the right child node.
+	private int height; // Height of the subtree rooted at this node (a leaf has height 1).
+	private int size; // Number of nodes in the subtree rooted at this node (a leaf has size 1).
 	
 	/**
 	 * Constructor for BSTreeNode.
@@ -29,6 +31,8 @@ public class BSTreeNode<E> implements Serializable
 		this.data = data;
 		this.left = null; // New nodes start with no left child.
 		this.right = null; // New nodes start with no right child.
+		this.height = 1; // A new node is always a leaf.
+		this.size = 1;
 	}
 
 	/**
@@ -86,6 +90,40 @@ public class BSTreeNode<E> implements Serializable
 	public void setRight(BSTreeNode<E> right) {
 		this.right = right;
 	}
+
+	/**
+	 * Retrieves the height of the subtree rooted at this node.
+	 * The trees keep this value up to date as they add and remove nodes.
+	 * @return The height of this node's subtree (1 for a leaf).
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Sets the height of the subtree rooted at this node.
+	 * @param height The new subtree height.
+	 */
+	public void setHeight(int height) {
+		this.height = height;
+	}
+
+	/**
+	 * Retrieves the number of nodes in the subtree rooted at this node, itself included.
+	 * The trees keep this value up to date as they add and remove nodes.
+	 * @return The size of this node's subtree (1 for a leaf).
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Sets the number of nodes in the subtree rooted at this node.
+	 * @param size The new subtree size.
+	 */
+	public void setSize(int size) {
+		this.size = size;
+	}
 	
 
 	
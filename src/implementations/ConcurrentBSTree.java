@@ -0,0 +1,475 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import utilities.BSTreeADT;
+
+import utilities.Iterator;
+
+
+/**
+ * Thread-safe Binary Search Tree based on the BSTreeADT interface, so ingest threads can add words
+ * to a repository while other threads search and report it. It wraps an AVLTree behind a read-write
+ * lock: any number of readers share the tree, and a writer has it to itself while it rebalances.
+ *
+ * The nodes of the wrapped tree are never handed out, since their links change under the lock:
+ * search, getRoot, removeMin and removeMax return a detached BSTreeNode holding the element.
+ * The iterators walk a snapshot of the elements taken when they are created, so they never fail
+ * with a ConcurrentModificationException and do not see later changes. The elements themselves are
+ * shared; Word synchronizes its own occurrence lists.
+ *
+ * @param <E> The type of element stored in the tree, which must extend Comparable.
+ * @author Precious, Monica, Jasmine, Mitali
+ */
+
+public class ConcurrentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E>, Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final BSTree<E> tree; // The wrapped tree, only touched while holding the lock.
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+	/**
+	 * Default constructor for an empty tree.
+	 */
+	public ConcurrentBSTree()
+	{
+		this(new AVLTree<E>());
+	}
+
+	/**
+	 * Constructor for a tree wrapping an existing one, e.g. a repository that was just loaded.
+	 * The wrapped tree must not be used directly afterwards.
+	 * @param tree The tree to wrap.
+	 */
+	public ConcurrentBSTree(BSTree<E> tree)
+	{
+		this.tree = tree;
+	}
+
+	/**
+	 * Retrieves a copy of the root node of the tree.
+	 * @return A detached node holding the root element.
+	 * @throws NullPointerException if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> getRoot() throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return detach(tree.getRoot());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Determines the height of the tree (number of levels).
+	 * @return The height of the tree.
+	 */
+	@Override
+	public int getHeight() {
+		lock.readLock().lock();
+		try {
+			return tree.getHeight();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the element at a position in the natural order.
+	 * @param index The position of the element, 0 for the smallest.
+	 * @return The element that has index elements before it.
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size.
+	 */
+	public E select(int index) throws IndexOutOfBoundsException {
+		lock.readLock().lock();
+		try {
+			return tree.select(index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Counts the elements less than a key.
+	 * @param key The key to compare the elements against.
+	 * @return The number of elements less than the key.
+	 * @throws NullPointerException if the key is null.
+	 */
+	public <K extends Comparable<? super E>> int rank(K key) throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return tree.rank(key);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Measures the shape of the tree while holding the read lock.
+	 * @return The statistics of the tree as it is now.
+	 */
+	public TreeStatistics statistics() {
+		lock.readLock().lock();
+		try {
+			return tree.statistics();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of elements currently stored in the tree.
+	 * @return The size of the tree.
+	 */
+	@Override
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return tree.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Checks if the tree contains any elements.
+	 * @return true if the tree is empty.
+	 */
+	@Override
+	public boolean isEmpty() {
+		lock.readLock().lock();
+		try {
+			return tree.isEmpty();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes every element from the tree.
+	 */
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			tree.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replaces the contents of the tree with the given elements, which must already be in sorted order.
+	 * @param sorted The elements in ascending order, in a random-access list.
+	 * @throws NullPointerException if the list contains a null element.
+	 */
+	public void loadSorted(List<? extends E> sorted) throws NullPointerException {
+		lock.writeLock().lock();
+		try {
+			tree.loadSorted(sorted);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Rebuilds the tree in place into a balanced shape of minimal height.
+	 */
+	public void rebalance() {
+		lock.writeLock().lock();
+		try {
+			tree.rebalance();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Checks if the tree contains a specific entry.
+	 * @param entry The element to check for.
+	 * @return true if the element is found, false otherwise.
+	 * @throws NullPointerException if the entry is null.
+	 */
+	@Override
+	public boolean contains(E entry) throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return tree.contains(entry);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Searches for the node containing the specified entry.
+	 * @param entry The element object being searched.
+	 * @return A detached node holding the found element, or null if not found.
+	 * @throws NullPointerException if the entry being passed in is null.
+	 */
+	@Override
+	public BSTreeNode<E> search(E entry) throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return detach(tree.search(entry));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a new entry to the tree in its correct sorted position.
+	 * @param newEntry The element being added to the tree.
+	 * @return true if the element is added successfully.
+	 * @throws NullPointerException if the entry is null.
+	 */
+	@Override
+	public boolean add(E newEntry) throws NullPointerException {
+		lock.writeLock().lock();
+		try {
+			return tree.add(newEntry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the element equal to the key, or adds the element created by the mapping function.
+	 * Most keys of a repository are already present, so the key is first looked up under the shared
+	 * read lock; only a missing key takes the write lock, and is looked up again in case another
+	 * thread added it in between. Concurrent callers with the same key therefore all get the same element.
+	 * @param key The key of the element to find.
+	 * @param mappingFunction Creates the new element from the key when it is not found; it runs under the write lock.
+	 * @return The element stored in the tree (existing or newly added).
+	 * @throws NullPointerException if the key is null or the mapping function returns null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E computeIfAbsent(K key, Function<? super K, ? extends E> mappingFunction) throws NullPointerException {
+		if(key == null)
+		{
+			throw new NullPointerException("Key cannot be null.");
+		}
+
+		lock.readLock().lock();
+		try {
+			E existing = tree.find(key);
+			if (existing != null) return existing;
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		lock.writeLock().lock();
+		try {
+			return tree.computeIfAbsent(key, mappingFunction);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the smallest element in the tree.
+	 * @return The removed node, or null if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> removeMin() {
+		lock.writeLock().lock();
+		try {
+			return tree.removeMin();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the largest element in the tree.
+	 * @return The removed node, or null if the tree is empty.
+	 */
+	@Override
+	public BSTreeNode<E> removeMax() {
+		lock.writeLock().lock();
+		try {
+			return tree.removeMax();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the largest element less than or equal to a key.
+	 * @param key The key to compare the elements against.
+	 * @return The largest element not greater than the key, or null if there is none.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E floor(K key) throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return tree.floor(key);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the smallest element greater than or equal to a key.
+	 * @param key The key to compare the elements against.
+	 * @return The smallest element not less than the key, or null if there is none.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> E ceiling(K key) throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return tree.ceiling(key);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Generates an in-order iteration over a snapshot of the tree.
+	 * Traversal order: Left -> Root -> Right (results in sorted/alphabetical order).
+	 * @return An iterator with the elements in the natural order.
+	 */
+	@Override
+	public Iterator<E> inorderIterator() {
+		lock.readLock().lock();
+		try {
+			return new SnapshotIterator(tree.inorderIterator(), tree.size());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Generates a pre-order iteration over a snapshot of the tree.
+	 * Traversal order: Root -> Left -> Right.
+	 * @return An iterator with the elements in pre-order.
+	 */
+	@Override
+	public Iterator<E> preorderIterator() {
+		lock.readLock().lock();
+		try {
+			return new SnapshotIterator(tree.preorderIterator(), tree.size());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Generates a post-order iteration over a snapshot of the tree.
+	 * Traversal order: Left -> Right -> Root.
+	 * @return An iterator with the elements in post-order.
+	 */
+	@Override
+	public Iterator<E> postorderIterator() {
+		lock.readLock().lock();
+		try {
+			return new SnapshotIterator(tree.postorderIterator(), tree.size());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Generates an in-order iteration over a snapshot of the elements between two keys, inclusive.
+	 * Only the elements in the range are copied.
+	 * @param from The lowest key of the range.
+	 * @param to The highest key of the range.
+	 * @return An iterator with the elements in the range, empty if from is greater than to.
+	 * @throws NullPointerException if either key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> Iterator<E> subTree(K from, K to) throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return new SnapshotIterator(tree.subTree(from, to), 16);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Generates an in-order iteration over a snapshot of the elements that compare equal to a key,
+	 * e.g. the words starting with a prefix when given Word.prefix.
+	 * @param prefix The key the elements must compare equal to.
+	 * @return An iterator with the matching elements in the natural order.
+	 * @throws NullPointerException if the key is null.
+	 */
+	@Override
+	public <K extends Comparable<? super E>> Iterator<E> prefixIterator(K prefix) throws NullPointerException {
+		lock.readLock().lock();
+		try {
+			return new SnapshotIterator(tree.prefixIterator(prefix), 16);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Copies a node of the wrapped tree without its links.
+	 * @param node The node, or null.
+	 * @return A detached node holding the same element, or null.
+	 */
+	private static <E> BSTreeNode<E> detach(BSTreeNode<E> node) {
+		return (node == null) ? null : new BSTreeNode<E>(node.getData());
+	}
+
+	/**
+	 * Serializes the wrapped tree while holding the read lock, so it is not modified meanwhile.
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		lock.readLock().lock();
+		try {
+			out.defaultWriteObject();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Iterator over the elements copied from a traversal of the wrapped tree while the read lock was held.
+	 */
+	private class SnapshotIterator implements Iterator<E> {
+
+		private final List<E> elements;
+		private int next;
+
+		SnapshotIterator(Iterator<E> traversal, int expectedSize) {
+			elements = new ArrayList<E>(expectedSize);
+			while (traversal.hasNext()) elements.add(traversal.next());
+		}
+
+		/**
+		 * Checks if the iteration has more elements.
+		 * @return true if the snapshot has elements left.
+		 */
+		@Override
+		public boolean hasNext() {
+			return next < elements.size();
+		}
+
+		/**
+		 * Returns the next element of the snapshot.
+		 * @return The next element.
+		 * @throws NoSuchElementException If the iteration has no more elements.
+		 */
+		@Override
+		public E next() throws NoSuchElementException {
+			if (!hasNext()) throw new NoSuchElementException("No more elements in the iteration.");
+			return elements.get(next++);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package implementations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A table of input file names, so a Word records its files as small int ids instead of holding
+ * its own String references, and each file name is stored once however many words mention it.
+ *
+ * A repository owns one table, created when it is loaded, and hands it to everything that makes
+ * or reads its words: the ingest, RepositoryFormat, RepositoryLog and the serialization of Word.
+ * Each Word keeps a reference to the table its ids refer to, so words of different tables can
+ * still be merged; their files are matched by name.
+ *
+ * Ids are handed out in the order names are first added, starting at 0, and are never reused.
+ * A Word lists its files in ascending id order, so adding the repository's files first and then
+ * the input files in the order given makes the report list files in the order they were indexed,
+ * whichever worker thread happened to read them. The table is safe to use from several threads.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public final class FileTable {
+
+	private final Map<String, Integer> ids = new HashMap<>(); // Guarded by this.
+	private volatile String[] names = new String[16]; // names[id], replaced when it grows.
+	private int count; // Guarded by this.
+
+	/**
+	 * Creates an empty table; the first name added gets id 0.
+	 */
+	public FileTable() {
+	}
+
+	/**
+	 * Returns the id of a file name, adding the name to the table if it is new.
+	 * @param fileName The file name.
+	 * @return Its id.
+	 * @throws NullPointerException if the name is null.
+	 */
+	public synchronized int id(String fileName) {
+
+		if (fileName == null) throw new NullPointerException("File name cannot be null.");
+
+		Integer id = ids.get(fileName);
+		if (id != null) return id;
+
+		if (count == names.length) names = Arrays.copyOf(names, count * 2);
+		names[count] = fileName;
+		ids.put(fileName, count);
+		return count++;
+
+	}
+
+	/**
+	 * Returns the id of a file name without adding it.
+	 * @param fileName The file name.
+	 * @return Its id, or -1 if the name is not in the table.
+	 */
+	public synchronized int find(String fileName) {
+
+		Integer id = ids.get(fileName);
+		return (id == null) ? -1 : id;
+
+	}
+
+	/**
+	 * Returns the file name of an id, without locking.
+	 * @param id An id returned by id(String).
+	 * @return The file name.
+	 * @throws IndexOutOfBoundsException if the id was never handed out.
+	 */
+	public String name(int id) {
+
+		String[] current = names;
+		String name = (id >= 0 && id < current.length) ? current[id] : null;
+		if (name == null) throw new IndexOutOfBoundsException("File id: " + id);
+		return name;
+
+	}
+
+	/**
+	 * Returns the number of names in the table.
+	 * @return The next id to be handed out.
+	 */
+	public synchronized int size() {
+
+		return count;
+
+	}
+
+	/**
+	 * An ObjectInputStream whose Word objects record their files in a given table, instead of
+	 * each one creating its own.
+	 */
+	public static class Reader extends ObjectInputStream {
+
+		private final FileTable fileTable;
+
+		/**
+		 * Creates a stream reading serialized objects from another stream.
+		 * @param in The stream to read from.
+		 * @param fileTable The table of the words read.
+		 * @throws IOException if the stream header cannot be read.
+		 */
+		public Reader(InputStream in, FileTable fileTable) throws IOException {
+
+			super(in);
+			this.fileTable = fileTable;
+
+		}
+
+		/**
+		 * Retrieves the table of the words read.
+		 * @return The table.
+		 */
+		public FileTable getFileTable() {
+
+			return fileTable;
+
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package implementations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The shape of a tree at one point in time, for judging how far it is from balanced: its height next
+ * to the minimum height possible for its size, the average depth of its nodes (the number of
+ * comparisons an average successful lookup makes, less one), and how many nodes have each balance
+ * factor, the height of the left subtree minus the height of the right one.
+ *
+ * The statistics are gathered by one iterative pass over the nodes, reading the subtree heights the
+ * trees keep on them, so even a degenerate tree is measured in O(n) without deep recursion.
+ *
+ * @author  Precious, Monica, Jasmine, Mitali
+ */
+public final class TreeStatistics {
+
+	private final int size;
+	private final int height;
+	private final long totalDepth; // Sum of the depths of all nodes, the root being at depth 0.
+	private final SortedMap<Integer, Integer> balanceFactors; // Balance factor -> number of nodes.
+
+	/**
+	 * Measures the tree below a root node.
+	 * @param root The root of the tree, or null for an empty tree.
+	 */
+	TreeStatistics(BSTreeNode<?> root) {
+
+		TreeMap<Integer, Integer> histogram = new TreeMap<>();
+		ArrayList<BSTreeNode<?>> stack = new ArrayList<>();
+		int[] depths = new int[16]; // depths[i] is the depth of stack.get(i).
+		int count = 0;
+		int deepest = -1;
+		long depthSum = 0;
+
+		if (root != null) stack.add(root);
+
+		while (!stack.isEmpty()) {
+
+			int top = stack.size() - 1;
+			BSTreeNode<?> node = stack.remove(top);
+			int depth = depths[top];
+
+			count++;
+			depthSum += depth;
+			deepest = Math.max(deepest, depth);
+			histogram.merge(BSTree.heightOf(node.getLeft()) - BSTree.heightOf(node.getRight()), 1, Integer::sum);
+
+			if (stack.size() + 2 > depths.length) depths = Arrays.copyOf(depths, depths.length * 2);
+			if (node.getRight() != null) {
+				depths[stack.size()] = depth + 1;
+				stack.add(node.getRight());
+			}
+			if (node.getLeft() != null) {
+				depths[stack.size()] = depth + 1;
+				stack.add(node.getLeft());
+			}
+
+		}
+
+		this.size = count;
+		this.height = deepest + 1;
+		this.totalDepth = depthSum;
+		this.balanceFactors = Collections.unmodifiableSortedMap(histogram);
+
+	}
+
+	/**
+	 * Returns the number of elements in the tree.
+	 * @return The size of the tree.
+	 */
+	public int getSize() {
+
+		return size;
+
+	}
+
+	/**
+	 * Returns the height of the tree (number of levels).
+	 * @return The height, 0 for an empty tree.
+	 */
+	public int getHeight() {
+
+		return height;
+
+	}
+
+	/**
+	 * Returns the smallest height any binary tree of this size can have, ceil(log2(size + 1)).
+	 * @return The minimum height.
+	 */
+	public int getMinimumHeight() {
+
+		return 32 - Integer.numberOfLeadingZeros(size);
+
+	}
+
+	/**
+	 * Returns the average depth of the nodes, the root being at depth 0.
+	 * @return The average depth, 0 for an empty tree.
+	 */
+	public double getAverageDepth() {
+
+		return (size == 0) ? 0 : (double) totalDepth / size;
+
+	}
+
+	/**
+	 * Returns how many nodes have each balance factor (left subtree height minus right subtree height).
+	 * An AVL tree only has the factors -1, 0 and 1.
+	 * @return The number of nodes by balance factor, in ascending order of the factor.
+	 */
+	public SortedMap<Integer, Integer> getBalanceFactors() {
+
+		return balanceFactors;
+
+	}
+
+	/**
+	 * Formats the statistics as a short multi-line report.
+	 * @return The report, without a trailing line terminator.
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("elements: ").append(size).append('\n');
+		sb.append("height: ").append(height).append(" (minimum ").append(getMinimumHeight()).append(")\n");
+		sb.append(String.format("average depth: %.2f", getAverageDepth())).append('\n');
+		sb.append("balance factors (left height - right height):");
+		for (Map.Entry<Integer, Integer> entry : balanceFactors.entrySet()) {
+			sb.append(String.format("\n  %4d: %d", entry.getKey(), entry.getValue()));
+		}
+		return sb.toString();
+
+	}
+}
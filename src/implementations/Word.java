@@ -1,5 +1,9 @@
 package implementations;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
@@ -10,90 +14,345 @@ import java.util.*;
  * across different files and line numbers. This object is stored as the data element
  * in the BST. It implements Comparable for sorting and Serializable for persistence.
  *
+ * Occurrences are kept in primitive arrays rather than boxed collections: parallel arrays hold
+ * the ids of the files in a FileTable, in ascending order, and a growable int[] of line numbers per
+ * file. Files are found by a binary search, after checking the last one, where most occurrences go.
+ * A Word made without a table gets its own one when the first occurrence is added by file name.
+ *
+ * The methods that record or read occurrences are synchronized, so threads can add occurrences to a
+ * Word shared through a ConcurrentBSTree while others report it. Uncontended locks cost little next
+ * to the array updates; the word string itself never changes and is read without locking.
+ *
  * @author  Precious, Monica, Jasmine, Mitali
  */
 public class Word implements Comparable<Word>, Serializable {
 
 	private static final long serialVersionUID = 1L;
-	
+
+	// The serialized form stays the original word/fileMap pair, so repositories saved by older versions still load.
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("word", String.class),
+			new ObjectStreamField("fileMap", Map.class) };
+
 	private String word; // The word string itself.
-	// Maps a filename (String) to a List of line numbers (Integer) where the word occurs in that file.
-	private Map<String, List<Integer>> fileMap;
-	
+	private FileTable fileTable; // The table the ids in files refer to.
+	private int[] files; // Ids of the files, in ascending order.
+	private int[][] lines; // lines[i] holds the line numbers in files[i], in the order recorded.
+	private int[] lineCounts; // lineCounts[i] is the number of used entries in lines[i].
+	private int fileCount; // Number of used entries in files.
+	private volatile int totalFrequency; // Number of occurrences across all files, kept up to date as they are added; read without locking.
+
 	/**
 	 * Constructor for the Word object.
-	 * Initializes the word string and an empty HashMap to track occurrences.
+	 * Initializes the word string with no occurrences; space for one file is allocated on the first occurrence.
 	 * @param word The unique word string.
 	 */
 	public Word(String word) {
-		
+
 		this.word = word;
-		this.fileMap = new HashMap<>(); // Initialize the map for file tracking.
-	
+
 	}
-	
+
+	/**
+	 * Constructor for a Word whose occurrences are recorded by the ids of a FileTable.
+	 * @param word The unique word string.
+	 * @param fileTable The table of the file ids passed to addOccurence(int, int).
+	 */
+	public Word(String word, FileTable fileTable) {
+
+		this.word = word;
+		this.fileTable = fileTable;
+
+	}
+
 	/**
 	 * Retrieves the word string.
 	 * @return The word string.
 	 */
 	public String getWord() {
-		
+
 		return word;
-		
+
 	}
-	
+
+	/**
+	 * Retrieves the table the file ids of this word refer to.
+	 * @return The table, or null if the word was made without one and has no occurrences yet.
+	 */
+	public synchronized FileTable getFileTable() {
+
+		return fileTable;
+
+	}
+
 	/**
 	 * Records a new occurrence of the word. If the file is new, it creates a new
-	 * list for line numbers for that file.
+	 * array for line numbers for that file.
+	 * Finding the id of the file takes a lock on the FileTable, so callers recording many
+	 * occurrences from one file should look the id up once and call addOccurence(int, int).
 	 * @param fileName The name of the file where the word was found.
 	 * @param lineNumber The line number where the word was found.
 	 */
-	public void addOccurence(String fileName, int lineNumber ) {
-		
-		// Adds a new ArrayList if the key (fileName) is absent; otherwise, returns the existing list.
-		fileMap.putIfAbsent(fileName, new ArrayList<>());
-		// Adds the specific line number to the list associated with the fileName.
-		fileMap.get(fileName).add(lineNumber);
-		
+	public synchronized void addOccurence(String fileName, int lineNumber ) {
+
+		if (fileTable == null) fileTable = new FileTable();
+		addOccurence(fileTable.id(fileName), lineNumber);
+
+	}
+
+	/**
+	 * Records a new occurrence of the word in a file given by its id in the word's FileTable.
+	 * @param fileId The id of the file where the word was found.
+	 * @param lineNumber The line number where the word was found.
+	 * @throws IllegalStateException if the word has no FileTable.
+	 */
+	public synchronized void addOccurence(int fileId, int lineNumber) {
+
+		if (fileTable == null) throw new IllegalStateException("The word \"" + word + "\" has no file table.");
+
+		int index = indexOf(fileId);
+		if (index < 0) index = addFile(-index - 1, fileId, 1);
+
+		// Grows the line array by half when it is full.
+		int count = lineCounts[index];
+		if (count == lines[index].length) {
+			lines[index] = Arrays.copyOf(lines[index], count + (count >> 1) + 1);
+		}
+		lines[index][count] = lineNumber;
+		lineCounts[index] = count + 1;
+		totalFrequency++;
+
+	}
+
+	/**
+	 * Merges all occurrences recorded by another Word for the same word string into this one.
+	 * Line numbers from the other Word are appended after the ones already recorded for each file.
+	 * Files of a Word with another FileTable are matched by name.
+	 * Only this Word is locked, so the other one must not be modified at the same time.
+	 * @param other The Word whose occurrences are added to this one.
+	 */
+	public synchronized void addAll(Word other) {
+
+		if (other.fileCount == 0) return;
+		if (fileTable == null) fileTable = other.fileTable;
+		boolean sameTable = (other.fileTable == fileTable);
+
+		for (int i = 0; i < other.fileCount; i++) {
+
+			int fileId = sameTable ? other.files[i] : fileTable.id(other.fileTable.name(other.files[i]));
+			int added = other.lineCounts[i];
+			int index = indexOf(fileId);
+			if (index < 0) index = addFile(-index - 1, fileId, added);
+
+			int count = lineCounts[index];
+			if (count + added > lines[index].length) {
+				lines[index] = Arrays.copyOf(lines[index], count + added);
+			}
+			System.arraycopy(other.lines[i], 0, lines[index], count, added);
+			lineCounts[index] = count + added;
+
+		}
+
+		totalFrequency += other.totalFrequency;
+
+	}
+
+	/**
+	 * Removes every occurrence recorded for a file, e.g. before the file is indexed again.
+	 * The remaining files keep their order.
+	 * @param fileName The file whose occurrences are removed.
+	 * @return true if the word had occurrences in that file.
+	 */
+	public synchronized boolean removeFile(String fileName) {
+
+		int fileId = (fileTable == null) ? -1 : fileTable.find(fileName);
+		int index = (fileId < 0) ? -1 : indexOf(fileId);
+		if (index < 0) return false;
+
+		totalFrequency -= lineCounts[index];
+		int moved = fileCount - index - 1;
+		System.arraycopy(files, index + 1, files, index, moved);
+		System.arraycopy(lines, index + 1, lines, index, moved);
+		System.arraycopy(lineCounts, index + 1, lineCounts, index, moved);
+		fileCount--;
+		lines[fileCount] = null;
+		lineCounts[fileCount] = 0;
+
+		return true;
+
+	}
+
+	/**
+	 * Finds the position of a file in the parallel arrays.
+	 * @param fileId The id of the file to look for.
+	 * @return The index of the file, or (-(insertion point) - 1) if the word has not been seen in it.
+	 */
+	private int indexOf(int fileId) {
+
+		if (fileCount == 0) return -1;
+		// Occurrences mostly come one file at a time, in id order, so try the last file first.
+		if (files[fileCount - 1] == fileId) return fileCount - 1;
+		return Arrays.binarySearch(files, 0, fileCount, fileId);
+
 	}
-	
+
+	/**
+	 * Inserts a new file with an empty line array, keeping the ids in ascending order.
+	 * @param index The position of the new file.
+	 * @param fileId The id of the file to add.
+	 * @param capacity The initial capacity of its line array.
+	 * @return The index of the new file.
+	 */
+	private int addFile(int index, int fileId, int capacity) {
+
+		if (files == null) {
+			files = new int[1];
+			lines = new int[1][];
+			lineCounts = new int[1];
+		} else if (fileCount == files.length) {
+			// Grow one slot at a time while small, since most words stay in one or two files.
+			int newLength = (fileCount < 4) ? fileCount + 1 : fileCount + (fileCount >> 1);
+			files = Arrays.copyOf(files, newLength);
+			lines = Arrays.copyOf(lines, newLength);
+			lineCounts = Arrays.copyOf(lineCounts, newLength);
+		}
+
+		int moved = fileCount - index;
+		System.arraycopy(files, index, files, index + 1, moved);
+		System.arraycopy(lines, index, lines, index + 1, moved);
+		System.arraycopy(lineCounts, index, lineCounts, index + 1, moved);
+		fileCount++;
+
+		files[index] = fileId;
+		lines[index] = new int[capacity];
+		lineCounts[index] = 0;
+		return index;
+
+	}
+
 	/**
 	 * Retrieves the set of unique filenames in which this word has appeared.
-	 * @return A Set of filenames (the keys of the fileMap).
+	 * @return A read-only Set of filenames, in FileTable id order.
+	 */
+	public synchronized Set<String> getFileNames(){
+
+		Set<String> names = new LinkedHashSet<>();
+		for (int i = 0; i < fileCount; i++) names.add(fileTable.name(files[i]));
+		return Collections.unmodifiableSet(names);
+
+	}
+
+	/**
+	 * Retrieves the number of files in which this word has appeared.
+	 * @return The file count.
+	 */
+	public synchronized int getFileCount() {
+
+		return fileCount;
+
+	}
+
+	/**
+	 * Retrieves a filename by position, in FileTable id order.
+	 * @param index The position of the file, from 0 to getFileCount() - 1.
+	 * @return The filename.
+	 */
+	public synchronized String getFileName(int index) {
+
+		checkFileIndex(index);
+		return fileTable.name(files[index]);
+
+	}
+
+	/**
+	 * Retrieves the id of a file in the word's FileTable, by position.
+	 * @param index The position of the file, from 0 to getFileCount() - 1.
+	 * @return The id of the file.
 	 */
-	public Set<String> getFileNames(){
-		
-		return fileMap.keySet();
-		
+	public synchronized int getFileId(int index) {
+
+		checkFileIndex(index);
+		return files[index];
+
 	}
-	
+
+	/**
+	 * Retrieves the number of occurrences recorded for a file, by position.
+	 * @param index The position of the file, from 0 to getFileCount() - 1.
+	 * @return The number of line numbers recorded for that file.
+	 */
+	public synchronized int getLineCount(int index) {
+
+		checkFileIndex(index);
+		return lineCounts[index];
+
+	}
+
+	/**
+	 * Retrieves one recorded line number without boxing it.
+	 * @param index The position of the file, from 0 to getFileCount() - 1.
+	 * @param occurrence The position of the occurrence, from 0 to getLineCount(index) - 1.
+	 * @return The line number.
+	 */
+	public synchronized int getLineNumber(int index, int occurrence) {
+
+		checkFileIndex(index);
+		if (occurrence < 0 || occurrence >= lineCounts[index]) throw new IndexOutOfBoundsException("Occurrence: " + occurrence);
+		return lines[index][occurrence];
+
+	}
+
 	/**
 	 * Retrieves the list of line numbers where the word was found in a specific file.
 	 * @param fileName The file to query.
-	 * @return A List of Integer line numbers for that file.
+	 * @return A read-only List of Integer line numbers for that file, or null if the word is not in it.
 	 */
-	public List<Integer> getLineNumbers(String fileName) {
-		
-		return fileMap.get(fileName);
-		
+	public synchronized List<Integer> getLineNumbers(String fileName) {
+
+		int fileId = (fileTable == null) ? -1 : fileTable.find(fileName);
+		int index = (fileId < 0) ? -1 : indexOf(fileId);
+		if (index < 0) return null;
+
+		int[] fileLines = lines[index];
+		int count = lineCounts[index];
+
+		// A read-only view of the lines recorded so far; values are boxed only when read.
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int i) {
+				if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Index: " + i);
+				return fileLines[i];
+			}
+
+			@Override
+			public int size() {
+				return count;
+			}
+		};
+
 	}
-	
+
 	/**
-	 * Calculates the total frequency of the word across all tracked files.
+	 * Retrieves the total frequency of the word across all tracked files.
+	 * The count is maintained as occurrences are added, so this takes constant time.
 	 * @return The total count of occurrences.
 	 */
 	public int getTotalFrequency() {
-		
-		int total = 0;
-		// Sums the size of all line number lists (values) in the map.
-		for (List<Integer> list : fileMap.values()) {
-			total += list.size();
-			}
-		
-		return total;
-		
+
+		return totalFrequency;
+
 	}
-	
+
+	/**
+	 * Checks that a file position is valid.
+	 * @param index The position of the file.
+	 */
+	private void checkFileIndex(int index) {
+
+		if (index < 0 || index >= fileCount) throw new IndexOutOfBoundsException("File index: " + index);
+
+	}
+
 	/**
 	 * Compares this Word object to another for sorting in the BST.
 	 * Comparison is based on the natural alphabetical ordering of the word string.
@@ -101,80 +360,65 @@ public class Word implements Comparable<Word>, Serializable {
 	 * @return A negative integer, zero, or a positive integer as this object
 	 * is less than, equal to, or greater than the specified object.
 	 */
-	
+
 	@Override
 	public int compareTo(Word o) {
 		// Use the String class's natural ordering for comparison.
 		return this.word.compareTo(o.word);
-		
+
 	}
-	
+
+	/**
+	 * Creates a search key that compares equal to every Word starting with a prefix, and like the
+	 * prefix itself to any other Word. Those words are contiguous in the natural order, so the key
+	 * can be passed to BSTreeADT.prefixIterator to list them.
+	 * @param prefix The prefix of the words to match.
+	 * @return A key comparable to Word objects.
+	 * @throws NullPointerException if the prefix is null.
+	 */
+	public static Comparable<Word> prefix(String prefix) {
+
+		if (prefix == null) throw new NullPointerException("Prefix cannot be null.");
+
+		// A word that does not start with the prefix differs from it before the end of the prefix, or is shorter.
+		return other -> other.word.startsWith(prefix) ? 0 : prefix.compareTo(other.word);
+
+	}
+
 	/**
 	 * Standard toString method, returns just the word string.
 	 */
 	@Override
 	public String toString() {
-		
+
 		return word;
-		
+
 	}
-	
+
 	/**
 	 * Formats the output for the -pf flag (Print Files).
 	 * Output format: Word: file1 file2 file3 ...
 	 * @return The formatted string containing the word and all files it occurred in.
 	 */
 	public String toPFString() {
-		
-		StringBuilder stringbuilder = new StringBuilder();
-		stringbuilder.append(word).append(": ");
-		
-		// Append all filenames, separated by a space.
-		for (String file : fileMap.keySet()) {
-			
-			stringbuilder.append(file).append(" ");
-			
-		}
-		
-		return stringbuilder.toString().trim(); // Trim trailing space.
-		
+
+		return format(false, false);
+
 	}
-	
+
 	/**
 	 * Formats the output for the -pl flag (Print Lines).
 	 * Output format: Word: file1[L1, L2] file2[L3] ...
 	 * Prints the word, files, and line numbers.
 	 * @return The formatted string.
 	 */
-	
+
 	public String toPLString() {
-		
-		StringBuilder stringBuilder = new StringBuilder();
-		stringBuilder.append(word).append(": ");
-		
-		// Iterate through each file tracked.
-		for (String file : fileMap.keySet()) {
-			
-			stringBuilder.append(file).append("[");
-			List<Integer> lines = fileMap.get(file); // Get the list of line numbers for this file.
-			
-			// Append all line numbers, separated by ", ".
-			for (int i = 0; i < lines.size(); i++) {
-				
-				stringBuilder.append(lines.get(i));
-				
-				if (i < lines.size() - 1) stringBuilder.append(", ");
-				
-			}
-			
-			stringBuilder.append("] "); // Close bracket and add space before the next file.
-			
-		}
-		
-		return stringBuilder.toString().trim();
-		
+
+		return format(true, false);
+
 	}
-	
+
 	/**
 	 * Formats the output for the -po flag (Print Occurrences).
 	 * Output format: Word: file1[L1, L2] file2[L3] (freq = N)
@@ -182,34 +426,149 @@ public class Word implements Comparable<Word>, Serializable {
 	 * @return The formatted string.
 	 */
 	public String toPOString() {
-		
+
+		return format(true, true);
+
+	}
+
+	/**
+	 * Writes the -pf line (the same text as toPFString) straight to an Appendable,
+	 * so a report can be streamed without building a String per word.
+	 * @param out Where to write the line (without a line terminator).
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void appendPFTo(Appendable out) throws IOException {
+
+		appendTo(out, false, false);
+
+	}
+
+	/**
+	 * Writes the -pl line (the same text as toPLString) straight to an Appendable.
+	 * @param out Where to write the line (without a line terminator).
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void appendPLTo(Appendable out) throws IOException {
+
+		appendTo(out, true, false);
+
+	}
+
+	/**
+	 * Writes the -po line (the same text as toPOString) straight to an Appendable.
+	 * @param out Where to write the line (without a line terminator).
+	 * @throws IOException if the output cannot be written.
+	 */
+	public void appendPOTo(Appendable out) throws IOException {
+
+		appendTo(out, true, true);
+
+	}
+
+	/**
+	 * Formats a report line into a String.
+	 */
+	private String format(boolean withLines, boolean withFrequency) {
+
 		StringBuilder stringBuilder = new StringBuilder();
-		stringBuilder .append(word).append(": ");
-		
-		// Iterate through each file, appending filename and line numbers (same as PL).
-		for (String file : fileMap.keySet()) {
-			
-			stringBuilder.append(file).append("[");
-			List<Integer> lines = fileMap.get(file);
-			
-			for (int i = 0; i< lines.size(); i++) {
-				
-				stringBuilder.append(lines.get(i));
-				
-				if (i < lines.size() - 1) stringBuilder.append(", ");
-				
+		try {
+			appendTo(stringBuilder, withLines, withFrequency);
+		}catch (IOException e) {
+			throw new AssertionError(e); // A StringBuilder never throws.
+		}
+		return stringBuilder.toString();
+
+	}
+
+	/**
+	 * Writes a report line: the word, then each file with (optionally) its line numbers,
+	 * then (optionally) the total frequency.
+	 * @param out Where to write the line.
+	 * @param withLines true to write the line numbers of each file.
+	 * @param withFrequency true to end the line with the total frequency.
+	 * @throws IOException if the output cannot be written.
+	 */
+	private synchronized void appendTo(Appendable out, boolean withLines, boolean withFrequency) throws IOException {
+
+		out.append(word).append(':');
+
+		for (int f = 0; f < fileCount; f++) {
+
+			out.append(' ').append(fileTable.name(files[f]));
+			if (!withLines) continue;
+
+			// Append all line numbers, separated by ", ".
+			out.append('[');
+			for (int i = 0; i < lineCounts[f]; i++) {
+				if (i > 0) out.append(", ");
+				appendNumber(out, lines[f][i]);
+			}
+			out.append(']');
+
+		}
+
+		if (withFrequency) {
+			out.append(" (freq = ");
+			appendNumber(out, totalFrequency);
+			out.append(')');
+		}
+
+	}
+
+	/**
+	 * Writes a number, without creating a String when the target is a StringBuilder.
+	 */
+	private static void appendNumber(Appendable out, int value) throws IOException {
+
+		if (out instanceof StringBuilder) ((StringBuilder) out).append(value);
+		else out.append(Integer.toString(value));
+
+	}
+
+	/**
+	 * Writes the word in its original serialized form (word and a file-to-lines map).
+	 * @param out The stream to write to.
+	 * @throws IOException if the stream cannot be written.
+	 */
+	private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+
+		Map<String, List<Integer>> fileMap = new LinkedHashMap<>();
+		for (int f = 0; f < fileCount; f++) {
+			List<Integer> list = new ArrayList<>(lineCounts[f]);
+			for (int i = 0; i < lineCounts[f]; i++) list.add(lines[f][i]);
+			fileMap.put(fileTable.name(files[f]), list);
+		}
+
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("word", word);
+		fields.put("fileMap", fileMap);
+		out.writeFields();
+
+	}
+
+	/**
+	 * Restores a word from its serialized form, converting the file-to-lines map into arrays.
+	 * The total frequency is not part of the serialized form; it is recounted as the occurrences are added.
+	 * The files are recorded in the table of a FileTable.Reader, or in a new table of the word's own.
+	 * @param in The stream to read from.
+	 * @throws IOException if the stream cannot be read.
+	 * @throws ClassNotFoundException if the stream holds an unknown class.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+		ObjectInputStream.GetField fields = in.readFields();
+		word = (String) fields.get("word", null);
+		if (in instanceof FileTable.Reader) fileTable = ((FileTable.Reader) in).getFileTable();
+		Map<String, List<Integer>> fileMap = (Map<String, List<Integer>>) fields.get("fileMap", null);
+
+		if (fileMap != null) {
+			for (Map.Entry<String, List<Integer>> entry : fileMap.entrySet()) {
+				for (int line : entry.getValue()) addOccurence(entry.getKey(), line);
 			}
-			
-			stringBuilder.append("] ");
-			
 		}
-		
-		// Append the total frequency count at the end of the line.
-		stringBuilder.append("(freq = ").append(getTotalFrequency()).append(")");
-		
-		return stringBuilder.toString().trim();
-		
-	}
-	
-	
-}
\ No newline at end of file
+
+	}
+
+
+}
@@ -4,6 +4,7 @@
 package utilities;
 
 import java.io.Serializable;
+import java.util.function.Function;
 
 import implementations.BSTreeNode;
 
@@ -86,6 +87,23 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public boolean add( E newEntry ) throws NullPointerException;
 
+	/**
+	 * Finds the element equal to the given key, or creates and adds one if it is
+	 * absent. Finding an existing element descends the tree once without
+	 * modifying it. The key may be the element type itself or any other object
+	 * that compares against stored elements; an element created by the mapping
+	 * function must compare equal to the key.
+	 * 
+	 * @param <K> the type of the key being looked up
+	 * @param key the key of the element to find
+	 * @param mappingFunction creates the new element from the key on a miss
+	 * @return the element stored in the tree, existing or newly added
+	 * @throws NullPointerException if the key is null or the mapping function
+	 *         returns null
+	 */
+	public <K extends Comparable<? super E>> E computeIfAbsent( K key, Function<? super K, ? extends E> mappingFunction )
+			throws NullPointerException;
+
 	/**
 	 * Removes the smallest element in the tree according to the natural ordering
 	 * established by the Comparable implementation.
@@ -102,6 +120,57 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
 	 */
 	public BSTreeNode<E> removeMax();
 
+	/**
+	 * Finds the largest element in the tree that is less than or equal to the
+	 * given key.
+	 *
+	 * @param <K> the type of the key being looked up
+	 * @param key the key to compare the elements against
+	 * @return the largest element not greater than the key, or null if there is
+	 *         none
+	 * @throws NullPointerException if the key is null
+	 */
+	public <K extends Comparable<? super E>> E floor( K key ) throws NullPointerException;
+
+	/**
+	 * Finds the smallest element in the tree that is greater than or equal to the
+	 * given key.
+	 *
+	 * @param <K> the type of the key being looked up
+	 * @param key the key to compare the elements against
+	 * @return the smallest element not less than the key, or null if there is
+	 *         none
+	 * @throws NullPointerException if the key is null
+	 */
+	public <K extends Comparable<? super E>> E ceiling( K key ) throws NullPointerException;
+
+	/**
+	 * Generates an in-order iteration over the elements between two keys,
+	 * inclusive. Subtrees entirely outside the range are never visited, so the
+	 * iteration costs O(log n + k) for k matching elements on a balanced tree.
+	 *
+	 * @param <K> the type of the keys bounding the range
+	 * @param from the lowest key of the range
+	 * @param to the highest key of the range
+	 * @return an iterator with the elements in the range in their natural order,
+	 *         empty if from is greater than to
+	 * @throws NullPointerException if either key is null
+	 */
+	public <K extends Comparable<? super E>> Iterator<E> subTree( K from, K to ) throws NullPointerException;
+
+	/**
+	 * Generates an in-order iteration over the elements that compare equal to
+	 * the given key. With a key that compares equal to every element starting
+	 * with a prefix, such as Word.prefix, this lists the elements having that
+	 * prefix, which lie next to each other in the natural order.
+	 *
+	 * @param <K> the type of the key being looked up
+	 * @param prefix the key the elements must compare equal to
+	 * @return an iterator with the matching elements in their natural order
+	 * @throws NullPointerException if the key is null
+	 */
+	public <K extends Comparable<? super E>> Iterator<E> prefixIterator( K prefix ) throws NullPointerException;
+
 	/**
 	 * Generates an in-order iteration over the contents of the tree. Elements are
 	 * in their natural order.
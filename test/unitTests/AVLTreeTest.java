@@ -0,0 +1,181 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.BSTreeNode;
+
+/**
+ * Runs the whole BSTreeTest suite against the self-balancing AVLTree and adds
+ * tests checking that the height stays logarithmic on sorted input.
+ */
+
+public class AVLTreeTest extends BSTreeTest
+{
+	/**
+	 * Creates an empty AVLTree for every inherited test.
+	 */
+	@Override
+	protected BSTree<Integer> createTree()
+	{
+		return new AVLTree<Integer>();
+	}
+
+	/**
+	 * Creates an AVLTree holding a single root entry.
+	 */
+	@Override
+	protected BSTree<Integer> createTree( Integer entry )
+	{
+		return new AVLTree<Integer>( entry );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#getHeight()} to return the
+	 * height of a tree built from sorted input, which rotations keep balanced.
+	 */
+	@Override
+	@Test
+	public void testGetHeight_IllBalanced()
+	{
+		tree.add( one );
+		tree.add( two );
+		tree.add( three );
+		tree.add( four );
+		tree.add( five );
+		tree.add( six );
+		tree.add( seven );
+		int expected = 3;
+		int actual = tree.getHeight();
+		assertEquals( "Failed to return correct height.", expected, actual );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#add(java.lang.Comparable)} to
+	 * keep the height within the AVL bound when adding ascending input.
+	 */
+	@Test
+	public void testHeightBound_AscendingInput()
+	{
+		int n = 100000;
+		for( int i = 0; i < n; i++ )
+		{
+			tree.add( i );
+		}
+
+		assertEquals( "Failed to update size correctly.", n, tree.size() );
+		assertTrue( "Height exceeds the AVL bound.", tree.getHeight() <= maxAvlHeight( n ) );
+		assertEquals( "Stored height does not match the real height.", tree.getHeight(), checkBalanced( tree.getRoot() ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#add(java.lang.Comparable)} to
+	 * keep the height within the AVL bound when adding descending input.
+	 */
+	@Test
+	public void testHeightBound_DescendingInput()
+	{
+		int n = 100000;
+		for( int i = n; i > 0; i-- )
+		{
+			tree.add( i );
+		}
+
+		assertTrue( "Height exceeds the AVL bound.", tree.getHeight() <= maxAvlHeight( n ) );
+		assertEquals( "Stored height does not match the real height.", tree.getHeight(), checkBalanced( tree.getRoot() ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#removeMin()} and
+	 * {@link implementations.AVLTree#removeMax()} to keep the tree balanced and
+	 * ordered while elements are removed from both ends.
+	 */
+	@Test
+	public void testHeightBound_RemoveMinMax()
+	{
+		int n = 10000;
+		for( int i = 0; i < n; i++ )
+		{
+			tree.add( i );
+		}
+
+		int low = 0;
+		int high = n - 1;
+		while( !tree.isEmpty() )
+		{
+			assertEquals( "Failed to remove the minimum value.", low++, (int) tree.removeMin().getElement() );
+			if( !tree.isEmpty() )
+			{
+				assertEquals( "Failed to remove the maximum value.", high--, (int) tree.removeMax().getElement() );
+			}
+			if( !tree.isEmpty() )
+			{
+				assertTrue( "Height exceeds the AVL bound.", tree.getHeight() <= maxAvlHeight( tree.size() ) );
+				checkBalanced( tree.getRoot() );
+			}
+		}
+		assertEquals( "Failed to update size.", 0, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.AVLTree#inorderIterator()} to keep
+	 * duplicates and return everything in sorted order after rotations.
+	 */
+	@Test
+	public void testInorderIterator_AfterRotations()
+	{
+		for( int i = 0; i < 1000; i++ )
+		{
+			tree.add( i % 10 );
+		}
+
+		Iterator<Integer> it = tree.inorderIterator();
+		int count = 0;
+		int previous = Integer.MIN_VALUE;
+		while( it.hasNext() )
+		{
+			int current = it.next();
+			assertTrue( "In-order iterator is out of order.", previous <= current );
+			previous = current;
+			count++;
+		}
+		assertEquals( "Failed to keep duplicate elements.", 1000, count );
+		checkBalanced( tree.getRoot() );
+	}
+
+	/**
+	 * Largest height an AVL tree with n nodes can have (about 1.44 log2 n).
+	 *
+	 * @param n the number of nodes
+	 * @return the height bound
+	 */
+	private static int maxAvlHeight( int n )
+	{
+		return (int) Math.floor( 1.4405 * ( Math.log( n + 2 ) / Math.log( 2 ) ) - 0.3277 );
+	}
+
+	/**
+	 * Verifies the balance factor and the stored height of every node.
+	 *
+	 * @param node the subtree root
+	 * @return the real height of the subtree
+	 */
+	private static int checkBalanced( BSTreeNode<Integer> node )
+	{
+		if( node == null )
+		{
+			return 0;
+		}
+		int left = checkBalanced( node.getLeft() );
+		int right = checkBalanced( node.getRight() );
+		assertTrue( "Node is out of balance.", Math.abs( left - right ) <= 1 );
+		int height = 1 + Math.max( left, right );
+		assertEquals( "Stored node height is stale.", height, node.getHeight() );
+		return height;
+	}
+}
@@ -0,0 +1,275 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.ArrayBSTree;
+import implementations.BSTree;
+import implementations.BSTreeNode;
+
+/**
+ * Tests that the array-backed tree builds the same tree as BSTree for the same
+ * input, and that its detached nodes and reused slots behave as documented.
+ */
+
+public class ArrayBSTreeTest
+{
+	// Attributes
+	private ArrayBSTree<Integer> tree;
+	private BSTree<Integer> reference;
+
+	/**
+	 * Creates an empty array-backed tree and the BSTree it is compared with
+	 * before each test.
+	 */
+	@Before
+	public void setUp()
+	{
+		tree = new ArrayBSTree<Integer>( 2 );
+		reference = new BSTree<Integer>();
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#add(java.lang.Comparable)}
+	 * to give every traversal and the height of a BSTree filled in the same
+	 * order, duplicates included.
+	 */
+	@Test
+	public void testAdd_SameShapeAsBSTree()
+	{
+		Random random = new Random( 3 );
+		for( int i = 0; i < 5000; i++ )
+		{
+			Integer value = random.nextInt( 2000 );
+			assertTrue( tree.add( value ) );
+			reference.add( value );
+		}
+
+		assertEquals( reference.size(), tree.size() );
+		assertEquals( "Failed to keep the height.", reference.getHeight(), tree.getHeight() );
+		assertSameTraversals();
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#computeIfAbsent(Comparable, java.util.function.Function)}
+	 * to return the stored element and only add missing ones.
+	 */
+	@Test
+	public void testComputeIfAbsent()
+	{
+		// Outside the Integer cache, so the other key is a different instance.
+		Integer stored = Integer.valueOf( 1000 );
+		Integer other = Integer.valueOf( 1000 );
+		assertNotSame( stored, other );
+		tree.add( 44 );
+		tree.add( stored );
+
+		assertSame( "Failed to return the stored element.", stored, tree.computeIfAbsent( other, key -> -1 ) );
+		assertEquals( 2, tree.size() );
+		assertEquals( 22, (int) tree.computeIfAbsent( 22, key -> key ) );
+		assertEquals( 3, tree.size() );
+		assertTrue( tree.contains( 22 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#search(java.lang.Comparable)}
+	 * and {@link implementations.ArrayBSTree#find(java.lang.Comparable)} to return
+	 * the stored element, in a detached node for search.
+	 */
+	@Test
+	public void testSearch_Detached()
+	{
+		// Outside the Integer cache, so the keys below are different instances.
+		Integer stored = Integer.valueOf( 6600 );
+		tree.add( 44 );
+		tree.add( 22 );
+		tree.add( stored );
+
+		BSTreeNode<Integer> node = tree.search( Integer.valueOf( 6600 ) );
+		assertSame( stored, node.getElement() );
+		assertNull( "Failed to detach the node.", node.getLeft() );
+		assertSame( stored, tree.find( Integer.valueOf( 6600 ) ) );
+		assertNull( tree.search( 55 ) );
+		assertNull( tree.find( 55 ) );
+		assertEquals( 44, (int) tree.getRoot().getElement() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#removeMin()} and
+	 * {@link implementations.ArrayBSTree#removeMax()} to remove the same
+	 * elements as BSTree, reusing the freed slots for later additions.
+	 */
+	@Test
+	public void testRemoveMinMax_ReusesSlots()
+	{
+		Random random = new Random( 5 );
+		for( int round = 0; round < 20; round++ )
+		{
+			for( int i = 0; i < 100; i++ )
+			{
+				Integer value = random.nextInt( 500 );
+				tree.add( value );
+				reference.add( value );
+			}
+			for( int i = 0; i < 60; i++ )
+			{
+				boolean min = random.nextBoolean();
+				BSTreeNode<Integer> expected = min ? reference.removeMin() : reference.removeMax();
+				BSTreeNode<Integer> actual = min ? tree.removeMin() : tree.removeMax();
+				assertEquals( expected.getElement(), actual.getElement() );
+			}
+		}
+
+		assertEquals( reference.size(), tree.size() );
+		assertSameTraversals();
+
+		tree.clear();
+		assertTrue( tree.isEmpty() );
+		assertNull( tree.removeMin() );
+		assertNull( tree.removeMax() );
+		assertEquals( 0, tree.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#loadSorted(java.util.List)}
+	 * to build the same balanced tree as BSTree.
+	 */
+	@Test
+	public void testLoadSorted()
+	{
+		List<Integer> sorted = new ArrayList<Integer>();
+		for( int i = 0; i < 1000; i++ )
+		{
+			sorted.add( i );
+		}
+		tree.add( 5 );
+		tree.loadSorted( sorted );
+		reference.loadSorted( sorted );
+
+		assertEquals( 1000, tree.size() );
+		assertEquals( 10, tree.getHeight() );
+		assertSameTraversals();
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#getHeight()} not to
+	 * overflow the call stack on a degenerate tree.
+	 */
+	@Test
+	public void testGetHeight_Degenerate()
+	{
+		for( int i = 0; i < 100000; i++ )
+		{
+			tree.add( i );
+		}
+		assertEquals( 100000, tree.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#getRoot()} to throw
+	 * NullPointerException on an empty tree.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testGetRoot_NullPointerException()
+	{
+		tree.getRoot();
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#add(java.lang.Comparable)}
+	 * to refuse null entries.
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testAdd_NullPointerException()
+	{
+		tree.add( null );
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#inorderIterator()} to fail
+	 * fast when the tree is modified during the iteration.
+	 */
+	@Test
+	public void testInorderIterator_ConcurrentModification()
+	{
+		tree.add( 44 );
+		tree.add( 22 );
+		tree.add( 66 );
+
+		Iterator<Integer> it = tree.inorderIterator();
+		assertEquals( 22, (int) it.next() );
+		tree.removeMax();
+		try
+		{
+			it.next();
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ArrayBSTree#subTree(Comparable, Comparable)},
+	 * {@link implementations.ArrayBSTree#floor(Comparable)} and
+	 * {@link implementations.ArrayBSTree#ceiling(Comparable)} to give the same
+	 * answers as BSTree, after removals have freed slots.
+	 */
+	@Test
+	public void testRangeQueries_SameAsBSTree()
+	{
+		Random random = new Random( 5 );
+		for( int i = 0; i < 3000; i++ )
+		{
+			Integer value = random.nextInt( 4000 );
+			tree.add( value );
+			reference.add( value );
+			if( i % 10 == 9 )
+			{
+				assertEquals( reference.removeMin().getElement(), tree.removeMin().getElement() );
+			}
+		}
+
+		for( int i = 0; i < 500; i++ )
+		{
+			int from = random.nextInt( 4100 ) - 50;
+			int to = from + random.nextInt( 200 ) - 20;
+			assertEquals( "Floor of " + from + " differs.", reference.floor( from ), tree.floor( from ) );
+			assertEquals( "Ceiling of " + from + " differs.", reference.ceiling( from ), tree.ceiling( from ) );
+			assertSameElements( "Range", reference.subTree( from, to ), tree.subTree( from, to ) );
+		}
+	}
+
+	/**
+	 * Checks that both trees hold the same elements in the same shape.
+	 */
+	private void assertSameTraversals()
+	{
+		assertSameElements( "In-order", reference.inorderIterator(), tree.inorderIterator() );
+		assertSameElements( "Pre-order", reference.preorderIterator(), tree.preorderIterator() );
+		assertSameElements( "Post-order", reference.postorderIterator(), tree.postorderIterator() );
+	}
+
+	/**
+	 * Checks that two iterations return equal elements.
+	 */
+	private static void assertSameElements( String order, Iterator<Integer> expected, Iterator<Integer> actual )
+	{
+		while( expected.hasNext() )
+		{
+			assertTrue( order + " iteration ended early.", actual.hasNext() );
+			assertEquals( order + " iteration differs.", expected.next(), actual.next() );
+		}
+		assertFalse( order + " iteration has extra elements.", actual.hasNext() );
+	}
+}
@@ -1,6 +1,17 @@
 package unitTests;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -10,6 +21,7 @@ import utilities.Iterator;
 
 import implementations.BSTree;
 import implementations.BSTreeNode;
+import implementations.TreeStatistics;
 
 /**
  * @author kitty, maryam
@@ -22,14 +34,36 @@ import implementations.BSTreeNode;
 public class BSTreeTest
 {
 	// Attributes
-	private BSTree<Integer> tree;
-	private Integer one;
-	private Integer two;
-	private Integer three;
-	private Integer four;
-	private Integer five;
-	private Integer six;
-	private Integer seven;
+	protected BSTree<Integer> tree;
+	protected Integer one;
+	protected Integer two;
+	protected Integer three;
+	protected Integer four;
+	protected Integer five;
+	protected Integer six;
+	protected Integer seven;
+
+	/**
+	 * Creates the empty tree under test. Subclasses override this to run the
+	 * suite against another BSTree implementation.
+	 * 
+	 * @return a new, empty tree
+	 */
+	protected BSTree<Integer> createTree()
+	{
+		return new BSTree<Integer>();
+	}
+
+	/**
+	 * Creates the tree under test holding a single root entry.
+	 * 
+	 * @param entry the root element
+	 * @return a new tree containing only entry
+	 */
+	protected BSTree<Integer> createTree( Integer entry )
+	{
+		return new BSTree<Integer>( entry );
+	}
 
 	/**
 	 * Initializes a new BSTree instance and seven Integer instances before each
@@ -40,7 +74,7 @@ public class BSTreeTest
 	@Before
 	public void setUp() throws Exception
 	{
-		tree = new BSTree<Integer>();
+		tree = createTree();
 		one = 11;
 		two = 22;
 		three = 33;
@@ -92,7 +126,7 @@ public class BSTreeTest
 		int expected = 11;
 		int actual = 0;
 
-		BSTree<Integer> newTree = new BSTree<Integer>( one );
+		BSTree<Integer> newTree = createTree( one );
 
 		BSTreeNode<Integer> i = newTree.getRoot();
 		actual = i.getElement();
@@ -190,6 +224,210 @@ public class BSTreeTest
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#computeIfAbsent(java.lang.Comparable, java.util.function.Function)}
+	 * to return the stored element without calling the mapping function when the
+	 * key is already in the tree.
+	 */
+	@Test
+	public void testComputeIfAbsent_Existing()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		Integer actual = tree.computeIfAbsent( 22, k -> {
+			fail( "Mapping function should not be called for an existing key." );
+			return k;
+		} );
+
+		assertSame( "Failed to return the stored element.", two, actual );
+		assertEquals( "Size of tree should be ", 3, tree.size() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#computeIfAbsent(java.lang.Comparable, java.util.function.Function)}
+	 * to add the created element when the key is missing.
+	 */
+	@Test
+	public void testComputeIfAbsent_Missing()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		Integer actual = tree.computeIfAbsent( five, k -> k );
+
+		assertSame( "Failed to return the added element.", five, actual );
+		assertEquals( "Failed to update size correctly.", 4, tree.size() );
+		assertTrue( "Failed to add the element.", tree.contains( five ) );
+
+		Integer[] shouldBe = { two, four, five, six };
+		Iterator<Integer> it = tree.inorderIterator();
+		for( Integer expected : shouldBe )
+		{
+			assertEquals( "In-order iterator is out of order.", expected, it.next() );
+		}
+		assertFalse( it.hasNext() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#computeIfAbsent(java.lang.Comparable, java.util.function.Function)}
+	 * to build the same tree as adding the missing keys, with the same sizes and
+	 * heights, when hits and misses are interleaved.
+	 */
+	@Test
+	public void testComputeIfAbsent_SameShapeAsAdd()
+	{
+		BSTree<Integer> added = createTree();
+		for( int i = 0; i < 500; i++ )
+		{
+			Integer value = ( i * 37 ) % 101; // Every value comes back a few times.
+			tree.computeIfAbsent( value, k -> k );
+			if( !added.contains( value ) )
+			{
+				added.add( value );
+			}
+		}
+
+		assertEquals( "Failed to update size correctly.", added.size(), tree.size() );
+		assertEquals( "Failed to update height correctly.", added.getHeight(), tree.getHeight() );
+		for( int i = 0; i < added.size(); i++ )
+		{
+			assertEquals( "Failed to update subtree sizes correctly.", added.select( i ), tree.select( i ) );
+		}
+		Iterator<Integer> expected = added.preorderIterator();
+		Iterator<Integer> actual = tree.preorderIterator();
+		while( expected.hasNext() )
+		{
+			assertEquals( "Failed to build the same tree.", expected.next(), actual.next() );
+		}
+		assertFalse( actual.hasNext() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link implementations.BSTree#computeIfAbsent(java.lang.Comparable, java.util.function.Function)}
+	 * to throw a NullPointerException when passing a null key.
+	 */
+	@Test
+	public void testComputeIfAbsentForNullPointerException()
+	{
+		try
+		{
+			tree.computeIfAbsent( null, k -> one );
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#loadSorted(java.util.List)}
+	 * to replace the contents with a balanced tree built from sorted input.
+	 */
+	@Test
+	public void testLoadSorted()
+	{
+		tree.add( seven );
+		List<Integer> sorted = Arrays.asList( one, two, three, four, five, six, seven );
+
+		tree.loadSorted( sorted );
+
+		assertEquals( "Failed to update size correctly.", 7, tree.size() );
+		assertEquals( "Failed to build a balanced tree.", 3, tree.getHeight() );
+		assertEquals( "Failed to pick the middle element as root.", four, tree.getRoot().getElement() );
+		Iterator<Integer> it = tree.inorderIterator();
+		for( Integer expected : sorted )
+		{
+			assertEquals( "In-order iterator is out of order.", expected, it.next() );
+		}
+		assertFalse( it.hasNext() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#loadSorted(Iterator, int)}
+	 * to build the same tree as loadSorted(List) from an iteration, and to leave
+	 * the tree unchanged if the iteration is too short.
+	 */
+	@Test
+	public void testLoadSorted_Iterator()
+	{
+		List<Integer> sorted = new ArrayList<Integer>();
+		for( int i = 0; i < 1000; i++ )
+		{
+			sorted.add( i );
+		}
+		BSTree<Integer> expected = createTree();
+		expected.loadSorted( sorted );
+
+		tree.loadSorted( BSTree.fromSorted( sorted.toArray( new Integer[0] ) ).inorderIterator(), 1000 );
+
+		assertEquals( 1000, tree.size() );
+		assertEquals( "Failed to build a balanced tree.", 10, tree.getHeight() );
+		assertEquals( "Failed to give the shape of loadSorted.", toList( expected.preorderIterator() ), toList( tree.preorderIterator() ) );
+
+		try
+		{
+			tree.loadSorted( expected.inorderIterator(), 1001 );
+			fail( "Failed to throw NoSuchElementException." );
+		}
+		catch( NoSuchElementException e )
+		{
+			assertEquals( "Failed to keep the tree.", 1000, tree.size() );
+			assertEquals( sorted, toList( tree.inorderIterator() ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#fromSorted(Comparable[])} to
+	 * build a tree of minimal height.
+	 */
+	@Test
+	public void testFromSorted()
+	{
+		BSTree<Integer> built = BSTree.fromSorted( new Integer[] { one, two, three, four, five, six } );
+
+		assertEquals( 6, built.size() );
+		assertEquals( "Failed to build a balanced tree.", 3, built.getHeight() );
+		assertEquals( Arrays.asList( three, one, two, five, four, six ), toList( built.preorderIterator() ) );
+		assertEquals( 0, BSTree.fromSorted( new Integer[0] ).size() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#rebalance()} to turn a tree
+	 * filled from sorted input into a tree of minimal height, reusing its nodes.
+	 */
+	@Test
+	public void testRebalance()
+	{
+		tree.rebalance();
+		assertTrue( "Failed to keep an empty tree.", tree.isEmpty() );
+
+		List<Integer> sorted = new ArrayList<Integer>();
+		for( int i = 0; i < 1023; i++ )
+		{
+			tree.add( i );
+			sorted.add( i );
+		}
+		BSTreeNode<Integer> node = tree.search( 500 );
+
+		tree.rebalance();
+
+		assertEquals( "Failed to keep the size.", 1023, tree.size() );
+		assertEquals( "Failed to build a balanced tree.", 10, tree.getHeight() );
+		assertEquals( "Failed to pick the middle element as root.", 511, (int) tree.getRoot().getElement() );
+		assertEquals( sorted, toList( tree.inorderIterator() ) );
+		assertSame( "Failed to reuse the nodes.", node, tree.search( 500 ) );
+		tree.add( 2000 );
+		assertEquals( 11, tree.getHeight() );
+	}
+
 	/**
 	 * Test method for {@link implementations.BSTree#clear()} to clear the tree.
 	 */
@@ -328,6 +566,67 @@ public class BSTreeTest
 		assertEquals( "Failed to return null.", expected, actual );
 	}
 
+	/**
+	 * Test method for {@link implementations.BSTree#search(java.lang.Comparable)}
+	 * to return the live node stored in the tree, including its children.
+	 */
+	@Test
+	public void testSearch_ReturnsLiveNode()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		BSTreeNode<Integer> root = tree.search( four );
+
+		assertSame( "Failed to return the stored node.", tree.getRoot(), root );
+		assertEquals( "Failed to keep the left child.", two, root.getLeft().getElement() );
+		assertEquals( "Failed to keep the right child.", six, root.getRight().getElement() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#search(java.lang.Comparable)}
+	 * to check that a lookup loop does not allocate on the heap.
+	 */
+	@Test
+	public void testSearch_AllocationFree()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue( bean instanceof com.sun.management.ThreadMXBean );
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue( threadBean.isThreadAllocatedMemorySupported() );
+		threadBean.setThreadAllocatedMemoryEnabled( true );
+
+		Integer[] keys = new Integer[1000];
+		for( int i = 0; i < keys.length; i++ )
+		{
+			keys[i] = i * 7919 % keys.length;
+			tree.add( keys[i] );
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long allocated = Long.MAX_VALUE;
+		int found = 0;
+
+		// Repeat so the JIT has compiled the loop; keep the best run to filter out noise.
+		for( int round = 0; round < 20; round++ )
+		{
+			long before = threadBean.getThreadAllocatedBytes( threadId );
+			for( int i = 0; i < 100000; i++ )
+			{
+				if( tree.search( keys[i % keys.length] ) != null )
+				{
+					found++;
+				}
+			}
+			long after = threadBean.getThreadAllocatedBytes( threadId );
+			allocated = Math.min( allocated, after - before );
+		}
+
+		assertEquals( "Failed to find every key.", 20 * 100000, found );
+		assertTrue( "Search allocated " + allocated + " bytes.", allocated < 1024 );
+	}
+
 	/**
 	 * Test method for {@link implementations.BSTree#search(java.lang.Comparable)}
 	 * to throw NullPointerException when searching for an item not found.
@@ -381,6 +680,123 @@ public class BSTreeTest
 		assertEquals( "Failed to return correct height.", expected, actual );
 	}
 
+	/**
+	 * Test method for {@link implementations.BSTree#getHeight()} to match the
+	 * measured height of a tree filled from sorted input, without overflowing the
+	 * call stack on a degenerate tree.
+	 */
+	@Test
+	public void testGetHeight_SortedInput()
+	{
+		for( int i = 0; i < 20000; i++ )
+		{
+			tree.add( i );
+		}
+		assertEquals( "Stored height does not match the real height.", tree.statistics().getHeight(), tree.getHeight() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#getHeight()} to keep the
+	 * height and size of every node up to date through additions, lookups that
+	 * add, and removals.
+	 */
+	@Test
+	public void testNodeHeightsAndSizes()
+	{
+		Random random = new Random( 7 );
+		for( int i = 0; i < 3000; i++ )
+		{
+			int value = random.nextInt( 1000 );
+			switch( i % 5 )
+			{
+				case 0:
+					tree.computeIfAbsent( value, k -> k );
+					break;
+				case 1:
+					tree.removeMin();
+					break;
+				case 2:
+					tree.removeMax();
+					break;
+				default:
+					tree.add( value );
+			}
+			if( i % 100 == 0 )
+			{
+				assertNodeCounts( tree.isEmpty() ? null : tree.getRoot() );
+			}
+		}
+		assertEquals( "Failed to keep the size of the root.", tree.size(), tree.getRoot().getSize() );
+		assertNodeCounts( tree.getRoot() );
+		tree.rebalance();
+		assertNodeCounts( tree.getRoot() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#select(int)} and
+	 * {@link implementations.BSTree#rank(Comparable)} to agree with the sorted
+	 * elements, duplicates included.
+	 */
+	@Test
+	public void testSelectRank()
+	{
+		Random random = new Random( 11 );
+		List<Integer> sorted = new ArrayList<Integer>();
+		for( int i = 0; i < 2000; i++ )
+		{
+			int value = random.nextInt( 500 );
+			tree.add( value );
+			sorted.add( value );
+		}
+		Collections.sort( sorted );
+
+		for( int i = 0; i < sorted.size(); i++ )
+		{
+			assertEquals( "Selected the wrong element.", sorted.get( i ), tree.select( i ) );
+		}
+		for( int key = -1; key <= 501; key++ )
+		{
+			int expected = 0;
+			while( expected < sorted.size() && sorted.get( expected ) < key )
+			{
+				expected++;
+			}
+			assertEquals( "Wrong rank of " + key + ".", expected, tree.rank( key ) );
+		}
+		try
+		{
+			tree.select( sorted.size() );
+			fail( "Failed to throw IndexOutOfBoundsException." );
+		}
+		catch( IndexOutOfBoundsException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#statistics()} to measure the
+	 * height, depths and balance factors of a small tree.
+	 */
+	@Test
+	public void testStatistics()
+	{
+		assertEquals( 0, tree.statistics().getHeight() );
+
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+
+		TreeStatistics statistics = tree.statistics();
+		assertEquals( 4, statistics.getSize() );
+		assertEquals( 3, statistics.getHeight() );
+		assertEquals( 3, statistics.getMinimumHeight() );
+		assertEquals( 1.0, statistics.getAverageDepth(), 1e-9 );
+		assertEquals( "{0=2, 1=2}", statistics.getBalanceFactors().toString() );
+		assertTrue( statistics.toString().startsWith( "elements: 4\nheight: 3 (minimum 3)\n" ) );
+	}
+
 	/**
 	 * Test method for {@link implementations.BSTree#getRoot()} to return the root
 	 * node of the tree.
@@ -526,6 +942,225 @@ public class BSTreeTest
 		assertEquals( "Preorder iterator is out of order ", true, actual );
 	}
 
+	/**
+	 * Test method for {@link implementations.BSTree#inorderIterator()},
+	 * {@link implementations.BSTree#preorderIterator()} and
+	 * {@link implementations.BSTree#postorderIterator()} to return empty
+	 * iterators for an empty tree.
+	 */
+	@Test
+	public void testIterators_EmptyTree()
+	{
+		assertFalse( tree.inorderIterator().hasNext() );
+		assertFalse( tree.preorderIterator().hasNext() );
+		assertFalse( tree.postorderIterator().hasNext() );
+		try
+		{
+			tree.inorderIterator().next();
+			fail( "Failed to throw NoSuchElementException." );
+		}
+		catch( NoSuchElementException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#inorderIterator()} to fail
+	 * fast when the tree is modified during the iteration.
+	 */
+	@Test
+	public void testInorderIterator_ConcurrentModification()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		Iterator<Integer> it = tree.inorderIterator();
+		assertEquals( two, it.next() );
+		tree.add( five );
+		try
+		{
+			it.next();
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( true );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#postorderIterator()} to
+	 * visit every element of a large tree in post-order.
+	 */
+	@Test
+	public void testIterators_LargeTree()
+	{
+		int n = 10000;
+		for( int i = 0; i < n; i++ )
+		{
+			tree.add( i * 7919 % n );
+		}
+
+		Iterator<Integer> in = tree.inorderIterator();
+		for( int i = 0; i < n; i++ )
+		{
+			assertEquals( "In-order iterator is out of order.", i, (int) in.next() );
+		}
+		assertFalse( in.hasNext() );
+
+		int count = 0;
+		Iterator<Integer> pre = tree.preorderIterator();
+		assertEquals( "Pre-order must start at the root.", tree.getRoot().getElement(), pre.next() );
+		for( count = 1; pre.hasNext(); count++ )
+		{
+			pre.next();
+		}
+		assertEquals( "Pre-order iterator missed elements.", n, count );
+
+		Iterator<Integer> post = tree.postorderIterator();
+		Integer last = null;
+		for( count = 0; post.hasNext(); count++ )
+		{
+			last = post.next();
+		}
+		assertEquals( "Post-order iterator missed elements.", n, count );
+		assertEquals( "Post-order must end at the root.", tree.getRoot().getElement(), last );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#floor(Comparable)} and
+	 * {@link implementations.BSTree#ceiling(Comparable)} to return the closest
+	 * element on either side of a key, or the equal element.
+	 */
+	@Test
+	public void testFloorCeiling()
+	{
+		assertNull( "Failed to handle an empty tree.", tree.floor( four ) );
+		assertNull( "Failed to handle an empty tree.", tree.ceiling( four ) );
+
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( seven );
+
+		assertEquals( two, tree.floor( two ) );
+		assertEquals( two, tree.ceiling( two ) );
+		assertEquals( two, tree.floor( 40 ) );
+		assertEquals( four, tree.ceiling( 40 ) );
+		assertEquals( four, tree.floor( 60 ) );
+		assertEquals( six, tree.ceiling( 60 ) );
+		assertNull( "Found a floor below the smallest element.", tree.floor( 10 ) );
+		assertEquals( one, tree.ceiling( 10 ) );
+		assertEquals( seven, tree.floor( 99 ) );
+		assertNull( "Found a ceiling above the largest element.", tree.ceiling( 99 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#subTree(Comparable, Comparable)}
+	 * to list the elements between two keys in order, including the bounds.
+	 */
+	@Test
+	public void testSubTree()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+		tree.add( one );
+		tree.add( five );
+		tree.add( three );
+		tree.add( seven );
+
+		assertEquals( Arrays.asList( two, three, four, five ), toList( tree.subTree( two, five ) ) );
+		assertEquals( "Failed to handle bounds between elements.", Arrays.asList( three, four ), toList( tree.subTree( 30, 50 ) ) );
+		assertEquals( Arrays.asList( four ), toList( tree.subTree( four, four ) ) );
+		assertEquals( Arrays.asList( one, two, three, four, five, six, seven ), toList( tree.subTree( 0, 100 ) ) );
+		assertTrue( "Found elements in an empty range.", toList( tree.subTree( 45, 54 ) ).isEmpty() );
+		assertTrue( "Found elements in a reversed range.", toList( tree.subTree( five, two ) ).isEmpty() );
+		assertTrue( "Found elements past the largest one.", toList( tree.subTree( 78, 100 ) ).isEmpty() );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#subTree(Comparable, Comparable)}
+	 * to match a filtered in-order traversal for many ranges of a large tree.
+	 */
+	@Test
+	public void testSubTree_LargeTree()
+	{
+		int n = 2000;
+		for( int i = 0; i < n; i++ )
+		{
+			tree.add( ( i * 7919 % n ) * 2 ); // Even numbers, so odd bounds fall between elements.
+		}
+
+		for( int from = -3; from < 2 * n + 3; from += 37 )
+		{
+			for( int to = from - 5; to < 2 * n + 3; to += 401 )
+			{
+				Iterator<Integer> it = tree.subTree( from, to );
+				for( int expected = Math.max( 0, from + ( from & 1 ) ); expected <= Math.min( to, 2 * n - 2 ); expected += 2 )
+				{
+					assertEquals( "Range " + from + ".." + to + " differs.", expected, (int) it.next() );
+				}
+				assertFalse( "Range " + from + ".." + to + " has extra elements.", it.hasNext() );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#prefixIterator(Comparable)}
+	 * to list the elements a key compares equal to.
+	 */
+	@Test
+	public void testPrefixIterator()
+	{
+		for( int i = 0; i < 100; i += 3 )
+		{
+			tree.add( i );
+		}
+
+		// Compares equal to the numbers in the forties, like a prefix "4".
+		Comparable<Integer> forties = other -> ( other / 10 == 4 ) ? 0 : Integer.compare( 40, other );
+		assertEquals( Arrays.asList( 42, 45, 48 ), toList( tree.prefixIterator( forties ) ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.BSTree#subTree(Comparable, Comparable)}
+	 * to fail fast when the tree is modified during the iteration, and to refuse
+	 * null keys.
+	 */
+	@Test
+	public void testSubTree_ConcurrentModificationAndNull()
+	{
+		tree.add( four );
+		tree.add( two );
+		tree.add( six );
+
+		Iterator<Integer> it = tree.subTree( one, seven );
+		assertEquals( two, it.next() );
+		tree.add( five );
+		try
+		{
+			it.next();
+			fail( "Failed to throw ConcurrentModificationException." );
+		}
+		catch( ConcurrentModificationException e )
+		{
+			assertTrue( true );
+		}
+		try
+		{
+			tree.subTree( one, null );
+			fail( "Failed to throw NullPointerException." );
+		}
+		catch( NullPointerException e )
+		{
+			assertTrue( true );
+		}
+	}
+
 	/**
 	 * Test method for {@link implementations.BSTree#size()} to return the size of a
 	 * non-empty tree.
@@ -607,4 +1242,35 @@ public class BSTreeTest
 	{
 		assertNull( "Failed to return maximum value.", tree.removeMax() );
 	}
+
+	/**
+	 * Collects the remaining elements of an iteration.
+	 */
+	private static List<Integer> toList( Iterator<Integer> it )
+	{
+		List<Integer> list = new ArrayList<Integer>();
+		while( it.hasNext() )
+		{
+			list.add( it.next() );
+		}
+		return list;
+	}
+
+	/**
+	 * Checks that every node stores the height and size of its subtree.
+	 *
+	 * @return the height of the subtree
+	 */
+	private static int assertNodeCounts( BSTreeNode<Integer> node )
+	{
+		if( node == null )
+		{
+			return 0;
+		}
+		int height = 1 + Math.max( assertNodeCounts( node.getLeft() ), assertNodeCounts( node.getRight() ) );
+		int size = 1 + ( node.getLeft() == null ? 0 : node.getLeft().getSize() ) + ( node.getRight() == null ? 0 : node.getRight().getSize() );
+		assertEquals( "Stored node height is stale.", height, node.getHeight() );
+		assertEquals( "Stored node size is stale.", size, node.getSize() );
+		return height;
+	}
 }
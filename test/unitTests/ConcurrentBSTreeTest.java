@@ -0,0 +1,297 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.ConcurrentBSTree;
+import implementations.Word;
+
+/**
+ * Stress tests for ConcurrentBSTree and the synchronized occurrence lists of
+ * Word: writer threads add while reader threads search and iterate, and no
+ * update may be lost.
+ */
+
+public class ConcurrentBSTreeTest
+{
+	private static final int WRITERS = 4;
+	private static final int READERS = 2;
+	private static final int OPERATIONS = 20000; // Per writer.
+
+	private ExecutorService pool;
+	private CountDownLatch start;
+	private AtomicBoolean writing;
+
+	/**
+	 * Creates the thread pool before each test.
+	 */
+	@Before
+	public void setUp()
+	{
+		pool = Executors.newFixedThreadPool( WRITERS + READERS );
+		start = new CountDownLatch( 1 );
+		writing = new AtomicBoolean( true );
+	}
+
+	/**
+	 * Stops the thread pool after each test.
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@After
+	public void tearDown() throws InterruptedException
+	{
+		pool.shutdownNow();
+		pool.awaitTermination( 10, TimeUnit.SECONDS );
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#add(java.lang.Comparable)}
+	 * to keep every element added by concurrent writers, while readers always
+	 * see complete, ordered snapshots.
+	 *
+	 * @throws Exception if a thread fails
+	 */
+	@Test
+	public void testAdd_Concurrent() throws Exception
+	{
+		ConcurrentBSTree<Integer> tree = new ConcurrentBSTree<Integer>();
+		List<Future<?>> writers = new ArrayList<Future<?>>();
+
+		for( int w = 0; w < WRITERS; w++ )
+		{
+			int writer = w;
+			writers.add( submit( () -> {
+				for( int i = 0; i < OPERATIONS; i++ )
+				{
+					tree.add( i * WRITERS + writer );
+				}
+				return null;
+			} ) );
+		}
+		List<Future<?>> readers = startReaders( () -> {
+			int size = tree.size();
+			if( size > 0 )
+			{
+				assertTrue( "Failed to find the root.", tree.contains( tree.getRoot().getElement() ) );
+			}
+			assertTrue( "Snapshot smaller than the tree.", countAscending( tree.inorderIterator() ) >= size );
+		} );
+
+		finish( writers, readers );
+
+		assertEquals( "Lost an added element.", WRITERS * OPERATIONS, tree.size() );
+		assertEquals( WRITERS * OPERATIONS, countAscending( tree.inorderIterator() ) );
+		for( int i = 0; i < WRITERS * OPERATIONS; i += 997 )
+		{
+			assertTrue( tree.contains( i ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#computeIfAbsent(Comparable, java.util.function.Function)}
+	 * and {@link implementations.Word#addOccurence(String, int)} to record every
+	 * occurrence added by concurrent writers sharing the same words, while
+	 * readers report them.
+	 *
+	 * @throws Exception if a thread fails
+	 */
+	@Test
+	public void testComputeIfAbsent_NoLostOccurrences() throws Exception
+	{
+		ConcurrentBSTree<Word> tree = new ConcurrentBSTree<Word>();
+		int vocabulary = 300;
+		List<Future<?>> writers = new ArrayList<Future<?>>();
+
+		for( int w = 0; w < WRITERS; w++ )
+		{
+			String fileName = "file" + w + ".txt";
+			writers.add( submit( () -> {
+				for( int i = 0; i < OPERATIONS; i++ )
+				{
+					Word key = new Word( "w" + ( i % vocabulary ) );
+					tree.computeIfAbsent( key, k -> new Word( k.getWord() ) ).addOccurence( fileName, i + 1 );
+				}
+				return null;
+			} ) );
+		}
+		List<Future<?>> readers = startReaders( () -> {
+			for( Iterator<Word> it = tree.inorderIterator(); it.hasNext(); )
+			{
+				// A report line is formatted under the word's lock, so its frequency matches its lines.
+				String report = it.next().toPOString();
+				int lines = report.split( "\\[|, " ).length - 1;
+				assertTrue( "Report is inconsistent: " + report, report.endsWith( "(freq = " + lines + ")" ) );
+			}
+		} );
+
+		finish( writers, readers );
+
+		assertEquals( "Created a word twice.", vocabulary, tree.size() );
+		long total = 0;
+		for( Iterator<Word> it = tree.inorderIterator(); it.hasNext(); )
+		{
+			Word word = it.next();
+			assertEquals( "Lost a file.", WRITERS, word.getFileCount() );
+			int id = Integer.parseInt( word.getWord().substring( 1 ) );
+			int expected = ( OPERATIONS - id + vocabulary - 1 ) / vocabulary; // The i < OPERATIONS with i % vocabulary == id.
+			for( int f = 0; f < WRITERS; f++ )
+			{
+				assertEquals( "Lost an occurrence.", expected, word.getLineCount( f ) );
+			}
+			total += word.getTotalFrequency();
+		}
+		assertEquals( "Lost an occurrence.", (long) WRITERS * OPERATIONS, total );
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#addOccurence(String, int)} to
+	 * keep every occurrence added to one Word by concurrent threads, in order
+	 * within each thread's file.
+	 *
+	 * @throws Exception if a thread fails
+	 */
+	@Test
+	public void testWordAddOccurence_Concurrent() throws Exception
+	{
+		Word word = new Word( "kitty" );
+		List<Future<?>> writers = new ArrayList<Future<?>>();
+
+		for( int w = 0; w < WRITERS; w++ )
+		{
+			int writer = w;
+			writers.add( submit( () -> {
+				for( int i = 1; i <= OPERATIONS; i++ )
+				{
+					// Every thread writes its own file and one shared file.
+					word.addOccurence( "file" + writer + ".txt", i );
+					word.addOccurence( "shared.txt", i );
+				}
+				return null;
+			} ) );
+		}
+
+		finish( writers, new ArrayList<Future<?>>() );
+
+		assertEquals( 2 * WRITERS * OPERATIONS, word.getTotalFrequency() );
+		assertEquals( WRITERS + 1, word.getFileCount() );
+		assertEquals( "Lost an occurrence in the shared file.", WRITERS * OPERATIONS, word.getLineNumbers( "shared.txt" ).size() );
+		for( int w = 0; w < WRITERS; w++ )
+		{
+			List<Integer> lines = word.getLineNumbers( "file" + w + ".txt" );
+			assertEquals( "Lost an occurrence.", OPERATIONS, lines.size() );
+			assertEquals( "Failed to keep the order.", OPERATIONS, (int) lines.get( OPERATIONS - 1 ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.ConcurrentBSTree#inorderIterator()}
+	 * to keep walking its snapshot after the tree changes.
+	 */
+	@Test
+	public void testInorderIterator_Snapshot()
+	{
+		ConcurrentBSTree<Integer> tree = new ConcurrentBSTree<Integer>();
+		tree.add( 44 );
+		tree.add( 22 );
+		tree.add( 66 );
+
+		Iterator<Integer> it = tree.inorderIterator();
+		assertEquals( 22, (int) it.next() );
+		tree.add( 55 );
+		tree.removeMax();
+		assertEquals( 44, (int) it.next() );
+		assertEquals( 66, (int) it.next() );
+		assertFalse( it.hasNext() );
+
+		assertEquals( "Failed to detach the node.", null, tree.search( 44 ).getLeft() );
+		assertEquals( 3, tree.size() );
+	}
+
+	/**
+	 * Submits a task that waits for the common start signal.
+	 */
+	private Future<?> submit( Callable<Void> task )
+	{
+		return pool.submit( () -> {
+			start.await();
+			return task.call();
+		} );
+	}
+
+	/**
+	 * Starts the readers, which repeat a check until the writers are done.
+	 */
+	private List<Future<?>> startReaders( Runnable check )
+	{
+		List<Future<?>> readers = new ArrayList<Future<?>>();
+		for( int r = 0; r < READERS; r++ )
+		{
+			readers.add( submit( () -> {
+				do
+				{
+					check.run();
+				}
+				while( writing.get() );
+				return null;
+			} ) );
+		}
+		return readers;
+	}
+
+	/**
+	 * Releases every thread and waits for the writers, then for the readers,
+	 * rethrowing the first failure.
+	 */
+	private void finish( List<Future<?>> writers, List<Future<?>> readers ) throws Exception
+	{
+		start.countDown();
+		try
+		{
+			for( Future<?> writer : writers )
+			{
+				writer.get( 60, TimeUnit.SECONDS );
+			}
+		}
+		finally
+		{
+			writing.set( false );
+		}
+		for( Future<?> reader : readers )
+		{
+			reader.get( 60, TimeUnit.SECONDS );
+		}
+	}
+
+	/**
+	 * Counts the elements of an iteration, checking that they are in ascending order.
+	 */
+	private static int countAscending( Iterator<Integer> it )
+	{
+		int count = 0;
+		Integer previous = null;
+		while( it.hasNext() )
+		{
+			Integer next = it.next();
+			assertTrue( "Iteration out of order.", previous == null || previous < next );
+			previous = next;
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,270 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.InputFile;
+import app.Tokenizer;
+
+/**
+ * Tests that the InputFile gives the same lines and tokens as decoding the
+ * file through a BufferedReader, across buffer boundaries.
+ */
+
+public class InputFileTest
+{
+	private File file;
+
+	/**
+	 * Creates a temporary input file before each test.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		file = File.createTempFile( "input", ".txt" );
+	}
+
+	/**
+	 * Deletes the temporary input file after each test.
+	 */
+	@After
+	public void tearDown()
+	{
+		file.delete();
+	}
+
+	/**
+	 * Writes bytes to the temporary file.
+	 */
+	private void write( byte[] bytes ) throws IOException
+	{
+		try( FileOutputStream out = new FileOutputStream( file ) )
+		{
+			out.write( bytes );
+		}
+	}
+
+	/**
+	 * Reads the lines and tokens of the file through a BufferedReader.
+	 */
+	private List<String> readerLines( Charset charset ) throws IOException
+	{
+		List<String> lines = new ArrayList<String>();
+		try( BufferedReader in = new BufferedReader( new InputStreamReader( new FileInputStream( file ), charset ) ) )
+		{
+			String line;
+			while( ( line = in.readLine() ) != null )
+			{
+				lines.add( line + " " + tokens( line ) );
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Reads the lines of the file through an InputFile, then their tokens
+	 * through a second InputFile that hands each line to the tokenizer.
+	 */
+	private List<String> inputFileLines( Charset charset, int bufferSize ) throws IOException
+	{
+		List<String> lines = new ArrayList<String>();
+		try( InputFile in = new InputFile( file.getPath(), charset, bufferSize ) )
+		{
+			String line;
+			while( ( line = in.readLine() ) != null )
+			{
+				lines.add( line );
+			}
+		}
+
+		try( InputFile in = new InputFile( file.getPath(), charset, bufferSize ) )
+		{
+			Tokenizer tokenizer = new Tokenizer();
+			for( int i = 0; i < lines.size(); i++ )
+			{
+				assertTrue( in.readLine( tokenizer ) );
+				List<String> tokens = new ArrayList<String>();
+				while( tokenizer.next() )
+				{
+					tokens.add( tokenizer.token().toString() );
+				}
+				lines.set( i, lines.get( i ) + " " + tokens );
+			}
+			assertFalse( in.readLine( tokenizer ) );
+		}
+		return lines;
+	}
+
+	/**
+	 * Splits a line into its tokens.
+	 */
+	private static List<String> tokens( String line )
+	{
+		List<String> tokens = new ArrayList<String>();
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset( line );
+		while( tokenizer.next() )
+		{
+			tokens.add( tokenizer.token().toString() );
+		}
+		return tokens;
+	}
+
+	/**
+	 * Test method for {@link app.InputFile#readLine()} to split lines at "\n",
+	 * "\r" and "\r\n" like BufferedReader, including empty lines, a last line
+	 * without a terminator and terminators split across buffer refills.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testReadLine_Terminators() throws IOException
+	{
+		String[] texts = { "", "a", "\n", "\r", "\r\n", "\n\n", "\r\r\n\n", "one\ntwo", "one\ntwo\n", "one\r\ntwo\r\n",
+				"one\rtwo\r", "a\r\n\r\nb\r\r\nc\n\rd", "  lead\tand trail  \n\nx" };
+		for( String text : texts )
+		{
+			write( text.getBytes( StandardCharsets.US_ASCII ) );
+			List<String> expected = readerLines( StandardCharsets.US_ASCII );
+			for( int bufferSize : new int[] { 1, 2, 3, 5, 1 << 20 } )
+			{
+				assertEquals( "\"" + text.replace( "\r", "\\r" ).replace( "\n", "\\n" ) + "\" buffer " + bufferSize, expected,
+						inputFileLines( StandardCharsets.US_ASCII, bufferSize ) );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link app.InputFile#readLine()} to give the same tokens
+	 * as decoding UTF-8 and Latin-1 text with non-ASCII characters, for buffers
+	 * smaller and larger than the file.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testReadLine_SameTokensAsReader() throws IOException
+	{
+		String[] words = { "café", "naïve", "ÜBER", "straße", "emoji😀face", "Plain", "x1",
+				"O'Neil", "e-mail", "中文word" };
+		Random random = new Random( 7 );
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < 30000; i++ )
+		{
+			sb.append( words[random.nextInt( words.length )] );
+			int separator = random.nextInt( 10 );
+			sb.append( separator == 0 ? "\n" : separator == 1 ? "\r\n" : separator == 2 ? "\r" : " " );
+		}
+		String text = sb.toString();
+
+		for( Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1 } )
+		{
+			write( text.getBytes( charset ) );
+			List<String> expected = readerLines( charset );
+			for( int bufferSize : new int[] { 3, 4096, InputFile.DEFAULT_BUFFER } )
+			{
+				assertEquals( charset + " buffer " + bufferSize, expected, inputFileLines( charset, bufferSize ) );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link app.InputFile#nextLineStart(String, long)} and
+	 * {@link app.InputFile#InputFile(String, Charset, long, long)} to cut a
+	 * file into two parts of whole lines, wherever the cut is asked for, whose
+	 * lines together are the lines of the whole file.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testNextLineStart_Parts() throws IOException
+	{
+		String text = "one\ntwo\r\nthree\rfour\r\n\r\nfive\n\nsix\r\rseven";
+		write( text.getBytes( StandardCharsets.US_ASCII ) );
+		List<String> expected = readerLines( StandardCharsets.US_ASCII );
+		int[] lineStarts = { 0, 4, 9, 15, 21, 23, 28, 29, 33, 34 };
+
+		for( int offset = 0; offset <= text.length() + 1; offset++ )
+		{
+			long cut = InputFile.nextLineStart( file.getPath(), offset );
+			long nearest = text.length();
+			for( int lineStart : lineStarts )
+			{
+				if( lineStart >= offset )
+				{
+					nearest = Math.min( nearest, lineStart );
+				}
+			}
+			assertEquals( "offset " + offset, nearest, cut );
+
+			List<String> lines = new ArrayList<String>();
+			int counted = 0;
+			for( long[] part : new long[][] { { 0, cut }, { cut, Long.MAX_VALUE } } )
+			{
+				try( InputFile in = new InputFile( file.getPath(), StandardCharsets.US_ASCII, part[0], part[1] ) )
+				{
+					String line;
+					while( ( line = in.readLine() ) != null )
+					{
+						lines.add( line + " " + tokens( line ) );
+					}
+				}
+				try( InputFile in = new InputFile( file.getPath(), StandardCharsets.US_ASCII, part[0], part[1] ) )
+				{
+					counted += in.countLines();
+				}
+			}
+			assertEquals( "offset " + offset, expected, lines );
+			assertEquals( "offset " + offset, expected.size(), counted );
+		}
+	}
+
+	/**
+	 * Test method for {@link app.InputFile#isAsciiCompatible(Charset)} and for
+	 * {@link app.InputFile#readLine()} to decode other charsets.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testReadLine_OtherCharset() throws IOException
+	{
+		assertTrue( InputFile.isAsciiCompatible( StandardCharsets.UTF_8 ) );
+		assertTrue( InputFile.isAsciiCompatible( StandardCharsets.ISO_8859_1 ) );
+		assertFalse( InputFile.isAsciiCompatible( StandardCharsets.UTF_16 ) );
+
+		write( "Hello World\r\nsecond line\n".getBytes( StandardCharsets.UTF_16 ) );
+		List<String> expected = readerLines( StandardCharsets.UTF_16 );
+		assertEquals( 2, expected.size() );
+		assertEquals( expected, inputFileLines( StandardCharsets.UTF_16, InputFile.DEFAULT_BUFFER ) );
+	}
+
+	/**
+	 * Test method for {@link app.InputFile#InputFile(String, Charset)} to fail
+	 * like FileReader for a missing file.
+	 * 
+	 * @throws IOException if the file fails in another way
+	 */
+	@Test( expected = FileNotFoundException.class )
+	public void testInputFile_Missing() throws IOException
+	{
+		file.delete();
+		new InputFile( file.getPath(), StandardCharsets.UTF_8 ).close();
+	}
+}
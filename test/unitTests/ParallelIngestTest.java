@@ -0,0 +1,240 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.FileInfo;
+import app.IngestPipeline;
+import app.ParallelIngest;
+import app.TokenBatch;
+import app.WordCache;
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+/**
+ * Tests that indexing files in parallel, with large files shared between
+ * workers, records exactly the occurrences a single worker records.
+ */
+
+public class ParallelIngestTest
+{
+	private static final String[] TERMINATORS = { "\n", "\n", "\n", "\r\n", "\r" };
+
+	private List<File> files = new ArrayList<File>();
+
+	/**
+	 * Creates the temporary input files before each test: a large one with
+	 * mixed line terminators, an empty one and two small ones.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		files.add( write( 30000, 1 ) );
+		files.add( write( 0, 2 ) );
+		files.add( write( 40, 3 ) );
+		files.add( write( 9000, 4 ) );
+	}
+
+	/**
+	 * Deletes the temporary input files after each test.
+	 */
+	@After
+	public void tearDown()
+	{
+		for( File file : files )
+		{
+			file.delete();
+		}
+	}
+
+	/**
+	 * Writes a temporary file of random lines of words.
+	 */
+	private static File write( int lines, long seed ) throws IOException
+	{
+		Random random = new Random( seed );
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < lines; i++ )
+		{
+			int words = random.nextInt( 10 );
+			for( int j = 0; j < words; j++ )
+			{
+				sb.append( "Word" ).append( random.nextInt( 2000 ) ).append( random.nextBoolean() ? " " : ", " );
+			}
+			sb.append( TERMINATORS[random.nextInt( TERMINATORS.length )] );
+		}
+
+		File file = File.createTempFile( "ingest", ".txt" );
+		try( FileOutputStream out = new FileOutputStream( file ) )
+		{
+			out.write( sb.toString().getBytes( StandardCharsets.US_ASCII ) );
+		}
+		return file;
+	}
+
+	/**
+	 * Indexes files on a number of threads and returns the -po report.
+	 */
+	private static String index( List<String> fileNames, int threads, int batch )
+	{
+		return index( fileNames, threads, batch, new IngestPipeline( 0, IngestPipeline.DEFAULT_BLOCK ) );
+	}
+
+	/**
+	 * Indexes files on a number of threads, through a pipeline, and returns
+	 * the -po report.
+	 */
+	private static String index( List<String> fileNames, int threads, int batch, IngestPipeline pipeline )
+	{
+		BSTree<Word> tree = new AVLTree<Word>();
+		assertTrue( ParallelIngest.processInputFiles( fileNames, tree, new FileTable(), threads,
+				new WordCache( WordCache.DEFAULT_CAPACITY ), new TokenBatch( batch ), pipeline, null ) );
+
+		StringBuilder sb = new StringBuilder();
+		Iterator<Word> it = tree.inorderIterator();
+		while( it.hasNext() )
+		{
+			sb.append( it.next().toPOString() ).append( '\n' );
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.ParallelIngest#processInputFiles(List, BSTree, FileTable, int, WordCache, TokenBatch, IngestPipeline, Map)}
+	 * to give the same words, files and line numbers on several threads as on
+	 * one, for a single large file and for several files of different sizes.
+	 */
+	@Test
+	public void testProcessInputFiles_SameAsOneThread()
+	{
+		assertTrue( "large enough to be shared", files.get( 0 ).length() > 4 * ( 1 << 18 ) );
+
+		List<String> single = Arrays.asList( files.get( 0 ).getPath() );
+		String expected = index( single, 1, 0 );
+		for( int threads : new int[] { 2, 3, 4, 7 } )
+		{
+			assertEquals( "threads " + threads, expected, index( single, threads, 0 ) );
+		}
+		assertEquals( expected, index( single, 4, 1000 ) );
+
+		List<String> all = new ArrayList<String>();
+		for( File file : files )
+		{
+			all.add( file.getPath() );
+		}
+		expected = index( all, 1, 0 );
+		for( int threads : new int[] { 2, 5, 16 } )
+		{
+			assertEquals( "threads " + threads, expected, index( all, threads, 0 ) );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.ParallelIngest#processInputFiles(List, BSTree, FileTable, int, WordCache, TokenBatch, IngestPipeline, Map)}
+	 * to give the same words, files and line numbers through the pipeline as
+	 * without it, with blocks smaller than a line and queues of one block, and
+	 * to report how much each stage did.
+	 */
+	@Test
+	public void testProcessInputFiles_Pipeline()
+	{
+		List<String> all = new ArrayList<String>();
+		for( File file : files )
+		{
+			all.add( file.getPath() );
+		}
+		String expected = index( all, 1, 0 );
+
+		assertEquals( expected, index( all, 1, 0, new IngestPipeline( 4, IngestPipeline.DEFAULT_BLOCK ) ) );
+		assertEquals( expected, index( all, 3, 100, new IngestPipeline( 2, 1000 ) ) );
+		assertEquals( expected, index( all, 1, 1, new IngestPipeline( 1, 16 ) ) );
+
+		IngestPipeline pipeline = new IngestPipeline( 2, 4096 );
+		index( all, 2, 0, pipeline );
+		String report = pipeline.toString();
+		assertTrue( report, report.startsWith( "pipeline: depth 2, blocks of 4096 bytes" ) );
+		for( String stage : new String[] { "read", "tokenize", "index" } )
+		{
+			assertTrue( report, report.contains( stage ) );
+		}
+		assertFalse( new IngestPipeline( 0, 4096 ).isEnabled() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.ParallelIngest#processInputFiles(List, BSTree, FileTable, int, WordCache, TokenBatch, IngestPipeline, Map)}
+	 * to record the size and checksum of every file as it was read, the same
+	 * as reading each file again, also for the large file read in parts by
+	 * several workers, with and without the pipeline.
+	 * 
+	 * @throws IOException if a file cannot be read.
+	 */
+	@Test
+	public void testProcessInputFiles_RecordsFiles() throws IOException
+	{
+		List<String> all = new ArrayList<String>();
+		for( File file : files )
+		{
+			all.add( file.getPath() );
+		}
+
+		for( int depth : new int[] { 0, 2 } )
+		{
+			Map<String, FileInfo> recorded = new LinkedHashMap<String, FileInfo>();
+			assertTrue( ParallelIngest.processInputFiles( all, new AVLTree<Word>(), new FileTable(), 4, new WordCache( 0 ),
+					new TokenBatch( 0 ), new IngestPipeline( depth, 4096 ), recorded ) );
+
+			assertEquals( all, new ArrayList<String>( recorded.keySet() ) );
+			for( File file : files )
+			{
+				FileInfo expected = FileInfo.read( file );
+				FileInfo actual = recorded.get( file.getPath() );
+				assertEquals( file.getPath(), expected.getSize(), actual.getSize() );
+				assertEquals( file.getPath(), expected.getChecksum(), actual.getChecksum() );
+				assertEquals( file.getPath(), expected.getLastModified(), actual.getLastModified() );
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.ParallelIngest#processInputFiles(List, BSTree, FileTable, int, WordCache, TokenBatch, IngestPipeline, Map)}
+	 * to fail, leaving the tree unchanged, when a file is missing.
+	 */
+	@Test
+	public void testProcessInputFiles_MissingFile()
+	{
+		File missing = files.get( 1 );
+		missing.delete();
+
+		BSTree<Word> tree = new AVLTree<Word>();
+		assertFalse( ParallelIngest.processInputFiles( Arrays.asList( files.get( 0 ).getPath(), missing.getPath() ), tree,
+				new FileTable(), 4, new WordCache( 0 ), new TokenBatch( 0 ), new IngestPipeline( 0, IngestPipeline.DEFAULT_BLOCK ), null ) );
+		assertTrue( tree.isEmpty() );
+
+		assertFalse( ParallelIngest.processInputFiles( Arrays.asList( files.get( 0 ).getPath(), missing.getPath() ), tree,
+				new FileTable(), 2, new WordCache( 0 ), new TokenBatch( 0 ), new IngestPipeline( 2, 4096 ), null ) );
+		assertTrue( tree.isEmpty() );
+	}
+}
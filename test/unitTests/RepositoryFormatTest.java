@@ -0,0 +1,407 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.FileInfo;
+import app.MappedRepository;
+import app.RepositoryFormat;
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+/**
+ * Tests that the binary repository format restores exactly the words and
+ * occurrences that were saved.
+ */
+
+public class RepositoryFormatTest
+{
+	private File file;
+
+	/**
+	 * Creates a temporary repository file before each test.
+	 * 
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		file = File.createTempFile( "repository", ".wtr" );
+	}
+
+	/**
+	 * Deletes the temporary repository file after each test.
+	 */
+	@After
+	public void tearDown()
+	{
+		file.delete();
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryFormat#write(implementations.BSTree, java.io.File)} and
+	 * {@link app.RepositoryFormat#read(java.io.File, boolean)} to round-trip words,
+	 * files and line numbers, rebuilding a balanced tree.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testWriteRead_RoundTrip() throws IOException
+	{
+		BSTree<Word> tree = new BSTree<Word>();
+		for( int i = 0; i < 1000; i++ )
+		{
+			// Sorted insertion gives a degenerate tree that must come back balanced.
+			Word word = new Word( String.format( "w%04d", i ) );
+			word.addOccurence( "a.txt", i + 1 );
+			word.addOccurence( "a.txt", i + 1 );
+			word.addOccurence( "a.txt", 100000 + i );
+			if( i % 3 == 0 )
+			{
+				word.addOccurence( "dir/b.txt", 7 );
+			}
+			tree.add( word );
+		}
+
+		RepositoryFormat.write( tree, file );
+		BSTree<Word> restored = RepositoryFormat.read( file, false );
+
+		assertEquals( "Failed to restore every word.", tree.size(), restored.size() );
+		assertTrue( "Restored tree is not balanced.", restored.getHeight() <= 10 );
+
+		Iterator<Word> expected = tree.inorderIterator();
+		Iterator<Word> actual = restored.inorderIterator();
+		while( expected.hasNext() )
+		{
+			assertEquals( "Failed to restore the occurrences.", expected.next().toPOString(), actual.next().toPOString() );
+		}
+		assertFalse( actual.hasNext() );
+	}
+
+	/**
+	 * Test method for {@link app.MappedRepository} to report and look up words
+	 * directly from the saved file, formatted exactly like the Word objects.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testMappedRepository() throws IOException
+	{
+		BSTree<Word> tree = new AVLTree<Word>();
+		String[] words = { "apple", "banana", "cherry", "kitty", "zebra" };
+		for( int i = 0; i < words.length; i++ )
+		{
+			Word word = new Word( words[i] );
+			word.addOccurence( "a.txt", i + 1 );
+			word.addOccurence( "b.txt", 10 * i );
+			word.addOccurence( "b.txt", 10 * i + 3 );
+			tree.add( word );
+		}
+		RepositoryFormat.write( tree, file );
+
+		try( MappedRepository repository = new MappedRepository( file ) )
+		{
+			assertEquals( "Failed to read the word count.", words.length, repository.size() );
+			assertEquals( "Failed to find a word.", 3, repository.indexOf( "kitty" ) );
+			assertEquals( "Failed to return the insertion point.", -1, repository.indexOf( "aardvark" ) );
+			assertEquals( "Failed to return the insertion point.", -4, repository.indexOf( "dog" ) );
+			assertEquals( "Failed to read the frequency.", 3, repository.frequency( 3 ) );
+
+			for( String flag : new String[] { "-pf", "-pl", "-po" } )
+			{
+				StringBuilder expected = new StringBuilder();
+				Iterator<Word> it = tree.inorderIterator();
+				while( it.hasNext() )
+				{
+					Word word = it.next();
+					expected.append( flag.equals( "-pf" ) ? word.toPFString()
+							: flag.equals( "-pl" ) ? word.toPLString() : word.toPOString() ).append( '\n' );
+				}
+
+				StringBuilder actual = new StringBuilder();
+				repository.generateOutput( flag, actual );
+				assertEquals( "Mapped report differs for " + flag, expected.toString(), actual.toString() );
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryFormat#write(implementations.BSTree, java.util.Map, java.io.File)}
+	 * and {@link app.RepositoryFormat#read(java.io.File, boolean, java.util.Map)} to
+	 * keep the record of the indexed files, including files without any words.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	/**
+	 * Test method for {@link app.RepositoryFormat#write(BSTree, File)} with a directory that is
+	 * written in more than one chunk.
+	 * @throws IOException
+	 */
+	@Test
+	public void testMappedRepository_ManyWords() throws IOException
+	{
+		BSTree<Word> tree = new AVLTree<Word>();
+		int count = 20000;
+		for( int i = 0; i < count; i++ )
+		{
+			Word word = new Word( String.format( "w%06d", i ) );
+			word.addOccurence( "a.txt", i + 1 );
+			tree.add( word );
+		}
+		RepositoryFormat.write( tree, file );
+
+		try( MappedRepository repository = new MappedRepository( file ) )
+		{
+			assertEquals( "Failed to read the word count.", count, repository.size() );
+			for( int i = 0; i < count; i += 997 )
+			{
+				assertEquals( "Failed to find a word.", i, repository.indexOf( String.format( "w%06d", i ) ) );
+			}
+			StringBuilder line = new StringBuilder();
+			repository.appendReportLine( count - 1, "-pl", line );
+			assertEquals( "Failed to read the last record.", tree.select( count - 1 ).toPLString(), line.toString() );
+		}
+	}
+
+	@Test
+	public void testWriteRead_FileInfo() throws IOException
+	{
+		BSTree<Word> tree = new AVLTree<Word>();
+		Word word = new Word( "kitty" );
+		word.addOccurence( "a.txt", 1 );
+		word.addOccurence( "b.txt", 2 );
+		tree.add( word );
+
+		Map<String, FileInfo> files = new HashMap<String, FileInfo>();
+		files.put( "a.txt", new FileInfo( 100, 200, 300 ) );
+		files.put( "empty.txt", new FileInfo( 0, 400, 0 ) );
+		RepositoryFormat.write( tree, new FileTable(), files, file );
+
+		Map<String, FileInfo> restored = new HashMap<String, FileInfo>();
+		BSTree<Word> restoredTree = RepositoryFormat.read( file, false, restored, new FileTable() );
+
+		assertEquals( "kitty: a.txt[1] b.txt[2] (freq = 2)", restoredTree.getRoot().getElement().toPOString() );
+		assertEquals( "Failed to list every file.", 3, restored.size() );
+		assertEquals( 100, restored.get( "a.txt" ).getSize() );
+		assertEquals( 200, restored.get( "a.txt" ).getLastModified() );
+		assertEquals( 300, restored.get( "a.txt" ).getChecksum() );
+		assertEquals( 400, restored.get( "empty.txt" ).getLastModified() );
+		assertTrue( "Failed to list a file without a record.", restored.containsKey( "b.txt" ) );
+		assertNull( "Invented a record for a file without one.", restored.get( "b.txt" ) );
+
+		try( MappedRepository repository = new MappedRepository( file ) )
+		{
+			StringBuilder report = new StringBuilder();
+			repository.generateOutput( "-po", report );
+			assertEquals( "kitty: a.txt[1] b.txt[2] (freq = 2)\n", report.toString() );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryFormat#read(java.io.File, boolean, java.util.Map, implementations.FileTable)}
+	 * to give two repositories loaded in the same JVM each their own file ids,
+	 * starting at 0 in the order of their files, with no names of the other,
+	 * and to leave the words of the first intact when the second is loaded.
+	 * 
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test
+	public void testRead_TwoRepositories() throws IOException
+	{
+		BSTree<Word> tree = new AVLTree<Word>();
+		Word word = new Word( "kitty" );
+		word.addOccurence( "first-a.txt", 1 );
+		word.addOccurence( "first-b.txt", 2 );
+		tree.add( word );
+		RepositoryFormat.write( tree, file );
+
+		File other = File.createTempFile( "repository", ".wtr" );
+		try
+		{
+			tree = new AVLTree<Word>();
+			word = new Word( "kitty" );
+			word.addOccurence( "second-b.txt", 3 );
+			word.addOccurence( "second-a.txt", 4 );
+			word.addOccurence( "first-b.txt", 5 );
+			tree.add( word );
+			RepositoryFormat.write( tree, other );
+
+			FileTable firstTable = new FileTable();
+			BSTree<Word> first = RepositoryFormat.read( file, false, null, firstTable );
+			assertEquals( "first-a.txt", firstTable.name( 0 ) );
+			assertEquals( "first-b.txt", firstTable.name( 1 ) );
+			assertSame( firstTable, first.getRoot().getElement().getFileTable() );
+
+			FileTable secondTable = new FileTable();
+			BSTree<Word> second = RepositoryFormat.read( other, false, null, secondTable );
+			assertEquals( "second-b.txt", secondTable.name( 0 ) );
+			assertEquals( "second-a.txt", secondTable.name( 1 ) );
+			assertEquals( "first-b.txt", secondTable.name( 2 ) );
+			assertEquals( "Shared a name with the first repository.", -1, secondTable.find( "first-a.txt" ) );
+			assertEquals( "kitty: second-b.txt[3] second-a.txt[4] first-b.txt[5] (freq = 3)",
+					second.getRoot().getElement().toPOString() );
+			assertEquals( "Changed the words of the first repository.", "kitty: first-a.txt[1] first-b.txt[2] (freq = 2)",
+					first.getRoot().getElement().toPOString() );
+		}
+		finally
+		{
+			other.delete();
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryFormat#write(implementations.BSTree, java.io.File)},
+	 * {@link app.RepositoryFormat#read(java.io.File, boolean)} and
+	 * {@link app.MappedRepository} to round-trip a word and a file name longer
+	 * than the 65535 bytes writeUTF can store, and words that are not ASCII.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testWriteRead_LongStrings() throws IOException
+	{
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < 70000; i++ )
+		{
+			sb.append( (char) ( 'a' + i % 26 ) );
+		}
+		String longWord = sb.toString();
+		String longFile = "dir/" + longWord.substring( 0, 66000 ) + ".txt";
+
+		BSTree<Word> tree = new AVLTree<Word>();
+		String[] words = { longWord, "caf\u00e9", "nul\u0000l", "\u20ac100" };
+		for( String text : words )
+		{
+			Word word = new Word( text );
+			word.addOccurence( "a.txt", 1 );
+			word.addOccurence( longFile, 2 );
+			tree.add( word );
+		}
+		RepositoryFormat.write( tree, file );
+
+		BSTree<Word> restored = RepositoryFormat.read( file, false );
+		assertEquals( tree.size(), restored.size() );
+		StringBuilder expected = new StringBuilder();
+		Iterator<Word> it = tree.inorderIterator();
+		Iterator<Word> actual = restored.inorderIterator();
+		while( it.hasNext() )
+		{
+			String line = it.next().toPOString();
+			assertEquals( "Failed to restore a word.", line, actual.next().toPOString() );
+			expected.append( line ).append( '\n' );
+		}
+
+		try( MappedRepository repository = new MappedRepository( file ) )
+		{
+			StringBuilder report = new StringBuilder();
+			repository.generateOutput( "-po", report );
+			assertEquals( "Mapped report differs.", expected.toString(), report.toString() );
+			assertTrue( "Failed to find the long word.", repository.indexOf( longWord ) >= 0 );
+			assertTrue( "Failed to find a non-ASCII word.", repository.indexOf( "\u20ac100" ) >= 0 );
+			assertEquals( 1, repository.endIndex( "caf", true ) - repository.startIndex( "caf", true ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link app.RepositoryFormat#read(java.io.File, boolean)} and
+	 * {@link app.MappedRepository} to refuse a repository in another format
+	 * version.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testRead_OtherVersion() throws IOException
+	{
+		BSTree<Word> tree = new AVLTree<Word>();
+		Word word = new Word( "kitty" );
+		word.addOccurence( "a.txt", 1 );
+		tree.add( word );
+		RepositoryFormat.write( tree, file );
+
+		try( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) )
+		{
+			raf.seek( 4 );
+			raf.writeByte( 2 ); // Version.
+		}
+
+		try
+		{
+			RepositoryFormat.read( file, false );
+			fail( "Failed to throw IOException." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( e.getMessage(), e.getMessage().contains( "version 2" ) );
+		}
+
+		try( MappedRepository repository = new MappedRepository( file ) )
+		{
+			fail( "Failed to throw IOException." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( e.getMessage(), e.getMessage().contains( "version 2" ) );
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryFormat#read(java.io.File, boolean)} to keep an AVL tree
+	 * as an AVL tree and to convert on request.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testRead_TreeKind() throws IOException
+	{
+		BSTree<Word> tree = new AVLTree<Word>();
+		tree.add( new Word( "kitty" ) );
+		RepositoryFormat.write( tree, file );
+		assertTrue( RepositoryFormat.read( file, false ) instanceof AVLTree );
+
+		RepositoryFormat.write( new BSTree<Word>(), file );
+		assertFalse( RepositoryFormat.read( file, false ) instanceof AVLTree );
+		assertTrue( RepositoryFormat.read( file, true ) instanceof AVLTree );
+	}
+
+	/**
+	 * Test method for {@link app.RepositoryFormat#read(java.io.File, boolean)} to
+	 * reject a file that is not a repository.
+	 * 
+	 * @throws IOException if the temporary file cannot be used
+	 */
+	@Test
+	public void testRead_InvalidFile() throws IOException
+	{
+		try( FileOutputStream out = new FileOutputStream( file ) )
+		{
+			out.write( "Hello kitty".getBytes( "US-ASCII" ) );
+		}
+		try
+		{
+			RepositoryFormat.read( file, false );
+			fail( "Failed to throw IOException." );
+		}
+		catch( IOException e )
+		{
+			assertTrue( true );
+		}
+	}
+}
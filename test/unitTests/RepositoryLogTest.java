@@ -0,0 +1,368 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.FileInfo;
+import app.MappedRepository;
+import app.RepositoryFormat;
+import app.RepositoryLog;
+import implementations.AVLTree;
+import implementations.BSTree;
+import implementations.BSTreeNode;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+/**
+ * Tests that the occurrence log replays exactly the batches appended for the
+ * current repository snapshot.
+ */
+
+public class RepositoryLogTest
+{
+	private File snapshot;
+	private File logFile;
+	private Map<String, FileInfo> files;
+	private FileTable fileTable;
+
+	/**
+	 * Writes a snapshot holding one word before each test.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		fileTable = new FileTable();
+		snapshot = File.createTempFile( "repository", ".wtr" );
+		logFile = File.createTempFile( "repository", ".log" );
+		logFile.delete();
+		files = new HashMap<String, FileInfo>();
+
+		RepositoryFormat.write( tree( "kitty", "a.txt", 1 ), snapshot );
+	}
+
+	/**
+	 * Deletes the temporary files after each test.
+	 */
+	@After
+	public void tearDown()
+	{
+		snapshot.delete();
+		logFile.delete();
+	}
+
+	/**
+	 * Test method for {@link app.RepositoryLog#append(implementations.BSTree, implementations.FileTable, java.util.Map)} and
+	 * {@link app.RepositoryLog#replay(java.io.File, implementations.BSTree, implementations.FileTable, java.util.Map)} to
+	 * add the logged occurrences after the ones in the snapshot.
+	 *
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test
+	public void testAppendReplay() throws IOException
+	{
+		RepositoryLog log = new RepositoryLog( logFile );
+		assertEquals( "Failed to replay an empty log.", 0,
+				log.replay( snapshot, RepositoryFormat.read( snapshot, false, null, fileTable ), fileTable, files ) );
+		assertTrue( "Failed to attach the log.", log.isAttached() );
+
+		append( log, tree( "kitty", "b.txt", 2 ) );
+		append( log, tree( "apple", "c.txt", 3 ) );
+
+		BSTree<Word> restored = RepositoryFormat.read( snapshot, false, null, fileTable );
+		RepositoryLog reopened = new RepositoryLog( logFile );
+		assertEquals( "Failed to replay every batch.", 2, reopened.replay( snapshot, restored, fileTable, files ) );
+		assertEquals( "Failed to keep the valid length.", logFile.length(), reopened.length() );
+
+		assertEquals( 2, restored.size() );
+		assertEquals( "apple: c.txt[3] (freq = 1)", restored.search( new Word( "apple" ) ).getElement().toPOString() );
+		assertEquals( "kitty: a.txt[1] b.txt[2] (freq = 2)", restored.search( new Word( "kitty" ) ).getElement().toPOString() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryLog#replay(java.io.File, implementations.BSTree, implementations.FileTable, java.util.Map)} to
+	 * ignore a log written for another snapshot, as left behind by an interrupted
+	 * compaction.
+	 *
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test
+	public void testReplay_StaleLog() throws IOException
+	{
+		RepositoryLog log = new RepositoryLog( logFile );
+		log.replay( snapshot, RepositoryFormat.read( snapshot, false, null, fileTable ), fileTable, files );
+		append( log, tree( "kitty", "b.txt", 2 ) );
+
+		// Compaction: a new snapshot now holds the logged occurrence.
+		BSTree<Word> compacted = tree( "kitty", "a.txt", 1 );
+		compacted.getRoot().getElement().addOccurence( "b.txt", 2 );
+		RepositoryFormat.write( compacted, snapshot );
+
+		BSTree<Word> restored = RepositoryFormat.read( snapshot, false, null, fileTable );
+		RepositoryLog reopened = new RepositoryLog( logFile );
+		assertEquals( "Failed to ignore the stale log.", 0, reopened.replay( snapshot, restored, fileTable, files ) );
+		assertEquals( "kitty: a.txt[1] b.txt[2] (freq = 2)", restored.getRoot().getElement().toPOString() );
+
+		// The next append replaces the stale log.
+		append( reopened, tree( "zebra", "c.txt", 4 ) );
+		restored = RepositoryFormat.read( snapshot, false, null, fileTable );
+		assertEquals( 1, new RepositoryLog( logFile ).replay( snapshot, restored, fileTable, files ) );
+		assertEquals( 2, restored.size() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryLog#replay(java.io.File, implementations.BSTree, implementations.FileTable, java.util.Map)} to
+	 * tell snapshots apart by the id in their header, even when a new snapshot
+	 * holds exactly the same words as the one the log was written for.
+	 *
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test
+	public void testReplay_SnapshotId() throws IOException
+	{
+		long id = RepositoryFormat.snapshotId( snapshot );
+		assertTrue( "Failed to store a snapshot id.", id >= 0 );
+
+		RepositoryLog log = new RepositoryLog( logFile );
+		log.replay( snapshot, RepositoryFormat.read( snapshot, false, null, fileTable ), fileTable, files );
+		append( log, tree( "zebra", "b.txt", 2 ) );
+
+		RepositoryFormat.write( tree( "kitty", "a.txt", 1 ), snapshot );
+		assertNotEquals( "Failed to draw a new id.", id, RepositoryFormat.snapshotId( snapshot ) );
+
+		BSTree<Word> restored = RepositoryFormat.read( snapshot, false, null, fileTable );
+		assertEquals( "Failed to ignore the log of the old snapshot.", 0,
+				new RepositoryLog( logFile ).replay( snapshot, restored, fileTable, files ) );
+		assertNull( restored.search( new Word( "zebra" ) ) );
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryLog#replay(java.io.File, implementations.BSTree, implementations.FileTable, java.util.Map)} to
+	 * drop a batch torn by a crash during append, keeping the batches before it.
+	 *
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test
+	public void testReplay_TornBatch() throws IOException
+	{
+		RepositoryLog log = new RepositoryLog( logFile );
+		log.replay( snapshot, RepositoryFormat.read( snapshot, false, null, fileTable ), fileTable, files );
+		append( log, tree( "kitty", "b.txt", 2 ) );
+		long complete = logFile.length();
+		append( log, tree( "zebra", "c.txt", 4 ) );
+
+		try( RandomAccessFile file = new RandomAccessFile( logFile, "rw" ) )
+		{
+			file.setLength( file.length() - 3 );
+		}
+
+		BSTree<Word> restored = RepositoryFormat.read( snapshot, false, null, fileTable );
+		RepositoryLog reopened = new RepositoryLog( logFile );
+		assertEquals( "Failed to drop the torn batch.", 1, reopened.replay( snapshot, restored, fileTable, files ) );
+		assertEquals( "Failed to stop at the torn batch.", complete, reopened.length() );
+		assertNull( restored.search( new Word( "zebra" ) ) );
+
+		// Appending again overwrites the torn batch.
+		append( reopened, tree( "apple", "d.txt", 5 ) );
+		restored = RepositoryFormat.read( snapshot, false, null, fileTable );
+		assertEquals( 2, new RepositoryLog( logFile ).replay( snapshot, restored, fileTable, files ) );
+		assertNotNull( restored.search( new Word( "apple" ) ) );
+	}
+
+	/**
+	 * Test method for {@link app.RepositoryLog#append(implementations.BSTree, implementations.FileTable, java.util.Map)} to
+	 * refuse a batch before the log is attached to a snapshot.
+	 *
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testAppend_NotAttached() throws IOException
+	{
+		new RepositoryLog( logFile ).append( tree( "kitty", "b.txt", 2 ), fileTable, new HashMap<String, FileInfo>() );
+	}
+
+	/**
+	 * Test method for
+	 * {@link app.RepositoryLog#replay(java.io.File, implementations.BSTree, implementations.FileTable, java.util.Map)}
+	 * to replace the occurrences of a file indexed again, and to record the
+	 * indexed files. The files of the snapshot are known from its file table.
+	 *
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test
+	public void testReplay_ReplacesFiles() throws IOException
+	{
+		RepositoryLog log = new RepositoryLog( logFile );
+		log.replay( snapshot, RepositoryFormat.read( snapshot, false, null, fileTable ), fileTable, files );
+
+		BSTree<Word> first = tree( "kitty", "b.txt", 2 );
+		first.add( new Word( "zebra" ) );
+		first.search( new Word( "zebra" ) ).getElement().addOccurence( "b.txt", 3 );
+		append( log, first );
+
+		// b.txt changed: zebra is gone and kitty moved to line 7. a.txt is indexed again too.
+		Map<String, FileInfo> indexed = new HashMap<String, FileInfo>();
+		indexed.put( "a.txt", new FileInfo( 10, 20, 30 ) );
+		indexed.put( "b.txt", new FileInfo( 40, 50, 60 ) );
+		log.append( tree( "kitty", "b.txt", 7 ), fileTable, indexed );
+
+		Map<String, FileInfo> restoredFiles = new HashMap<String, FileInfo>();
+		BSTree<Word> restored = RepositoryFormat.read( snapshot, false, restoredFiles, fileTable );
+		assertEquals( 2, new RepositoryLog( logFile ).replay( snapshot, restored, fileTable, restoredFiles ) );
+
+		assertEquals( "Failed to drop the word without occurrences.", 1, restored.size() );
+		assertEquals( "kitty: b.txt[7] (freq = 1)", restored.getRoot().getElement().toPOString() );
+		assertEquals( "Failed to record the indexed files.", 2, restoredFiles.size() );
+		assertEquals( 60, restoredFiles.get( "b.txt" ).getChecksum() );
+	}
+
+	/**
+	 * Test method for {@link app.MappedRepository#overlay(RepositoryLog)} and
+	 * {@link app.MappedRepository#overlay(BSTree, Map)} to report, after
+	 * incremental ingests, exactly what loading the snapshot and replaying the
+	 * log gives, while the snapshot stays mapped.
+	 *
+	 * @throws IOException if the temporary files cannot be used
+	 */
+	@Test
+	public void testMappedOverlay() throws IOException
+	{
+		BSTree<Word> base = new AVLTree<Word>();
+		add( base, "a.txt", 1, "apple", "kitty" );
+		add( base, "b.txt", 2, "apple", "zebra" );
+		add( base, "c.txt", 3, "mango" );
+		RepositoryFormat.write( base, snapshot );
+
+		RepositoryLog log = new RepositoryLog( logFile );
+		log.replay( snapshot, RepositoryFormat.read( snapshot, false, null, fileTable ), fileTable, files );
+		append( log, add( new AVLTree<Word>(), "b.txt", 7, "kitty", "pear" ) ); // b.txt indexed again.
+		append( log, add( new AVLTree<Word>(), "d.txt", 1, "apple", "zoo" ) ); // A new file,
+		append( log, add( new AVLTree<Word>(), "d.txt", 9, "zoo" ) ); // indexed again.
+
+		Map<String, FileInfo> loadedFiles = new HashMap<String, FileInfo>();
+		FileTable loadedTable = new FileTable();
+		BSTree<Word> loaded = RepositoryFormat.read( snapshot, false, loadedFiles, loadedTable );
+		new RepositoryLog( logFile ).replay( snapshot, loaded, loadedTable, loadedFiles );
+
+		try( MappedRepository mapped = new MappedRepository( snapshot ) )
+		{
+			assertEquals( "Failed to overlay every batch.", 3, mapped.overlay( new RepositoryLog( logFile ) ) );
+			assertEquals( "Failed to record the logged files.", loadedFiles.keySet(), mapped.getFiles().keySet() );
+			assertEquals( "apple: a.txt[1] (freq = 1)\nkitty: a.txt[1] b.txt[7] (freq = 2)\n"
+					+ "mango: c.txt[3] (freq = 1)\npear: b.txt[7] (freq = 1)\nzoo: d.txt[9] (freq = 1)\n",
+					report( mapped, "-po", null, null, false ) );
+
+			for( String flag : new String[] { "-pf", "-pl", "-po" } )
+			{
+				assertEquals( "Mapped report differs for " + flag, report( loaded.inorderIterator(), flag ),
+						report( mapped, flag, null, null, false ) );
+			}
+			assertEquals( report( loaded.subTree( new Word( "b" ), new Word( "p" ) ), "-po" ),
+					report( mapped, "-po", "b", "p", false ) );
+			assertEquals( report( loaded.prefixIterator( Word.prefix( "z" ) ), "-po" ),
+					report( mapped, "-po", "z", "z", true ) );
+			assertEquals( "Failed to drop the word without occurrences.", 0,
+					mapped.generateOutput( "-po", "zebra", "zebra", false, new StringBuilder() ) );
+
+			// One more ingest, overlaid without the log: a.txt indexed again, so apple is left without files.
+			Word kitty = new Word( "kitty", mapped.getFileTable() );
+			kitty.addOccurence( "a.txt", 5 );
+			BSTree<Word> batch = new AVLTree<Word>();
+			batch.add( kitty );
+			Map<String, FileInfo> indexed = new HashMap<String, FileInfo>();
+			indexed.put( "a.txt", null );
+			mapped.overlay( batch, indexed );
+
+			assertEquals( "Failed to drop the occurrences of the file indexed again.",
+					"kitty: a.txt[5] b.txt[7] (freq = 2)\n",
+					report( mapped, "-po", "a", "l", false ) );
+		}
+	}
+
+	/**
+	 * Concatenates the report lines of some words.
+	 */
+	private static String report( Iterator<Word> it, String flag ) throws IOException
+	{
+		StringBuilder sb = new StringBuilder();
+		while( it.hasNext() )
+		{
+			Word word = it.next();
+			sb.append( flag.equals( "-pf" ) ? word.toPFString()
+					: flag.equals( "-pl" ) ? word.toPLString() : word.toPOString() ).append( '\n' );
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the report of a mapped repository.
+	 */
+	private static String report( MappedRepository mapped, String flag, String from, String to, boolean prefix )
+			throws IOException
+	{
+		StringBuilder sb = new StringBuilder();
+		mapped.generateOutput( flag, from, to, prefix, sb );
+		return sb.toString();
+	}
+
+	/**
+	 * Adds one occurrence of some words in a file to a tree.
+	 */
+	private static BSTree<Word> add( BSTree<Word> tree, String fileName, int line, String... texts )
+	{
+		for( String text : texts )
+		{
+			BSTreeNode<Word> node = tree.search( new Word( text ) );
+			Word word = ( node == null ) ? new Word( text ) : node.getElement();
+			if( node == null )
+			{
+				tree.add( word );
+			}
+			word.addOccurence( fileName, line );
+		}
+		return tree;
+	}
+
+	/**
+	 * Appends a tree as a batch indexing the files it mentions.
+	 */
+	private void append( RepositoryLog log, BSTree<Word> tree ) throws IOException
+	{
+		Map<String, FileInfo> indexed = new HashMap<String, FileInfo>();
+		for( Iterator<Word> it = tree.inorderIterator(); it.hasNext(); )
+		{
+			Word word = it.next();
+			for( int f = 0; f < word.getFileCount(); f++ )
+			{
+				indexed.put( word.getFileName( f ), null );
+			}
+		}
+		log.append( tree, fileTable, indexed );
+	}
+
+	/**
+	 * Creates a tree holding one occurrence of one word.
+	 */
+	private static BSTree<Word> tree( String text, String fileName, int line )
+	{
+		Word word = new Word( text );
+		word.addOccurence( fileName, line );
+		BSTree<Word> tree = new AVLTree<Word>();
+		tree.add( word );
+		return tree;
+	}
+}
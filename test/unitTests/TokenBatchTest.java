@@ -0,0 +1,221 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import app.TokenBatch;
+import app.Tokenizer;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+import utilities.Iterator;
+
+/**
+ * Tests that the TokenBatch records exactly the occurrences the per-token
+ * lookup path records, whatever the chunk size.
+ */
+
+public class TokenBatchTest
+{
+	private static final String[] VOCABULARY = { "the", "a", "of", "and", "tree", "node", "x1", "zebra", "ab",
+			"abc", "b", "averyveryveryveryveryveryveryverylongword" };
+
+	private FileTable fileTable;
+
+	/**
+	 * Creates an empty file table before each test.
+	 */
+	@Before
+	public void setUp()
+	{
+		fileTable = new FileTable();
+	}
+
+	/**
+	 * Builds some lines of text with repeated words in random order.
+	 */
+	private static String[] randomLines( int count, long seed )
+	{
+		Random random = new Random( seed );
+		String[] lines = new String[count];
+		for( int i = 0; i < count; i++ )
+		{
+			StringBuilder sb = new StringBuilder();
+			int words = random.nextInt( 12 );
+			for( int j = 0; j < words; j++ )
+			{
+				String word = ( random.nextInt( 4 ) == 0 ) ? "w" + random.nextInt( 500 )
+						: VOCABULARY[random.nextInt( VOCABULARY.length )];
+				sb.append( random.nextBoolean() ? word.toUpperCase() : word ).append( ", " );
+			}
+			lines[i] = sb.toString();
+		}
+		return lines;
+	}
+
+	/**
+	 * Indexes lines one token at a time.
+	 */
+	private void indexPerToken( BSTree<Word> tree, String[] lines, int fileId )
+	{
+		Tokenizer tokenizer = new Tokenizer();
+		for( int i = 0; i < lines.length; i++ )
+		{
+			tokenizer.reset( lines[i] );
+			while( tokenizer.next() )
+			{
+				tree.computeIfAbsent( tokenizer.token(), t -> t.toWord( fileTable ) ).addOccurence( fileId, i + 1 );
+			}
+		}
+	}
+
+	/**
+	 * Indexes lines through a batch, the way WordTracker.processInputFile does.
+	 */
+	private void indexBatched( BSTree<Word> tree, String[] lines, int fileId, TokenBatch batch )
+	{
+		Tokenizer tokenizer = new Tokenizer();
+		for( int i = 0; i < lines.length; i++ )
+		{
+			tokenizer.reset( lines[i] );
+			while( tokenizer.next() )
+			{
+				if( batch.add( tokenizer.token(), i + 1 ) )
+				{
+					batch.flush( tree, fileTable, fileId );
+				}
+			}
+		}
+		batch.flush( tree, fileTable, fileId );
+	}
+
+	/**
+	 * Concatenates the -po report of a tree.
+	 */
+	private static String report( BSTree<Word> tree )
+	{
+		StringBuilder sb = new StringBuilder();
+		Iterator<Word> it = tree.inorderIterator();
+		while( it.hasNext() )
+		{
+			sb.append( it.next().toPOString() ).append( '\n' );
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Test method for {@link app.TokenBatch#flush(BSTree, FileTable, int)} to give the
+	 * same report as the per-token path, for chunk sizes from one token to
+	 * more than the whole input, across two files.
+	 */
+	@Test
+	public void testFlush_SameAsPerToken()
+	{
+		String[] first = randomLines( 400, 1 );
+		String[] second = randomLines( 300, 2 );
+		int firstId = fileTable.id( "batch-first.txt" );
+		int secondId = fileTable.id( "batch-second.txt" );
+
+		BSTree<Word> expected = new BSTree<Word>();
+		indexPerToken( expected, first, firstId );
+		indexPerToken( expected, second, secondId );
+
+		for( int capacity : new int[] { 1, 2, 7, 100, 1000, 100000 } )
+		{
+			BSTree<Word> tree = new BSTree<Word>();
+			TokenBatch batch = new TokenBatch( capacity );
+			indexBatched( tree, first, firstId, batch );
+			indexBatched( tree, second, secondId, batch );
+			assertEquals( "capacity " + capacity, expected.size(), tree.size() );
+			assertEquals( "capacity " + capacity, report( expected ), report( tree ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link app.TokenBatch#add(Tokenizer.Token, int)} to
+	 * report a full chunk and refuse more tokens until it is flushed.
+	 */
+	@Test
+	public void testAdd_Full()
+	{
+		TokenBatch batch = new TokenBatch( 3 );
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset( "one two one four" );
+
+		assertTrue( tokenizer.next() );
+		assertFalse( batch.add( tokenizer.token(), 1 ) );
+		assertTrue( tokenizer.next() );
+		assertFalse( batch.add( tokenizer.token(), 1 ) );
+		assertTrue( tokenizer.next() );
+		assertTrue( batch.add( tokenizer.token(), 2 ) );
+		assertEquals( 3, batch.size() );
+
+		assertTrue( tokenizer.next() );
+		try
+		{
+			batch.add( tokenizer.token(), 2 );
+			fail( "Expected IllegalStateException" );
+		}
+		catch( IllegalStateException e )
+		{
+			// expected
+		}
+
+		BSTree<Word> tree = new BSTree<Word>();
+		batch.flush( tree, fileTable, fileTable.id( "batch-full.txt" ) );
+		assertEquals( 0, batch.size() );
+		assertEquals( 2, tree.size() );
+		assertEquals( Arrays.asList( 1, 2 ),
+				tree.search( new Word( "one" ) ).getElement().getLineNumbers( "batch-full.txt" ) );
+		assertEquals( Arrays.asList( 1 ),
+				tree.search( new Word( "two" ) ).getElement().getLineNumbers( "batch-full.txt" ) );
+	}
+
+	/**
+	 * Test method for {@link app.TokenBatch#clear()} to discard the pending
+	 * tokens, and for {@link app.TokenBatch#TokenBatch(int)} to reject
+	 * illegal capacities.
+	 */
+	@Test
+	public void testClearAndCapacity()
+	{
+		TokenBatch batch = new TokenBatch( 10 );
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset( "dropped words" );
+		while( tokenizer.next() )
+		{
+			batch.add( tokenizer.token(), 1 );
+		}
+		batch.clear();
+		assertEquals( 0, batch.size() );
+
+		BSTree<Word> tree = new BSTree<Word>();
+		batch.flush( tree, fileTable, fileTable.id( "batch-clear.txt" ) );
+		assertTrue( tree.isEmpty() );
+
+		assertEquals( 0, new TokenBatch( 0 ).capacity() );
+		try
+		{
+			new TokenBatch( -1 );
+			fail( "Expected IllegalArgumentException" );
+		}
+		catch( IllegalArgumentException e )
+		{
+			// expected
+		}
+		try
+		{
+			new TokenBatch( TokenBatch.MAX_CAPACITY + 1 );
+			fail( "Expected IllegalArgumentException" );
+		}
+		catch( IllegalArgumentException e )
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import app.Tokenizer;
+import implementations.Word;
+
+/**
+ * Tests that the Tokenizer splits lines exactly like the original regex based
+ * preprocessing of WordTracker.
+ */
+
+public class TokenizerTest
+{
+	/**
+	 * Tokenizes a line with the original replaceAll/toLowerCase/split path.
+	 */
+	private static List<String> regexTokens( String line )
+	{
+		List<String> tokens = new ArrayList<String>();
+		for( String w : line.replaceAll( "[^a-zA-Z0-9 ]", " " ).toLowerCase().split( "\\s+" ) )
+		{
+			if( !w.trim().isEmpty() )
+			{
+				tokens.add( w );
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Tokenizes a line with the Tokenizer.
+	 */
+	private static List<String> tokenizerTokens( String line )
+	{
+		List<String> tokens = new ArrayList<String>();
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset( line );
+		while( tokenizer.next() )
+		{
+			tokens.add( tokenizer.token().toString() );
+		}
+		return tokens;
+	}
+
+	/**
+	 * Test method for {@link app.Tokenizer#next()} to produce the same tokens as
+	 * the regex path on punctuation, digits, tabs, mixed case and non-ASCII text.
+	 */
+	@Test
+	public void testNext_MatchesRegexPath()
+	{
+		String[] lines = { "", "   ", "Hello Kitty! It's nice to meet you.", "\tTabs\tand  double  spaces ",
+				"e-mail O'Neil 2024-10-16", "caf\u00e9 na\u00efve \u00dcBER stra\u00dfe", "emoji\ud83d\ude00face",
+				"ALLCAPS lower MiXeD123abc", "a_b__c...d", "averyveryveryveryveryveryveryverylongwordthatgrowsthebuffer" };
+
+		for( String line : lines )
+		{
+			assertEquals( "Tokens differ for: " + line, regexTokens( line ), tokenizerTokens( line ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link app.Tokenizer#reset(byte[], int, int)} to give the
+	 * same tokens from UTF-8 and Latin-1 bytes as from the decoded line, with
+	 * the line in the middle of a larger array.
+	 */
+	@Test
+	public void testNext_Bytes()
+	{
+		String[] lines = { "", "   ", "Hello Kitty! It's nice to meet you.", "\tTabs\tand  double  spaces ",
+				"caf\u00e9 na\u00efve \u00dcBER stra\u00dfe", "emoji\ud83d\ude00face \u4e2d\u6587word", "ALLCAPS lower MiXeD123abc",
+				"averyveryveryveryveryveryveryverylongwordthatgrowsthebuffer x" };
+		Tokenizer tokenizer = new Tokenizer();
+
+		for( Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1 } )
+		{
+			for( String line : lines )
+			{
+				byte[] encoded = line.getBytes( charset );
+				byte[] bytes = new byte[encoded.length + 4];
+				Arrays.fill( bytes, (byte) 'q' );
+				System.arraycopy( encoded, 0, bytes, 2, encoded.length );
+
+				List<String> tokens = new ArrayList<String>();
+				tokenizer.reset( bytes, 2, encoded.length );
+				while( tokenizer.next() )
+				{
+					tokens.add( tokenizer.token().toString() );
+				}
+				assertEquals( "Tokens differ for: " + line, tokenizerTokens( line ), tokens );
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link app.Tokenizer.Token#compareTo(implementations.Word)}
+	 * to order tokens exactly like String.compareTo.
+	 */
+	@Test
+	public void testTokenCompareTo()
+	{
+		String[] words = { "a", "ab", "abc", "b", "ba", "z", "0", "9a" };
+		Tokenizer tokenizer = new Tokenizer();
+
+		for( String token : words )
+		{
+			for( String word : words )
+			{
+				tokenizer.reset( token );
+				assertTrue( tokenizer.next() );
+				int expected = Integer.signum( token.compareTo( word ) );
+				int actual = Integer.signum( tokenizer.token().compareTo( new Word( word ) ) );
+				assertEquals( "Wrong order for " + token + " and " + word, expected, actual );
+			}
+		}
+	}
+}
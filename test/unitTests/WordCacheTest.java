@@ -0,0 +1,191 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import app.Tokenizer;
+import app.WordCache;
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+
+/**
+ * Tests that the WordCache returns the Words stored in the tree, stays within
+ * its capacity and keeps frequent words while rare ones pass through.
+ */
+
+public class WordCacheTest
+{
+	private final FileTable fileTable = new FileTable();
+
+	/**
+	 * Looks up every token of a line through the cache.
+	 */
+	private void lookupAll( WordCache cache, BSTree<Word> tree, String line )
+	{
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset( line );
+		while( tokenizer.next() )
+		{
+			Word word = cache.lookup( tree, fileTable, tokenizer.token() );
+			assertEquals( tokenizer.token().toString(), word.getWord() );
+			assertSame( word, tree.search( word ).getElement() );
+		}
+	}
+
+	/**
+	 * Looks up a single word through the cache.
+	 */
+	private Word lookup( WordCache cache, BSTree<Word> tree, String text )
+	{
+		Tokenizer tokenizer = new Tokenizer();
+		tokenizer.reset( text );
+		assertTrue( tokenizer.next() );
+		return cache.lookup( tree, fileTable, tokenizer.token() );
+	}
+
+	/**
+	 * Test method for {@link app.WordCache#lookup(BSTree, FileTable, Tokenizer.Token)} to
+	 * add new words to the tree and answer repeated words from the cache with
+	 * the same Word.
+	 */
+	@Test
+	public void testLookup_HitsReturnStoredWord()
+	{
+		BSTree<Word> tree = new BSTree<Word>();
+		WordCache cache = new WordCache( 64 );
+
+		Word first = lookup( cache, tree, "apple" );
+		assertEquals( 1, tree.size() );
+		assertSame( first, lookup( cache, tree, "apple" ) );
+		assertEquals( 1, tree.size() );
+		assertEquals( 1, cache.getHits() );
+		assertEquals( 1, cache.getMisses() );
+
+		lookupAll( cache, tree, "the cat and the hat and the bat" );
+		assertEquals( 6, tree.size() );
+		assertEquals( 10, cache.getHits() + cache.getMisses() );
+	}
+
+	/**
+	 * Test method for {@link app.WordCache#lookup(BSTree, FileTable, Tokenizer.Token)} to
+	 * find words already in the tree that were never cached.
+	 */
+	@Test
+	public void testLookup_WordAlreadyInTree()
+	{
+		BSTree<Word> tree = new BSTree<Word>();
+		Word stored = new Word( "existing" );
+		tree.add( stored );
+
+		WordCache cache = new WordCache( 16 );
+		assertSame( stored, lookup( cache, tree, "existing" ) );
+		assertSame( stored, lookup( cache, tree, "existing" ) );
+		assertEquals( 1, tree.size() );
+		assertEquals( 1, cache.getHits() );
+	}
+
+	/**
+	 * Test method for {@link app.WordCache#WordCache(int)} to disable the cache
+	 * with a capacity of 0, so every lookup goes to the tree.
+	 */
+	@Test
+	public void testLookup_Disabled()
+	{
+		BSTree<Word> tree = new BSTree<Word>();
+		WordCache cache = new WordCache( 0 );
+		assertEquals( 0, cache.capacity() );
+
+		lookupAll( cache, tree, "one two one two one" );
+		assertEquals( 2, tree.size() );
+		assertEquals( 0, cache.getHits() );
+		assertEquals( 5, cache.getMisses() );
+	}
+
+	/**
+	 * Test method for {@link app.WordCache#WordCache(int)} to round the
+	 * capacity up to a power of two and reject illegal capacities.
+	 */
+	@Test
+	public void testCapacity()
+	{
+		assertEquals( 2, new WordCache( 1 ).capacity() );
+		assertEquals( 1024, new WordCache( 1000 ).capacity() );
+		assertEquals( 1024, new WordCache( 1024 ).capacity() );
+		assertEquals( WordCache.DEFAULT_CAPACITY, new WordCache( WordCache.DEFAULT_CAPACITY ).capacity() );
+		assertEquals( WordCache.MAX_CAPACITY, new WordCache( WordCache.MAX_CAPACITY ).capacity() );
+
+		try
+		{
+			new WordCache( -1 );
+			fail( "Expected IllegalArgumentException" );
+		}
+		catch( IllegalArgumentException e )
+		{
+			// expected
+		}
+
+		try
+		{
+			new WordCache( WordCache.MAX_CAPACITY + 1 );
+			fail( "Expected IllegalArgumentException" );
+		}
+		catch( IllegalArgumentException e )
+		{
+			// expected
+		}
+	}
+
+	/**
+	 * Test method for {@link app.WordCache#lookup(BSTree, FileTable, Tokenizer.Token)} to
+	 * keep a frequent word cached while many rare words pass through, and to
+	 * stay correct with far more distinct words than slots.
+	 */
+	@Test
+	public void testLookup_HotWordsSurvive()
+	{
+		BSTree<Word> tree = new BSTree<Word>();
+		WordCache cache = new WordCache( 8 );
+
+		for( int i = 0; i < 5; i++ )
+		{
+			lookup( cache, tree, "the" );
+		}
+		long hits = cache.getHits();
+		for( int i = 0; i < 1000; i++ )
+		{
+			lookup( cache, tree, "rare" + i );
+			lookup( cache, tree, "the" );
+		}
+		assertEquals( 1001, tree.size() );
+		assertTrue( "the should mostly hit, got " + ( cache.getHits() - hits ),
+				cache.getHits() - hits >= 990 );
+
+		// Every word is still found again, cached or not.
+		for( int i = 0; i < 1000; i++ )
+		{
+			assertEquals( "rare" + i, lookup( cache, tree, "rare" + i ).getWord() );
+		}
+		assertEquals( 1001, tree.size() );
+	}
+
+	/**
+	 * Test method for {@link app.WordCache#addCounts(WordCache)} and
+	 * {@link app.WordCache#toString()}.
+	 */
+	@Test
+	public void testAddCounts()
+	{
+		BSTree<Word> tree = new BSTree<Word>();
+		WordCache worker = new WordCache( 16 );
+		lookupAll( worker, tree, "a b a b a" );
+
+		WordCache totals = new WordCache( 16 );
+		totals.addCounts( worker );
+		totals.addCounts( worker );
+		assertEquals( 6, totals.getHits() );
+		assertEquals( 4, totals.getMisses() );
+		assertEquals( "word cache: 16 entries, 10 lookups, 6 hits (60.0%), 4 misses", totals.toString() );
+	}
+}
@@ -0,0 +1,248 @@
+package unitTests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import utilities.Iterator;
+
+import implementations.BSTree;
+import implementations.FileTable;
+import implementations.Word;
+
+/**
+ * Tests the occurrence tracking and report formatting of Word.
+ */
+
+public class WordTest
+{
+	private FileTable fileTable;
+	private Word word;
+
+	/**
+	 * Creates a Word with no occurrences before each test.
+	 */
+	@Before
+	public void setUp()
+	{
+		fileTable = new FileTable();
+		word = new Word( "kitty", fileTable );
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#addOccurence(String, int)} to
+	 * keep line numbers per file, with files in FileTable id order.
+	 */
+	@Test
+	public void testAddOccurence()
+	{
+		int later = fileTable.id( "order-b.txt" );
+		int earlier = fileTable.id( "order-a.txt" );
+		word.addOccurence( "order-a.txt", 2 );
+		word.addOccurence( later, 1 );
+		word.addOccurence( "order-b.txt", 3 );
+		word.addOccurence( "order-b.txt", 3 );
+
+		assertTrue( earlier > later );
+		assertEquals( "Failed to count the files.", 2, word.getFileCount() );
+		assertEquals( "Failed to order the files by id.", Arrays.asList( "order-b.txt", "order-a.txt" ), Arrays.asList( word.getFileNames().toArray() ) );
+		assertEquals( "Failed to return the id.", earlier, word.getFileId( 1 ) );
+		assertEquals( "Failed to keep the line numbers.", Arrays.asList( 1, 3, 3 ), word.getLineNumbers( "order-b.txt" ) );
+		assertNull( "Unknown file should have no lines.", word.getLineNumbers( "c.txt" ) );
+		assertEquals( "Failed to count the occurrences.", 4, word.getTotalFrequency() );
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#addOccurence(String, int)} to
+	 * track a word spread over many files with many lines each.
+	 */
+	@Test
+	public void testAddOccurence_ManyFiles()
+	{
+		for( int line = 1; line <= 100; line++ )
+		{
+			for( int file = 0; file < 50; file++ )
+			{
+				word.addOccurence( "file" + file + ".txt", line );
+			}
+		}
+
+		assertEquals( "Failed to count the files.", 50, word.getFileCount() );
+		assertEquals( "Failed to count the occurrences.", 5000, word.getTotalFrequency() );
+		for( int file = 0; file < 50; file++ )
+		{
+			assertEquals( "Failed to keep the file order.", "file" + file + ".txt", word.getFileName( file ) );
+			assertEquals( "Failed to find the file.", 100, word.getLineNumbers( "file" + file + ".txt" ).size() );
+			assertEquals( "Failed to keep the line numbers.", 100, word.getLineNumber( file, 99 ) );
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#addAll(implementations.Word)}
+	 * to append the occurrences of another Word, keeping the files in id order
+	 * whichever Word saw them first.
+	 */
+	@Test
+	public void testAddAll()
+	{
+		fileTable.id( "merge-a.txt" );
+		fileTable.id( "merge-b.txt" );
+		fileTable.id( "merge-c.txt" );
+
+		word.addOccurence( "merge-a.txt", 1 );
+		word.addOccurence( "merge-c.txt", 2 );
+		Word other = new Word( "kitty", fileTable );
+		other.addOccurence( "merge-b.txt", 5 );
+		other.addOccurence( "merge-a.txt", 7 );
+		other.addOccurence( "merge-a.txt", 8 );
+
+		word.addAll( other );
+
+		assertEquals( "Failed to merge the occurrences.", "kitty: merge-a.txt[1, 7, 8] merge-b.txt[5] merge-c.txt[2] (freq = 5)", word.toPOString() );
+		assertEquals( "Failed to leave the other Word unchanged.", 3, other.getTotalFrequency() );
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#addAll(implementations.Word)}
+	 * to match the files of a Word with another FileTable by name, and for
+	 * {@link implementations.Word#addOccurence(int, int)} to refuse an id
+	 * without a table.
+	 */
+	@Test
+	public void testAddAll_OtherTable()
+	{
+		word.addOccurence( "merge-a.txt", 1 );
+		word.addOccurence( "merge-c.txt", 2 );
+		Word other = new Word( "kitty" );
+		other.addOccurence( "merge-b.txt", 5 );
+		other.addOccurence( "merge-a.txt", 7 );
+		assertNotSame( fileTable, other.getFileTable() );
+
+		word.addAll( other );
+
+		assertEquals( "kitty: merge-a.txt[1, 7] merge-c.txt[2] merge-b.txt[5] (freq = 4)", word.toPOString() );
+		assertSame( fileTable, word.getFileTable() );
+
+		Word empty = new Word( "empty" );
+		empty.addAll( other );
+		assertSame( "Failed to take the table of the other Word.", other.getFileTable(), empty.getFileTable() );
+
+		try
+		{
+			new Word( "orphan" ).addOccurence( 0, 1 );
+			fail( "Expected IllegalStateException" );
+		}
+		catch( IllegalStateException e )
+		{
+			// expected
+		}
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#toPFString()},
+	 * {@link implementations.Word#toPLString()} and
+	 * {@link implementations.Word#toPOString()} to format the report lines.
+	 */
+	@Test
+	public void testReportStrings()
+	{
+		assertEquals( "kitty:", word.toPFString() );
+		assertEquals( "kitty: (freq = 0)", word.toPOString() );
+
+		word.addOccurence( "a.txt", 1 );
+		word.addOccurence( "a.txt", 2 );
+		word.addOccurence( "b.txt", 3 );
+
+		assertEquals( "kitty: a.txt b.txt", word.toPFString() );
+		assertEquals( "kitty: a.txt[1, 2] b.txt[3]", word.toPLString() );
+		assertEquals( "kitty: a.txt[1, 2] b.txt[3] (freq = 3)", word.toPOString() );
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#appendPFTo(Appendable)},
+	 * {@link implementations.Word#appendPLTo(Appendable)} and
+	 * {@link implementations.Word#appendPOTo(Appendable)} to write the same
+	 * lines as the String methods.
+	 * 
+	 * @throws IOException if the writer fails
+	 */
+	@Test
+	public void testAppendTo() throws IOException
+	{
+		word.addOccurence( "a.txt", 1 );
+		word.addOccurence( "a.txt", 2 );
+		word.addOccurence( "b.txt", 3 );
+
+		StringWriter out = new StringWriter();
+		word.appendPFTo( out );
+		out.append( '\n' );
+		word.appendPLTo( out );
+		out.append( '\n' );
+		word.appendPOTo( out );
+
+		assertEquals( word.toPFString() + "\n" + word.toPLString() + "\n" + word.toPOString(), out.toString() );
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#removeFile(String)} to drop
+	 * every occurrence in one file and keep the others in order.
+	 */
+	@Test
+	public void testRemoveFile()
+	{
+		for( int file = 0; file < 12; file++ )
+		{
+			word.addOccurence( "chapter" + file + ".txt", file + 1 );
+			word.addOccurence( "chapter" + file + ".txt", file + 2 );
+		}
+
+		assertTrue( "Failed to remove the file.", word.removeFile( "chapter3.txt" ) );
+		assertFalse( "Removed a file twice.", word.removeFile( "chapter3.txt" ) );
+		assertFalse( "Removed an unknown file.", word.removeFile( "other.txt" ) );
+
+		assertEquals( "Failed to count the files.", 11, word.getFileCount() );
+		assertEquals( "Failed to update the frequency.", 22, word.getTotalFrequency() );
+		assertNull( "Failed to forget the file.", word.getLineNumbers( "chapter3.txt" ) );
+		assertEquals( "Failed to keep the file order.", "chapter4.txt", word.getFileName( 3 ) );
+		assertEquals( "Failed to find a shifted file.", Arrays.asList( 12, 13 ), word.getLineNumbers( "chapter11.txt" ) );
+
+		word.addOccurence( "chapter3.txt", 99 );
+		assertEquals( "Failed to put the file back in id order.", "chapter3.txt", word.getFileName( 3 ) );
+	}
+
+	/**
+	 * Test method for {@link implementations.Word#prefix(String)} to compare
+	 * equal to the words starting with the prefix and order the others like the
+	 * prefix, so a tree lists exactly the matching words.
+	 */
+	@Test
+	public void testPrefix()
+	{
+		Comparable<Word> key = Word.prefix( "kit" );
+		assertEquals( 0, key.compareTo( new Word( "kit" ) ) );
+		assertEquals( 0, key.compareTo( word ) );
+		assertTrue( key.compareTo( new Word( "ki" ) ) > 0 );
+		assertEquals( 0, key.compareTo( new Word( "kite" ) ) );
+		assertTrue( key.compareTo( new Word( "kis" ) ) > 0 );
+		assertTrue( key.compareTo( new Word( "kiu" ) ) < 0 );
+		assertTrue( key.compareTo( new Word( "kj" ) ) < 0 );
+
+		BSTree<Word> tree = new BSTree<Word>();
+		for( String text : new String[] { "kitten", "kin", "kit", "kitty", "kite", "kiu", "ki", "kis", "a", "z" } )
+		{
+			tree.add( new Word( text ) );
+		}
+		StringBuilder found = new StringBuilder();
+		for( Iterator<Word> it = tree.prefixIterator( key ); it.hasNext(); )
+		{
+			found.append( it.next().getWord() ).append( ' ' );
+		}
+		assertEquals( "kit kite kitten kitty ", found.toString() );
+		assertFalse( tree.prefixIterator( Word.prefix( "kx" ) ).hasNext() );
+	}
+}